@@ -0,0 +1,38 @@
+package com.github.sullyvahnn.flaskplugin.java.AnnotationRefactoring;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * One annotation to add, detached from PSI.
+ * <p>
+ * Holds the text range to replace in the document as it was when the annotation was inferred,
+ * together with the document stamp of that moment. Files changed since are left alone instead
+ * of being edited at wrong offsets.
+ */
+final class AnnotationEdit {
+    final VirtualFile file;
+    /** Stamp of the document the offsets belong to */
+    final long documentStamp;
+    final int startOffset;
+    final int endOffset;
+    final String replacement;
+    /** Parameter or function the annotation is added to, like "index.user_id" or "index() ->" */
+    final String declaration;
+    final int lineNumber;
+    final String annotation;
+    /** Chosen in the preview */
+    boolean selected = true;
+
+    AnnotationEdit(@NotNull VirtualFile file, long documentStamp, int startOffset, int endOffset,
+                   @NotNull String replacement, @NotNull String declaration, int lineNumber, @NotNull String annotation) {
+        this.file = file;
+        this.documentStamp = documentStamp;
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+        this.replacement = replacement;
+        this.declaration = declaration;
+        this.lineNumber = lineNumber;
+        this.annotation = annotation;
+    }
+}
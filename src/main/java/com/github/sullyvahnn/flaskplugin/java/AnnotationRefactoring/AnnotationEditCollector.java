@@ -0,0 +1,136 @@
+package com.github.sullyvahnn.flaskplugin.java.AnnotationRefactoring;
+
+import com.github.sullyvahnn.flaskplugin.java.NormalTypeWidget.ReturnTypeSummaries;
+import com.github.sullyvahnn.flaskplugin.java.NormalTypeWidget.SourceTypeResolver;
+import com.github.sullyvahnn.flaskplugin.java.TypeAnalysis.AnnotationText;
+import com.github.sullyvahnn.flaskplugin.java.TypeAnalysis.TypeAnalysisCache;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.jetbrains.python.psi.*;
+import com.jetbrains.python.pyi.PyiFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Infers the annotations missing in one module and turns them into document edits.
+ * <p>
+ * Every unannotated parameter reported by project-wide analysis and every unannotated function
+ * with inferred returns gets the union of its types. Types come from the exhaustive
+ * {@link SourceTypeResolver}, never from samples, the imported snapshot, stubs or runtime traces.
+ * Declarations whose types the module cannot refer to are left out rather than annotated with
+ * names that do not resolve. Must be used inside a read action.
+ */
+final class AnnotationEditCollector {
+    private final PyFile module;
+    private final Document document;
+    private final AnnotationText annotationText;
+    /** With from __future__ import annotations nothing is evaluated, so nothing has to be quoted */
+    private final boolean postponedAnnotations;
+    /** Unions and builtin generics fail at runtime before Python 3.10 unless annotations are postponed */
+    private final boolean quoteComplexTypes;
+    private final List<AnnotationEdit> edits = new ArrayList<>();
+
+    private AnnotationEditCollector(@NotNull PyFile module, @NotNull Document document) {
+        this.module = module;
+        this.document = document;
+        this.annotationText = new AnnotationText(module);
+        this.postponedAnnotations = module.hasImportFromFuture(FutureFeature.ANNOTATIONS);
+        this.quoteComplexTypes = !LanguageLevel.forElement(module).isAtLeast(LanguageLevel.PYTHON310) && !postponedAnnotations;
+    }
+
+    /**
+     * Collects edits adding inferred annotations to one module
+     *
+     * @param project project of the module
+     * @param file Python module
+     * @return edits in document order, or null if the file is not a Python module or has uncommitted changes
+     */
+    static @Nullable List<AnnotationEdit> collect(@NotNull Project project, @NotNull VirtualFile file) {
+        if (!file.isValid()) return null;
+        PsiFile psiFile = PsiManager.getInstance(project).findFile(file);
+        if (!(psiFile instanceof PyFile module) || psiFile instanceof PyiFile) return null;
+        PsiDocumentManager documentManager = PsiDocumentManager.getInstance(project);
+        Document document = documentManager.getDocument(psiFile);
+        // offsets of an uncommitted document do not match the PSI they are computed from
+        if (document == null || !documentManager.isCommitted(document)) return null;
+
+        AnnotationEditCollector collector = new AnnotationEditCollector(module, document);
+        module.accept(new PyRecursiveElementVisitor() {
+            @Override
+            public void visitPyNamedParameter(@NotNull PyNamedParameter node) {
+                super.visitPyNamedParameter(node);
+                collector.addParameterEdit(node);
+            }
+
+            @Override
+            public void visitPyFunction(@NotNull PyFunction node) {
+                super.visitPyFunction(node);
+                collector.addReturnEdit(node);
+            }
+        });
+        collector.edits.sort((a, b) -> Integer.compare(a.startOffset, b.startOffset));
+        return collector.edits;
+    }
+
+    private void addParameterEdit(PyNamedParameter parameter) {
+        // lambda parameters cannot be annotated
+        if (!(parameter.getParent() instanceof PyParameterList list) || !(list.getParent() instanceof PyFunction function)) return;
+        PsiElement name = parameter.getNameIdentifier();
+        if (parameter.getAnnotation() != null || name == null || !TypeAnalysisCache.isAnalysedDeclaration(parameter)) return;
+        ProgressManager.checkCanceled();
+        String annotation = render(TypeAnalysisCache.getSourceTypeNames(parameter), function);
+        if (annotation == null) return;
+
+        int start = name.getTextRange().getEndOffset();
+        PyExpression defaultValue = parameter.getDefaultValue();
+        // "a=1" becomes "a: int = 1", spaced the way PEP 8 wants annotated defaults
+        int end = defaultValue == null ? start : defaultValue.getTextRange().getStartOffset();
+        String replacement = defaultValue == null ? ": " + annotation : ": " + annotation + " = ";
+        addEdit(start, end, replacement, getFunctionName(function) + "(" + parameter.getName() + ")", annotation);
+    }
+
+    private void addReturnEdit(PyFunction function) {
+        if (function.getAnnotation() != null || function.getName() == null) return;
+        // returns of generators say nothing about the value of the call
+        if (PsiTreeUtil.findChildOfType(function.getStatementList(), PyYieldExpression.class) != null) return;
+        ProgressManager.checkCanceled();
+        String annotation = render(ReturnTypeSummaries.getSummary(function, ReturnTypeSummaries.Mode.SOURCE).typeNames(), function);
+        if (annotation == null) return;
+
+        int offset = function.getParameterList().getTextRange().getEndOffset();
+        addEdit(offset, offset, " -> " + annotation, "return of " + getFunctionName(function) + "()", annotation);
+    }
+
+    /**
+     * Renders types as annotation text of a declaration of the function, quoted where it would fail at runtime
+     */
+    private @Nullable String render(Collection<String> types, PyFunction function) {
+        String annotation = annotationText.render(types);
+        if (annotation == null) return null;
+        boolean complex = annotation.contains("|") || annotation.contains("[");
+        // annotations are evaluated when the def statement runs, so classes defined by then are usable
+        boolean forward = !postponedAnnotations && annotationText.hasForwardReference(annotation, function);
+        return quoteComplexTypes && complex || forward ? "\"" + annotation + "\"" : annotation;
+    }
+
+    private void addEdit(int start, int end, String replacement, String declaration, String annotation) {
+        edits.add(new AnnotationEdit(module.getVirtualFile(), document.getModificationStamp(), start, end,
+                replacement, declaration, document.getLineNumber(start), annotation));
+    }
+
+    private static String getFunctionName(PyFunction function) {
+        PyClass containingClass = function.getContainingClass();
+        return containingClass == null ? function.getName() : containingClass.getName() + "." + function.getName();
+    }
+}
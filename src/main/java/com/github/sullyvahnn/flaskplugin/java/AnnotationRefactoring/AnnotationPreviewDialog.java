@@ -0,0 +1,171 @@
+package com.github.sullyvahnn.flaskplugin.java.AnnotationRefactoring;
+
+import com.intellij.openapi.fileEditor.OpenFileDescriptor;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.DialogWrapper;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.ui.DoubleClickListener;
+import com.intellij.ui.ScrollPaneFactory;
+import com.intellij.ui.components.JBLabel;
+import com.intellij.ui.table.JBTable;
+import com.intellij.util.ui.ColumnInfo;
+import com.intellij.util.ui.JBUI;
+import com.intellij.util.ui.ListTableModel;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Lists the inferred annotations before they are applied, each of them can be left out.
+ * JTable only paints visible rows, so thousands of edits stay responsive.
+ */
+class AnnotationPreviewDialog extends DialogWrapper {
+    private final Project project;
+    private final List<AnnotationEdit> edits;
+    private final ListTableModel<AnnotationEdit> model;
+    private final JBTable table;
+    private final JBLabel summaryLabel = new JBLabel();
+
+    AnnotationPreviewDialog(@NotNull Project project, @NotNull List<AnnotationEdit> edits) {
+        super(project, true);
+        this.project = project;
+        this.edits = edits;
+        model = new ListTableModel<>(createColumns(), edits);
+        table = new JBTable(model);
+        table.setAutoCreateRowSorter(true);
+        table.getColumnModel().getColumn(0).setMaxWidth(JBUI.scale(60));
+        model.addTableModelListener(e -> updateSummary());
+        installNavigation();
+        setTitle("Apply Inferred Annotations");
+        setOKButtonText("Apply");
+        updateSummary();
+        init();
+    }
+
+    /**
+     * Creates table columns: apply checkbox, declaration, file and annotation
+     *
+     * @return column infos for the table model
+     */
+    private static ColumnInfo<?, ?>[] createColumns() {
+        return new ColumnInfo[]{
+                new ColumnInfo<AnnotationEdit, Boolean>("Apply") {
+                    @Override
+                    public Boolean valueOf(AnnotationEdit edit) {
+                        return edit.selected;
+                    }
+
+                    @Override
+                    public boolean isCellEditable(AnnotationEdit edit) {
+                        return true;
+                    }
+
+                    @Override
+                    public void setValue(AnnotationEdit edit, Boolean value) {
+                        edit.selected = value;
+                    }
+
+                    @Override
+                    public Class<?> getColumnClass() {
+                        return Boolean.class;
+                    }
+                },
+                new ColumnInfo<AnnotationEdit, String>("Declaration") {
+                    @Override
+                    public @Nullable String valueOf(AnnotationEdit edit) {
+                        return edit.declaration;
+                    }
+                },
+                new ColumnInfo<AnnotationEdit, String>("File") {
+                    @Override
+                    public @Nullable String valueOf(AnnotationEdit edit) {
+                        return edit.file.getName() + ":" + (edit.lineNumber + 1);
+                    }
+                },
+                new ColumnInfo<AnnotationEdit, String>("Annotation") {
+                    @Override
+                    public @Nullable String valueOf(AnnotationEdit edit) {
+                        return edit.annotation;
+                    }
+                }
+        };
+    }
+
+    @Override
+    protected @Nullable JComponent createCenterPanel() {
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.add(ScrollPaneFactory.createScrollPane(table), BorderLayout.CENTER);
+        summaryLabel.setBorder(JBUI.Borders.emptyTop(4));
+        panel.add(summaryLabel, BorderLayout.SOUTH);
+        panel.setPreferredSize(JBUI.size(800, 500));
+        return panel;
+    }
+
+    @Override
+    protected Action @NotNull [] createLeftSideActions() {
+        return new Action[]{
+                new AbstractAction("Select All") {
+                    @Override
+                    public void actionPerformed(ActionEvent e) {
+                        setAllSelected(true);
+                    }
+                },
+                new AbstractAction("Select None") {
+                    @Override
+                    public void actionPerformed(ActionEvent e) {
+                        setAllSelected(false);
+                    }
+                }
+        };
+    }
+
+    private void setAllSelected(boolean selected) {
+        for (AnnotationEdit edit : edits) {
+            edit.selected = selected;
+        }
+        model.fireTableDataChanged();
+    }
+
+    private void updateSummary() {
+        List<AnnotationEdit> selected = getSelectedEdits();
+        Set<VirtualFile> files = new HashSet<>();
+        for (AnnotationEdit edit : selected) {
+            files.add(edit.file);
+        }
+        summaryLabel.setText(selected.size() + " of " + edits.size() + " annotations selected in " + files.size() + " files");
+        setOKActionEnabled(!selected.isEmpty());
+    }
+
+    /**
+     * @return edits chosen to be applied, in the order they were collected
+     */
+    @NotNull List<AnnotationEdit> getSelectedEdits() {
+        List<AnnotationEdit> selected = new ArrayList<>();
+        for (AnnotationEdit edit : edits) {
+            if (edit.selected) selected.add(edit);
+        }
+        return selected;
+    }
+
+    private void installNavigation() {
+        new DoubleClickListener() {
+            @Override
+            protected boolean onDoubleClick(@NotNull MouseEvent event) {
+                int row = table.getSelectedRow();
+                if (row < 0 || table.columnAtPoint(event.getPoint()) == 0) return false;
+                AnnotationEdit edit = model.getItem(table.convertRowIndexToModel(row));
+                if (edit == null || !edit.file.isValid()) return false;
+                new OpenFileDescriptor(project, edit.file, edit.startOffset).navigate(false);
+                return true;
+            }
+        }.installOn(table);
+    }
+}
@@ -0,0 +1,180 @@
+package com.github.sullyvahnn.flaskplugin.java.AnnotationRefactoring;
+
+import com.github.sullyvahnn.flaskplugin.java.ProjectAnalysis.ProjectTypeScanner;
+import com.intellij.openapi.actionSystem.ActionUpdateThread;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.DumbAwareAction;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.ReadonlyStatusHandler;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.wm.StatusBar;
+import com.intellij.openapi.wm.WindowManager;
+import com.intellij.psi.PsiDocumentManager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Adds inferred annotations to unannotated parameters and returns of the selected files and directories,
+ * or of the whole project when nothing is selected.
+ * <p>
+ * All annotations are inferred in a background scan first and listed in a preview. The chosen ones are
+ * applied in chunks of whole files, each chunk in its own write command, so the UI stays responsive
+ * between chunks and every chunk is a separate undo step. Files edited since the scan are skipped.
+ */
+public class ApplyInferredAnnotationsAction extends DumbAwareAction {
+    private static final String COMMAND_NAME = "Apply Inferred Annotations";
+    /** Edits applied in one write command, files are never split between commands */
+    private static final int CHUNK_EDITS = 200;
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent e) {
+        Project project = e.getProject();
+        if (project == null) return;
+        VirtualFile[] selection = e.getData(CommonDataKeys.VIRTUAL_FILE_ARRAY);
+        List<VirtualFile> roots = selection == null ? List.of() : List.of(selection);
+        // edits are computed from PSI, which has to match the documents
+        PsiDocumentManager.getInstance(project).commitAllDocuments();
+
+        new Task.Backgroundable(project, "Inferring annotations", true) {
+            private final Queue<AnnotationEdit> edits = new ConcurrentLinkedQueue<>();
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                ProjectTypeScanner scanner = new ProjectTypeScanner(project);
+                List<VirtualFile> files = new ArrayList<>();
+                for (VirtualFile file : scanner.findPythonFiles()) {
+                    if (roots.isEmpty() || roots.stream().anyMatch(root -> VfsUtilCore.isAncestor(root, file, false))) {
+                        files.add(file);
+                    }
+                }
+                scanner.forEachFile(files, indicator, file -> AnnotationEditCollector.collect(project, file), edits::addAll);
+            }
+
+            @Override
+            public void onSuccess() {
+                if (edits.isEmpty()) {
+                    showStatus(project, "No inferred annotations to add");
+                    return;
+                }
+                List<AnnotationEdit> sorted = new ArrayList<>(edits);
+                sorted.sort(Comparator.comparing((AnnotationEdit edit) -> edit.file.getPath())
+                        .thenComparingInt(edit -> edit.startOffset));
+                AnnotationPreviewDialog dialog = new AnnotationPreviewDialog(project, sorted);
+                if (dialog.showAndGet()) apply(project, dialog.getSelectedEdits());
+            }
+        }.queue();
+    }
+
+    /**
+     * Applies the chosen edits in background, one write command per chunk
+     *
+     * @param project project of the files
+     * @param edits chosen edits sorted by file
+     */
+    private static void apply(@NotNull Project project, @NotNull List<AnnotationEdit> edits) {
+        Map<VirtualFile, List<AnnotationEdit>> byFile = new LinkedHashMap<>();
+        for (AnnotationEdit edit : edits) {
+            byFile.computeIfAbsent(edit.file, file -> new ArrayList<>()).add(edit);
+        }
+        ReadonlyStatusHandler.OperationStatus status =
+                ReadonlyStatusHandler.getInstance(project).ensureFilesWritable(byFile.keySet());
+        status.getReadonlyFiles().forEach(byFile::remove);
+
+        new Task.Backgroundable(project, "Applying inferred annotations", true) {
+            private int applied = 0;
+            private int skipped = 0;
+            private int fileCount = 0;
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                indicator.setIndeterminate(false);
+                List<List<AnnotationEdit>> chunk = new ArrayList<>();
+                int chunkSize = 0;
+                int done = 0;
+                for (List<AnnotationEdit> fileEdits : byFile.values()) {
+                    chunk.add(fileEdits);
+                    chunkSize += fileEdits.size();
+                    if (chunkSize < CHUNK_EDITS) continue;
+                    indicator.checkCanceled();
+                    applyChunk(chunk);
+                    done += chunk.size();
+                    indicator.setFraction(done / (double) byFile.size());
+                    chunk = new ArrayList<>();
+                    chunkSize = 0;
+                }
+                if (!chunk.isEmpty()) applyChunk(chunk);
+            }
+
+            private void applyChunk(List<List<AnnotationEdit>> chunk) {
+                ApplicationManager.getApplication().invokeAndWait(() -> {
+                    List<Document> changed = new ArrayList<>();
+                    WriteCommandAction.writeCommandAction(project).withName(COMMAND_NAME).run(() -> {
+                        for (List<AnnotationEdit> fileEdits : chunk) {
+                            Document document = applyToFile(fileEdits);
+                            if (document == null) {
+                                skipped += fileEdits.size();
+                                continue;
+                            }
+                            changed.add(document);
+                            applied += fileEdits.size();
+                            fileCount++;
+                        }
+                    });
+                    // saved documents are released, so thousands of edited files do not pile up in memory
+                    changed.forEach(FileDocumentManager.getInstance()::saveDocument);
+                }, ModalityState.nonModal());
+            }
+
+            @Override
+            public void onFinished() {
+                String message = "Applied " + applied + " inferred annotations in " + fileCount + " files";
+                if (skipped > 0) message += ", " + skipped + " skipped in files changed since the analysis";
+                showStatus(project, message);
+            }
+        }.queue();
+    }
+
+    /**
+     * Applies edits of one file from the end, so earlier offsets stay valid, inside a write command
+     *
+     * @param fileEdits edits of one file in document order
+     * @return changed document, or null if the file changed since the edits were computed
+     */
+    private static @Nullable Document applyToFile(@NotNull List<AnnotationEdit> fileEdits) {
+        VirtualFile file = fileEdits.get(0).file;
+        Document document = file.isValid() ? FileDocumentManager.getInstance().getDocument(file) : null;
+        if (document == null || document.getModificationStamp() != fileEdits.get(0).documentStamp) return null;
+        for (int i = fileEdits.size() - 1; i >= 0; i--) {
+            AnnotationEdit edit = fileEdits.get(i);
+            document.replaceString(edit.startOffset, edit.endOffset, edit.replacement);
+        }
+        return document;
+    }
+
+    private static void showStatus(@NotNull Project project, @NotNull String message) {
+        StatusBar statusBar = WindowManager.getInstance().getStatusBar(project);
+        if (statusBar != null) statusBar.setInfo(message);
+    }
+
+    @Override
+    public void update(@NotNull AnActionEvent e) {
+        e.getPresentation().setEnabled(e.getProject() != null);
+    }
+
+    @Override
+    public @NotNull ActionUpdateThread getActionUpdateThread() {
+        return ActionUpdateThread.BGT;
+    }
+}
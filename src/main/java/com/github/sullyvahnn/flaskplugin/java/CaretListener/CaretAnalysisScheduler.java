@@ -0,0 +1,329 @@
+package com.github.sullyvahnn.flaskplugin.java.CaretListener;
+
+import com.github.sullyvahnn.flaskplugin.java.ExpressionData.ExpressionData;
+import com.github.sullyvahnn.flaskplugin.java.NormalTypeWidget.VariableTypeResolver;
+import com.github.sullyvahnn.flaskplugin.java.Snapshot.SnapshotStore;
+import com.github.sullyvahnn.flaskplugin.java.TreeTypeWidget.TreeVariableTypeResolver;
+import com.github.sullyvahnn.flaskplugin.java.TypeAnalysis.TypeAnalysisCache;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.editor.event.CaretEvent;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.jetbrains.python.PyTokenTypes;
+import com.jetbrains.python.psi.PyExpression;
+import com.jetbrains.python.psi.PyFile;
+import com.jetbrains.python.psi.PyNamedParameter;
+import com.jetbrains.python.psi.PyReferenceExpression;
+import com.jetbrains.python.psi.PyTargetExpression;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs caret analyses and speculatively prefetches identifiers around the caret.
+ * <p>
+ * After the analysis of the caret identifier, identifiers within a few lines of it are analysed
+ * nearest first on a single low-priority thread, in non-blocking read actions that give way to
+ * write actions. Every caret event starts a new generation, which cancels the progress of the running
+ * prefetch, so even an analysis in the middle of a large file stops at its next cancellation check.
+ * <p>
+ * Results are keyed by the {@link Identity} of the symbol: its resolved declaration, the text of
+ * the reference and the modification stamp. Every reference to the same variable shares one
+ * result, so moving between {@code user}, {@code user.name} and {@code user} again, or to a
+ * prefetched identifier, updates the widgets without running the resolver. The tree widget's result
+ * is stored next to the normal one once the caret stops at the symbol.
+ * Declarations are answered from the imported snapshot while their file and its dependencies are unchanged since it.
+ */
+final class CaretAnalysisScheduler {
+    /** Lines above and below the caret searched for identifiers to prefetch */
+    private static final int PREFETCH_LINES = 2;
+    /** Identifiers prefetched after one caret event */
+    private static final int PREFETCH_LIMIT = 12;
+    private static final int MAX_RESULTS = 64;
+
+    /**
+     * Result of the widgets for one identifier
+     *
+     * @param types possible types
+     * @param note why the types may be incomplete, or null
+     * @param largeFile true if the file was analysed in large-file mode
+     * @param tree result of the tree widget, null until the caret first stops at the symbol
+     */
+    record CaretResult(@NotNull List<ExpressionData> types, @Nullable String note, boolean largeFile,
+                       @Nullable TreeResult tree) {
+        CaretResult withTree(@NotNull TreeResult tree) {
+            return new CaretResult(types, note, largeFile, tree);
+        }
+    }
+
+    /**
+     * Result of the tree widget for one identifier
+     *
+     * @param types dependencies of every expression on the way to the types
+     * @param root expression the tree starts at, or null
+     */
+    record TreeResult(@NotNull Map<ExpressionData, List<ExpressionData>> types, @Nullable ExpressionData root) {
+        static final TreeResult EMPTY = new TreeResult(Map.of(), null);
+    }
+
+    /**
+     * Identity of the symbol under caret, equal for every reference with the same result
+     *
+     * @param declaration resolved declaration, or the identifier itself if it does not resolve
+     * @param text text of the identifier, so user and user.name differ even when both resolve to the same target
+     * @param stamp PSI and settings modification stamp, results of older stamps are stale
+     */
+    record Identity(@NotNull PsiElement declaration, @NotNull String text, long stamp) {
+    }
+
+    private final Project project;
+    private final ExecutorService prefetchExecutor =
+            AppExecutorUtil.createBoundedApplicationPoolExecutor("Flask Types Prefetch", 1);
+    private final AtomicLong generation = new AtomicLong();
+    /** Progress of the current generation's prefetch, cancelled when the next generation starts */
+    private final AtomicReference<ProgressIndicator> generationProgress = new AtomicReference<>(new EmptyProgressIndicator());
+    /** Results by symbol, least recently used first, results of older stamps age out */
+    private final Map<Identity, CaretResult> results = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Identity, CaretResult> eldest) {
+            return size() > MAX_RESULTS;
+        }
+    };
+
+    CaretAnalysisScheduler(@NotNull Project project) {
+        this.project = project;
+    }
+
+    /**
+     * Starts a new generation, expiring the prefetch of the previous caret event.
+     * Its progress is cancelled, so a running analysis stops at the next check instead of finishing.
+     *
+     * @return the new generation, to be passed to {@link #prefetchAround}
+     */
+    long nextGeneration() {
+        long next;
+        synchronized (generationProgress) {
+            next = generation.incrementAndGet();
+            generationProgress.getAndSet(new EmptyProgressIndicator()).cancel();
+        }
+        return next;
+    }
+
+    /**
+     * Gets identity of the symbol under caret.
+     * Must be called inside a read action.
+     *
+     * @param event caret event
+     * @return identity, or null if the caret is not in a Python file
+     */
+    @Nullable Identity identify(@NotNull CaretEvent event) {
+        PsiFile file = PsiDocumentManager.getInstance(project).getPsiFile(event.getEditor().getDocument());
+        if (!(file instanceof PyFile)) return null;
+        return identify(getCaretIdentifier(file, Objects.requireNonNull(event.getCaret()).getOffset()));
+    }
+
+    /**
+     * Gets the result for the identifier under caret, prefetched or computed now.
+     * Must be called inside a read action.
+     *
+     * @param event caret event
+     * @param identity identity of the symbol under caret, null if it has none
+     * @return result of the normal widget
+     */
+    @NotNull CaretResult analyse(@NotNull CaretEvent event, @Nullable Identity identity) {
+        PsiFile file = PsiDocumentManager.getInstance(project).getPsiFile(event.getEditor().getDocument());
+        if (!(file instanceof PyFile)) {
+            // templates are answered from the index, there is nothing to reuse
+            VariableTypeResolver resolver = new VariableTypeResolver();
+            List<ExpressionData> types = resolver.getPossibleTypes(event);
+            return new CaretResult(types == null ? List.of() : types, null, false, null);
+        }
+        return analyse(getCaretIdentifier(file, Objects.requireNonNull(event.getCaret()).getOffset()), identity);
+    }
+
+    /**
+     * Gets the tree result for the identifier under caret, stored with the normal result of the same symbol.
+     * Prefetching leaves the tree out, so it is computed the first time the caret stops at the symbol.
+     * Must be called inside a read action.
+     *
+     * @param event caret event
+     * @param identity identity of the symbol under caret, null if it has none
+     * @param result normal result from {@link #analyse(CaretEvent, Identity)}
+     * @return result of the tree widget
+     */
+    @NotNull TreeResult analyseTree(@NotNull CaretEvent event, @Nullable Identity identity, @NotNull CaretResult result) {
+        if (result.tree() != null) return result.tree();
+        TreeResult tree = TreeResult.EMPTY;
+        // the tree resolver walks the whole file for every dependency, large files skip it
+        if (!result.largeFile()) {
+            TreeVariableTypeResolver treeResolver = new TreeVariableTypeResolver();
+            Map<ExpressionData, List<ExpressionData>> types = treeResolver.getPossibleTreeTypes(event);
+            tree = new TreeResult(types == null ? Map.of() : types, treeResolver.getRoot());
+        }
+        if (identity != null) {
+            synchronized (results) {
+                // only the symbol's own result gets the tree, a newer stamp has its own
+                if (results.get(identity) == result) results.put(identity, result.withTree(tree));
+            }
+        }
+        return tree;
+    }
+
+    /**
+     * Analyses identifiers near the caret that have no result yet, nearest first.
+     * Stops as soon as a newer caret event starts another generation.
+     *
+     * @param editor editor of the caret
+     * @param offset caret offset
+     * @param caretGeneration generation of the caret event
+     */
+    void prefetchAround(@NotNull Editor editor, int offset, long caretGeneration) {
+        ProgressIndicator progress;
+        synchronized (generationProgress) {
+            if (isExpired(caretGeneration)) return;
+            progress = generationProgress.get();
+        }
+        prefetchExecutor.execute(() -> {
+            try {
+                List<PsiElement> candidates = ReadAction.nonBlocking(() -> findCandidates(editor.getDocument(), offset))
+                        .expireWhen(() -> isExpired(caretGeneration))
+                        .wrapProgress(progress)
+                        .executeSynchronously();
+                for (PsiElement candidate : candidates) {
+                    if (isExpired(caretGeneration)) return;
+                    ReadAction.nonBlocking(() -> candidate.isValid() ? analyse(candidate, identify(candidate)) : null)
+                            .expireWhen(() -> isExpired(caretGeneration))
+                            .wrapProgress(progress)
+                            .executeSynchronously();
+                }
+            } catch (ProcessCanceledException ignored) {
+                // a newer caret event or a write action expired the prefetch
+            }
+        });
+    }
+
+    private boolean isExpired(long caretGeneration) {
+        return project.isDisposed() || generation.get() != caretGeneration;
+    }
+
+    /**
+     * Gets a stored result or runs the resolver for an identifier
+     */
+    private @NotNull CaretResult analyse(@Nullable PsiElement identifier, @Nullable Identity identity) {
+        if (identity != null) {
+            synchronized (results) {
+                CaretResult stored = results.get(identity);
+                if (stored != null) return stored;
+            }
+        }
+        CaretResult result = getSnapshotResult(identifier, identity);
+        if (result == null) {
+            // resolver keeps state between calls, so every analysis gets its own instance
+            VariableTypeResolver resolver = new VariableTypeResolver();
+            List<ExpressionData> types = resolver.getPossibleTypes(identifier);
+            result = new CaretResult(types == null ? List.of() : List.copyOf(types),
+                    resolver.getApproximationNote(), resolver.isLargeFile(), null);
+        }
+        if (identity != null) {
+            synchronized (results) {
+                results.put(identity, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Answers a declaration, or a plain reference to one in the same file, from the imported snapshot.
+     * The snapshot keeps distinct types only, so each type is shown once and without a line.
+     *
+     * @return result or null if the snapshot cannot answer
+     */
+    private @Nullable CaretResult getSnapshotResult(@Nullable PsiElement identifier, @Nullable Identity identity) {
+        if (identifier == null || identity == null) return null;
+        PsiElement declaration = identity.declaration();
+        if (declaration != identifier && !(identifier instanceof PyReferenceExpression reference
+                && !reference.isQualified() && reference.getContainingFile() == declaration.getContainingFile())) {
+            return null;
+        }
+        List<String> names = SnapshotStore.getInstance(project).getTypes(declaration);
+        if (names == null) return null;
+        PyExpression expression = identifier instanceof PyExpression pyExpression ? pyExpression : null;
+        List<ExpressionData> types = new ArrayList<>(names.size());
+        for (String name : names) {
+            types.add(new ExpressionData(expression, name, -1));
+        }
+        return new CaretResult(List.copyOf(types), null, false, null);
+    }
+
+    /**
+     * Gets identity of an identifier, resolving references to their declaration
+     */
+    private @Nullable Identity identify(@Nullable PsiElement identifier) {
+        if (identifier == null) return null;
+        PsiElement declaration = identifier;
+        if (identifier instanceof PyReferenceExpression reference) {
+            PsiElement resolved = reference.getReference().resolve();
+            if (resolved != null) declaration = resolved;
+        }
+        return new Identity(declaration, identifier.getText(), TypeAnalysisCache.getAnalysisStamp(project));
+    }
+
+    private static @Nullable PsiElement getCaretIdentifier(@NotNull PsiFile file, int offset) {
+        PsiElement leaf = file.findElementAt(offset);
+        return leaf == null ? null : leaf.getParent();
+    }
+
+    /**
+     * Gets identifiers around the caret without a current result, nearest to the caret first
+     */
+    private List<PsiElement> findCandidates(@NotNull Document document, int offset) {
+        PsiFile file = PsiDocumentManager.getInstance(project).getPsiFile(document);
+        if (!(file instanceof PyFile) || offset > document.getTextLength()) return List.of();
+        int line = document.getLineNumber(offset);
+        int start = document.getLineStartOffset(Math.max(0, line - PREFETCH_LINES));
+        int end = document.getLineEndOffset(Math.min(document.getLineCount() - 1, line + PREFETCH_LINES));
+        Identity caretIdentity = identify(getCaretIdentifier(file, offset));
+
+        // references of one symbol share a result, so only the nearest one is analysed
+        Map<Identity, PsiElement> nearest = new HashMap<>();
+        Map<PsiElement, Integer> distances = new HashMap<>();
+        int position = start;
+        while (position < end) {
+            PsiElement leaf = file.findElementAt(position);
+            if (leaf == null) break;
+            position = Math.max(position + 1, leaf.getTextRange().getEndOffset());
+            if (leaf.getNode().getElementType() != PyTokenTypes.IDENTIFIER) continue;
+            PsiElement identifier = leaf.getParent();
+            if (!(identifier instanceof PyReferenceExpression || identifier instanceof PyTargetExpression
+                    || identifier instanceof PyNamedParameter)) continue;
+            Identity identity = identify(identifier);
+            if (identity == null || identity.equals(caretIdentity) || hasResult(identity)) continue;
+            int distance = Math.abs(leaf.getTextOffset() - offset);
+            PsiElement previous = nearest.get(identity);
+            if (previous != null && distances.get(previous) <= distance) continue;
+            nearest.put(identity, identifier);
+            distances.put(identifier, distance);
+        }
+        List<PsiElement> candidates = new ArrayList<>(nearest.values());
+        candidates.sort(Comparator.comparing(distances::get));
+        return candidates.subList(0, Math.min(PREFETCH_LIMIT, candidates.size()));
+    }
+
+    private boolean hasResult(Identity identity) {
+        synchronized (results) {
+            return results.containsKey(identity);
+        }
+    }
+}
@@ -2,9 +2,7 @@ package com.github.sullyvahnn.flaskplugin.java.CaretListener;
 
 import com.github.sullyvahnn.flaskplugin.java.ExpressionData.ExpressionData;
 import com.github.sullyvahnn.flaskplugin.java.NormalTypeWidget.NormalTypeWidget;
-import com.github.sullyvahnn.flaskplugin.java.NormalTypeWidget.VariableTypeResolver;
 import com.github.sullyvahnn.flaskplugin.java.TreeTypeWidget.TreeTypeWidget;
-import com.github.sullyvahnn.flaskplugin.java.TreeTypeWidget.TreeVariableTypeResolver;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.editor.*;
 import com.intellij.openapi.editor.event.CaretEvent;
@@ -25,11 +23,13 @@ final class CaretPositionTracker implements ToolWindowManagerListener {
     private final Project project;
     // Store our listeners to avoid duplicates and to be able to remove them
     private final Map<Editor, CaretPositionListener> activeListeners = new HashMap<>();
-    private final VariableTypeResolver  resolver = new VariableTypeResolver();
-    private final TreeVariableTypeResolver treeResolver = new TreeVariableTypeResolver();
+    private final CaretAnalysisScheduler scheduler;
+    /** Symbol whose types the widgets currently show */
+    private volatile CaretAnalysisScheduler.Identity shownIdentity = null;
 
     CaretPositionTracker(Project project) {
         this.project = project;
+        this.scheduler = new CaretAnalysisScheduler(project);
 
         // Set up the file editor listeners when this tracker is created
         setupEditorListeners();
@@ -87,40 +87,47 @@ final class CaretPositionTracker implements ToolWindowManagerListener {
         @Override
         public void caretPositionChanged(@NotNull CaretEvent event) {
 
+            // a new caret event expires the prefetch of the previous one
+            long generation = scheduler.nextGeneration();
+            int offset = event.getEditor().getCaretModel().getOffset();
             // Run background task to get the possible types
             ApplicationManager.getApplication().executeOnPooledThread(() -> {
                 // Use ReadAction to ensure PSI calls are made on the correct thread
                 ApplicationManager.getApplication().runReadAction(() -> {
-                    List<ExpressionData> types = resolver.getPossibleTypes(event);
-                    Map<ExpressionData, List<ExpressionData>> typesMap = treeResolver.getPossibleTreeTypes(event);
+                    CaretAnalysisScheduler.Identity identity = scheduler.identify(event);
+                    // caret moved within the same symbol or to another reference of it, widgets are up to date
+                    if (identity != null && identity.equals(shownIdentity)) return;
+                    shownIdentity = identity;
+                    CaretAnalysisScheduler.CaretResult result = scheduler.analyse(event, identity);
+                    // prefetched results show up at once, without waiting for the tree
+                    ApplicationManager.getApplication().invokeLater(() ->
+                            updateWidget(result.types(), result.note(), event));
+                    CaretAnalysisScheduler.TreeResult tree = scheduler.analyseTree(event, identity, result);
                     // Ensure the UI update happens on the EDT after the background task
-                    ApplicationManager.getApplication().invokeLater(() -> {
-                        // Now that we have the types, update the caret position widget
-                        updateWidget(types, event);
-                        updateTreeWidget(typesMap, event);
-                    });
+                    ApplicationManager.getApplication().invokeLater(() -> updateTreeWidget(tree.types(), tree.root(), event));
                 });
+                scheduler.prefetchAround(event.getEditor(), offset, generation);
             });
         }
 
-        private void updateWidget(List<ExpressionData> types, CaretEvent event) {
+        private void updateWidget(List<ExpressionData> types, String coverage, CaretEvent event) {
             // Update the status bar widget with the new message
             StatusBar statusBar = WindowManager.getInstance().getStatusBar(
                     Objects.requireNonNull(event.getEditor().getProject()));
             if (statusBar != null) {
                     NormalTypeWidget widget = (NormalTypeWidget) statusBar.getWidget("NormalTypeWidget");
                     if (widget == null) return;
-                    widget.updateValue(types);
+                    widget.updateValue(types, coverage);
                     statusBar.updateWidget("NormalTypeWidget");
             }
         }
-        private void updateTreeWidget(Map<ExpressionData,List<ExpressionData> >types, CaretEvent event) {
+        private void updateTreeWidget(Map<ExpressionData,List<ExpressionData> >types, ExpressionData root, CaretEvent event) {
             StatusBar statusBar = WindowManager.getInstance().getStatusBar(
                     Objects.requireNonNull(event.getEditor().getProject()));
            if(statusBar != null) {
                 TreeTypeWidget widget = (TreeTypeWidget) statusBar.getWidget("TreeTypeWidget");
                 if (widget == null) return;
-                widget.updateTreeValue(types, treeResolver.getRoot());
+                widget.updateTreeValue(types, root);
                 statusBar.updateWidget("TreeTypeWidget");
             }
         }
@@ -6,10 +6,16 @@ import com.intellij.psi.PsiDocumentManager;
 import com.intellij.psi.PsiFile;
 import com.jetbrains.python.psi.PyExpression;
 
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 public class ExpressionData {
     public final int lineNumber;
     public final String type;
     public PyExpression expression;
+    /** True if the type was seen in runtime traces rather than inferred */
+    public final boolean observed;
 
 
     public ExpressionData(PyExpression expr, String type) {
@@ -25,6 +31,49 @@ public class ExpressionData {
         }
         this.type = type;
         this.expression = expr;
+        this.observed = false;
+    }
+
+    /**
+     * Creates expression data with an explicit line number,
+     * used when the expression lives in another file than the one in the editor
+     *
+     * @param expr expression the type comes from
+     * @param type type name
+     * @param lineNumber line to highlight, -1 for none
+     */
+    public ExpressionData(PyExpression expr, String type, int lineNumber) {
+        this(expr, type, lineNumber, false);
+    }
+
+    /**
+     * Creates expression data that may come from runtime traces
+     *
+     * @param expr expression the type belongs to
+     * @param type type name
+     * @param lineNumber line to highlight, -1 for none
+     * @param observed true if the type was seen in runtime traces
+     */
+    public ExpressionData(PyExpression expr, String type, int lineNumber, boolean observed) {
+        this.lineNumber = lineNumber;
+        this.type = type;
+        this.expression = expr;
+        this.observed = observed;
+    }
+
+    /**
+     * Collects distinct type names in the order they were found.
+     * Type names are trimmed the same way the status bar widget counts them.
+     *
+     * @param expressionDataList expression data to collect type names from
+     * @return ordered set of distinct type names
+     */
+    public static Set<String> distinctTypes(Collection<ExpressionData> expressionDataList) {
+        Set<String> types = new LinkedHashSet<>();
+        for (ExpressionData data : expressionDataList) {
+            types.add(data.type.trim());
+        }
+        return types;
     }
 
 }
@@ -0,0 +1,170 @@
+package com.github.sullyvahnn.flaskplugin.java.Flask;
+
+import com.github.sullyvahnn.flaskplugin.java.Settings.FlaskTypesSettings;
+import com.google.gson.stream.JsonReader;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.psi.util.QualifiedName;
+import com.jetbrains.python.psi.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Precomputed types of common Flask and Werkzeug APIs, like {@code request.args.get(...)}.
+ * <p>
+ * These values come from context-local proxies and C-level descriptors which the generic resolver
+ * either cannot follow or follows through large parts of the library, so the resolver checks this
+ * table first. Keys are dotted paths starting at a name imported from flask: {@code "request.json"}
+ * for attributes, {@code "request.args.get()"} for calls and {@code "session[]"} for subscriptions.
+ * Names are keyed by their flask name, so {@code req.json} after {@code from flask import request as req}
+ * and {@code f.request.json} after {@code import flask as f} both look up {@code "request.json"}.
+ * <p>
+ * The built-in table lives in {@value #RESOURCE} and carries its own version. Projects add or
+ * override entries in {@link FlaskTypesSettings.State#apiTypes}, typically for attributes they
+ * attach to {@code g}.
+ */
+public final class FlaskApiTypeTable {
+    private static final Logger LOG = Logger.getInstance(FlaskApiTypeTable.class);
+    private static final String RESOURCE = "/flaskTypes/flask-api-types.json";
+    private static final String FLASK_MODULE = "flask";
+    private static final Key<CachedValue<Map<String, String>>> FLASK_NAMES_KEY = Key.create("flask.types.api.imported.names");
+
+    private static final int VERSION;
+    private static final Map<String, String> BUILTIN_TYPES;
+
+    static {
+        Map<String, String> types = new HashMap<>();
+        int version = 0;
+        try (InputStream stream = FlaskApiTypeTable.class.getResourceAsStream(RESOURCE)) {
+            if (stream == null) throw new IOException("Resource not found");
+            try (JsonReader json = new JsonReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+                json.beginObject();
+                while (json.hasNext()) {
+                    switch (json.nextName()) {
+                        case "version" -> version = json.nextInt();
+                        case "types" -> {
+                            json.beginObject();
+                            while (json.hasNext()) {
+                                types.put(json.nextName(), json.nextString());
+                            }
+                            json.endObject();
+                        }
+                        default -> json.skipValue();
+                    }
+                }
+                json.endObject();
+            }
+        } catch (IOException | IllegalStateException e) {
+            LOG.error("Cannot load Flask API type table " + RESOURCE, e);
+        }
+        VERSION = version;
+        BUILTIN_TYPES = Map.copyOf(types);
+    }
+
+    private FlaskApiTypeTable() {
+    }
+
+    /**
+     * @return version of the built-in table, bumped whenever its entries change
+     */
+    public static int getVersion() {
+        return VERSION;
+    }
+
+    /**
+     * Gets the table type of an expression.
+     * Must be called inside a read action.
+     *
+     * @param expression attribute reference, call or subscription
+     * @return type, possibly a union like "str | None", or null if the expression is not in the table
+     */
+    public static @Nullable String getType(@NotNull PyExpression expression) {
+        String key = getKey(expression);
+        if (key == null) return null;
+        String projectType = FlaskTypesSettings.getInstance(expression.getProject()).getState().apiTypes.get(key);
+        return projectType != null ? projectType : BUILTIN_TYPES.get(key);
+    }
+
+    /**
+     * Gets the type of an expression from the built-in table only, ignoring project entries.
+     * Must be called inside a read action.
+     *
+     * @param expression attribute reference, call or subscription
+     * @return type or null if the expression is not in the built-in table
+     */
+    public static @Nullable String getBuiltinType(@NotNull PyExpression expression) {
+        String key = getKey(expression);
+        return key == null ? null : BUILTIN_TYPES.get(key);
+    }
+
+    /**
+     * Builds the table key of an expression, checking that its root name comes from flask
+     *
+     * @param expression expression to describe
+     * @return key or null if the expression is not a Flask API access
+     */
+    private static @Nullable String getKey(@NotNull PyExpression expression) {
+        String suffix = "";
+        PyExpression path = expression;
+        if (expression instanceof PyCallExpression call) {
+            path = call.getCallee();
+            suffix = "()";
+        } else if (expression instanceof PySubscriptionExpression subscription) {
+            path = subscription.getOperand();
+            suffix = "[]";
+        }
+        if (!(path instanceof PyReferenceExpression reference)) return null;
+
+        QualifiedName name = reference.asQualifiedName();
+        if (name == null) return null;
+        String root = getFlaskNames(expression.getContainingFile()).get(name.getFirstComponent());
+        if (root == null) return null;
+        if (root.isEmpty()) {
+            // "import flask" makes the module itself the root, as in flask.request.args
+            if (name.getComponentCount() < 2) return null;
+            name = name.removeHead(1);
+        } else {
+            name = QualifiedName.fromComponents(root).append(name.removeHead(1));
+        }
+        return name + suffix;
+    }
+
+    /**
+     * Gets names the file imports from flask, mapped to their flask name, like "req" to "request".
+     * The flask module itself, under any alias, maps to an empty name. Cached per file until the PSI changes.
+     */
+    private static @NotNull Map<String, String> getFlaskNames(@Nullable PsiFile file) {
+        if (!(file instanceof PyFile pyFile)) return Map.of();
+        return CachedValuesManager.getCachedValue(pyFile, FLASK_NAMES_KEY, () -> {
+            Map<String, String> names = new HashMap<>();
+            for (PyFromImportStatement statement : pyFile.getFromImports()) {
+                QualifiedName source = statement.getImportSourceQName();
+                if (source == null || !FLASK_MODULE.equals(source.getFirstComponent())) continue;
+                for (PyImportElement element : statement.getImportElements()) {
+                    QualifiedName imported = element.getImportedQName();
+                    if (element.getVisibleName() != null && imported != null) {
+                        names.put(element.getVisibleName(), imported.toString());
+                    }
+                }
+            }
+            for (PyImportElement element : pyFile.getImportTargets()) {
+                QualifiedName imported = element.getImportedQName();
+                if (imported != null && FLASK_MODULE.equals(imported.toString()) && element.getVisibleName() != null) {
+                    names.put(element.getVisibleName(), "");
+                }
+            }
+            return CachedValueProvider.Result.create(names, PsiModificationTracker.MODIFICATION_COUNT);
+        });
+    }
+}
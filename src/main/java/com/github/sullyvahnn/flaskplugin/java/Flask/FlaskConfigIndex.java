@@ -0,0 +1,239 @@
+package com.github.sullyvahnn.flaskplugin.java.Flask;
+
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import com.jetbrains.python.PythonFileType;
+import com.jetbrains.python.psi.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Index of Flask config keys: key to the union of types of every value assigned to it.
+ * <p>
+ * Keys are collected from uppercase attributes of {@code *Config} classes and config modules,
+ * {@code app.config[...] = ...} assignments and {@code from_mapping}, {@code update} and
+ * {@code setdefault} calls. Value types are read from literals and a few well-known calls,
+ * like {@code os.environ.get(...)}. Reads such as {@code current_app.config["SECRET_KEY"]}
+ * then become a single index lookup instead of a search through the project.
+ */
+public class FlaskConfigIndex extends FileBasedIndexExtension<String, String> implements PsiDependentIndex {
+    public static final ID<String, String> NAME = ID.create("flask.types.config");
+
+    private static final String CONFIG = "config";
+    private static final Set<String> CONFIG_MODULES = Set.of("config.py", "settings.py", "default_settings.py");
+    private static final Set<String> WRITE_METHODS = Set.of("from_mapping", "update", "setdefault");
+    private static final Set<String> BUILTIN_CONVERSIONS = Set.of("str", "int", "float", "bool", "list", "dict", "set", "tuple");
+
+    @Override
+    public @NotNull ID<String, String> getName() {
+        return NAME;
+    }
+
+    @Override
+    public @NotNull DataIndexer<String, String, FileContent> getIndexer() {
+        return inputData -> {
+            PsiFile file = inputData.getPsiFile();
+            if (!(file instanceof PyFile pyFile)) return Collections.emptyMap();
+            Map<String, String> result = new HashMap<>();
+            if (CONFIG_MODULES.contains(file.getName())) {
+                for (PyTargetExpression target : pyFile.getTopLevelAttributes()) {
+                    addValue(result, target.getName(), target.findAssignedValue());
+                }
+            }
+            for (PyClass pyClass : PsiTreeUtil.findChildrenOfType(file, PyClass.class)) {
+                if (!isConfigClass(pyClass)) continue;
+                for (PyTargetExpression target : pyClass.getClassAttributes()) {
+                    addValue(result, target.getName(), target.findAssignedValue());
+                }
+            }
+            for (PyAssignmentStatement assignment : PsiTreeUtil.findChildrenOfType(file, PyAssignmentStatement.class)) {
+                for (PyExpression target : assignment.getRawTargets()) {
+                    String key = getConfigKey(target);
+                    if (key != null) addValue(result, key, assignment.getAssignedValue());
+                }
+            }
+            for (PyCallExpression call : PsiTreeUtil.findChildrenOfType(file, PyCallExpression.class)) {
+                addWrittenValues(result, call);
+            }
+            return result;
+        };
+    }
+
+    /**
+     * Config classes are recognised by name, as in {@code class ProductionConfig(Config)}
+     */
+    private static boolean isConfigClass(@NotNull PyClass pyClass) {
+        if (pyClass.getName() != null && pyClass.getName().endsWith("Config")) return true;
+        for (PyExpression superClass : pyClass.getSuperClassExpressions()) {
+            if (superClass.getText().endsWith("Config")) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Collects values written by {@code config.from_mapping(...)}, {@code config.update(...)}
+     * and {@code config.setdefault(...)}
+     */
+    private static void addWrittenValues(@NotNull Map<String, String> result, @NotNull PyCallExpression call) {
+        if (!(call.getCallee() instanceof PyReferenceExpression callee)
+                || !WRITE_METHODS.contains(callee.getReferencedName())
+                || !isConfigReference(callee.getQualifier())) return;
+        PyExpression[] arguments = call.getArguments();
+        if ("setdefault".equals(callee.getReferencedName())) {
+            if (arguments.length == 2 && arguments[0] instanceof PyStringLiteralExpression key) {
+                addValue(result, key.getStringValue(), arguments[1]);
+            }
+            return;
+        }
+        for (PyExpression argument : arguments) {
+            if (argument instanceof PyKeywordArgument keywordArgument) {
+                addValue(result, keywordArgument.getKeyword(), keywordArgument.getValueExpression());
+            } else if (argument instanceof PyDictLiteralExpression dict) {
+                for (PyKeyValueExpression element : dict.getElements()) {
+                    if (element.getKey() instanceof PyStringLiteralExpression key) {
+                        addValue(result, key.getStringValue(), element.getValue());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds type of a value to the key, only for uppercase keys which Flask reads into config
+     */
+    private static void addValue(@NotNull Map<String, String> result, @Nullable String key, @Nullable PyExpression value) {
+        if (key == null || key.isEmpty() || !Character.isLetter(key.charAt(0))
+                || !key.equals(key.toUpperCase(Locale.ROOT))) return;
+        String type = getLiteralType(value);
+        if (type == null) return;
+        result.merge(key, type, (a, b) -> Arrays.asList(a.split(" \\| ")).contains(b) ? a : a + " | " + b);
+    }
+
+    /**
+     * Gets type of a value without resolving anything, as indexers must not
+     *
+     * @param value assigned value
+     * @return type or null if it cannot be told from the syntax
+     */
+    private static @Nullable String getLiteralType(@Nullable PyExpression value) {
+        if (value instanceof PyParenthesizedExpression parenthesized) return getLiteralType(parenthesized.getContainedExpression());
+        if (value instanceof PyStringLiteralExpression) return "str";
+        if (value instanceof PyNumericLiteralExpression number) return number.isIntegerLiteral() ? "int" : "float";
+        if (value instanceof PyBoolLiteralExpression) return "bool";
+        if (value instanceof PyNoneLiteralExpression) return "None";
+        if (value instanceof PyListLiteralExpression) return "list";
+        if (value instanceof PyDictLiteralExpression) return "dict";
+        if (value instanceof PySetLiteralExpression) return "set";
+        if (value instanceof PyTupleExpression) return "tuple";
+        if (value instanceof PySubscriptionExpression subscription
+                && subscription.getOperand().getText().endsWith("environ")) return "str";
+        if (value instanceof PyCallExpression call && call.getCallee() instanceof PyReferenceExpression callee) {
+            String name = callee.getReferencedName();
+            if (name == null) return null;
+            String qualifier = callee.getQualifier() == null ? "" : callee.getQualifier().getText();
+            if (name.equals("getenv") || (name.equals("get") && qualifier.endsWith("environ"))) {
+                if (call.getArguments().length < 2) return "str | None";
+                String defaultType = getLiteralType(call.getArguments()[1]);
+                return defaultType == null || defaultType.equals("str") ? "str" : "str | " + defaultType;
+            }
+            if (BUILTIN_CONVERSIONS.contains(name)) return name;
+            // constructors like timedelta(days=1)
+            if (Character.isUpperCase(name.charAt(0)) || name.equals("timedelta")) return name;
+        }
+        return null;
+    }
+
+    /**
+     * Checks if expression is a config object like app.config or current_app.config
+     */
+    private static boolean isConfigReference(@Nullable PyExpression expression) {
+        return expression instanceof PyReferenceExpression reference && CONFIG.equals(reference.getReferencedName());
+    }
+
+    /**
+     * Gets key of {@code <...>.config["KEY"]}
+     */
+    private static @Nullable String getConfigKey(@Nullable PyExpression expression) {
+        if (!(expression instanceof PySubscriptionExpression subscription)
+                || !isConfigReference(subscription.getOperand())
+                || !(subscription.getIndexExpression() instanceof PyStringLiteralExpression key)) return null;
+        return key.getStringValue();
+    }
+
+    @Override
+    public @NotNull KeyDescriptor<String> getKeyDescriptor() {
+        return EnumeratorStringDescriptor.INSTANCE;
+    }
+
+    @Override
+    public @NotNull DataExternalizer<String> getValueExternalizer() {
+        return EnumeratorStringDescriptor.INSTANCE;
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+
+    @Override
+    public FileBasedIndex.@NotNull InputFilter getInputFilter() {
+        return new DefaultFileTypeSpecificInputFilter(PythonFileType.INSTANCE);
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    /**
+     * Gets type of a config read: {@code config["KEY"]} or {@code config.get("KEY"[, default])}.
+     * Must be called inside a read action.
+     *
+     * @param expression expression to check
+     * @return type, possibly a union like "str | None", or null if expression does not read a known key
+     */
+    public static @Nullable String getConfigType(@NotNull PyExpression expression) {
+        String key = getConfigKey(expression);
+        boolean optional = false;
+        if (key == null && expression instanceof PyCallExpression call
+                && call.getCallee() instanceof PyReferenceExpression callee
+                && "get".equals(callee.getReferencedName())
+                && isConfigReference(callee.getQualifier())
+                && call.getArguments().length > 0
+                && call.getArguments()[0] instanceof PyStringLiteralExpression literal) {
+            key = literal.getStringValue();
+            // get without default returns None for missing keys
+            optional = call.getArguments().length == 1;
+        }
+        if (key == null) return null;
+        Set<String> types = getKeyTypes(expression.getProject(), key);
+        if (types.isEmpty()) return null;
+        if (optional) types.add("None");
+        return String.join(" | ", types);
+    }
+
+    /**
+     * Gets types of a key from all files writing it
+     *
+     * @param project project to search
+     * @param key config key
+     * @return ordered distinct types, empty if key is unknown or indexes are not ready
+     */
+    public static @NotNull Set<String> getKeyTypes(@NotNull Project project, @NotNull String key) {
+        Set<String> types = new LinkedHashSet<>();
+        if (DumbService.isDumb(project)) return types;
+        for (String value : FileBasedIndex.getInstance().getValues(NAME, key, GlobalSearchScope.projectScope(project))) {
+            types.addAll(Arrays.asList(value.split(" \\| ")));
+        }
+        return types;
+    }
+}
@@ -0,0 +1,315 @@
+package com.github.sullyvahnn.flaskplugin.java.Flask;
+
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import com.jetbrains.python.PythonFileType;
+import com.jetbrains.python.psi.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Index of Flask-SQLAlchemy models: model class name to types of its columns and relationships.
+ * <p>
+ * Models are classes extending {@code db.Model} (or a {@code Model} imported directly).
+ * Columns are read from {@code db.Column(db.Integer, ...)}, {@code mapped_column(...)} and
+ * {@code Mapped[...]} annotations, relationships from {@code db.relationship("Other", ...)}.
+ * With the index, query chains like {@code User.query.filter_by(...).first()} resolve to
+ * {@code User | None} without walking SQLAlchemy's sources on every lookup.
+ * The platform re-indexes only model files that changed.
+ */
+public class FlaskModelIndex extends FileBasedIndexExtension<String, Map<String, String>> implements PsiDependentIndex {
+    public static final ID<String, Map<String, String>> NAME = ID.create("flask.types.models");
+
+    private static final Map<String, String> COLUMN_TYPES = Map.ofEntries(
+            Map.entry("Integer", "int"),
+            Map.entry("BigInteger", "int"),
+            Map.entry("SmallInteger", "int"),
+            Map.entry("String", "str"),
+            Map.entry("Text", "str"),
+            Map.entry("Unicode", "str"),
+            Map.entry("UnicodeText", "str"),
+            Map.entry("Enum", "str"),
+            Map.entry("Boolean", "bool"),
+            Map.entry("Float", "float"),
+            Map.entry("Numeric", "Decimal"),
+            Map.entry("DateTime", "datetime"),
+            Map.entry("Date", "date"),
+            Map.entry("Time", "time"),
+            Map.entry("Interval", "timedelta"),
+            Map.entry("LargeBinary", "bytes"),
+            Map.entry("JSON", "Any"),
+            Map.entry("PickleType", "Any"),
+            Map.entry("Uuid", "UUID"),
+            Map.entry("UUID", "UUID"));
+    private static final Set<String> COLUMN_FACTORIES = Set.of("Column", "mapped_column");
+    private static final Set<String> RELATIONSHIP_FACTORIES = Set.of("relationship", "relation");
+
+    /** Query methods returning another query of the same model */
+    private static final Set<String> QUERY_CHAIN_METHODS = Set.of("filter", "filter_by", "order_by", "group_by",
+            "having", "limit", "offset", "join", "outerjoin", "distinct", "options", "where");
+    /** Query methods returning results, "%s" stands for the model name */
+    private static final Map<String, String> QUERY_RESULT_TYPES = Map.of(
+            "first", "%s | None",
+            "one_or_none", "%s | None",
+            "get", "%s | None",
+            "one", "%s",
+            "first_or_404", "%s",
+            "get_or_404", "%s",
+            "all", "list[%s]",
+            "count", "int",
+            "paginate", "Pagination");
+    private static final String QUERY_TYPE = "Query[%s]";
+    private static final Key<CachedValue<Set<String>>> ATTRIBUTE_NAMES_KEY = Key.create("flask.types.models.attribute.names");
+
+    @Override
+    public @NotNull ID<String, Map<String, String>> getName() {
+        return NAME;
+    }
+
+    @Override
+    public @NotNull DataIndexer<String, Map<String, String>, FileContent> getIndexer() {
+        return inputData -> {
+            PsiFile file = inputData.getPsiFile();
+            if (!(file instanceof PyFile)) return Collections.emptyMap();
+            Map<String, Map<String, String>> result = new HashMap<>();
+            for (PyClass pyClass : PsiTreeUtil.findChildrenOfType(file, PyClass.class)) {
+                if (pyClass.getName() == null || !isModelClass(pyClass)) continue;
+                result.merge(pyClass.getName(), getAttributeTypes(pyClass), (a, b) -> {
+                    Map<String, String> merged = new LinkedHashMap<>(a);
+                    merged.putAll(b);
+                    return merged;
+                });
+            }
+            return result;
+        };
+    }
+
+    /**
+     * Checks if class extends db.Model, judged by the superclass text since indexers cannot resolve
+     */
+    private static boolean isModelClass(@NotNull PyClass pyClass) {
+        for (PyExpression superClass : pyClass.getSuperClassExpressions()) {
+            String text = superClass.getText();
+            if (text.equals("Model") || text.endsWith(".Model")) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Collects types of column and relationship attributes declared in the class body
+     *
+     * @param pyClass model class
+     * @return attribute name to type
+     */
+    private static Map<String, String> getAttributeTypes(@NotNull PyClass pyClass) {
+        Map<String, String> attributes = new LinkedHashMap<>();
+        for (PyTargetExpression target : pyClass.getClassAttributes()) {
+            String type = getAnnotatedType(target);
+            if (type == null && target.findAssignedValue() instanceof PyCallExpression call) {
+                type = getCallType(call);
+            }
+            if (type != null && target.getName() != null) {
+                attributes.put(target.getName(), type);
+            }
+        }
+        return attributes;
+    }
+
+    /**
+     * Gets X from a {@code Mapped[X]} annotation
+     */
+    private static @Nullable String getAnnotatedType(@NotNull PyTargetExpression target) {
+        PyAnnotation annotation = target.getAnnotation();
+        if (annotation == null || !(annotation.getValue() instanceof PySubscriptionExpression subscription)) return null;
+        if (!subscription.getOperand().getText().endsWith("Mapped") || subscription.getIndexExpression() == null) return null;
+        return subscription.getIndexExpression().getText();
+    }
+
+    /**
+     * Gets type of a column or relationship declared with a call
+     *
+     * @param call assigned value of a class attribute
+     * @return type or null if the call declares neither
+     */
+    private static @Nullable String getCallType(@NotNull PyCallExpression call) {
+        String factory = getReferencedName(call.getCallee());
+        if (factory == null) return null;
+        if (COLUMN_FACTORIES.contains(factory)) {
+            String type = null;
+            for (PyExpression argument : call.getArguments()) {
+                String name = argument instanceof PyCallExpression typeCall
+                        ? getReferencedName(typeCall.getCallee()) : getReferencedName(argument);
+                if (name != null && COLUMN_TYPES.containsKey(name)) {
+                    type = COLUMN_TYPES.get(name);
+                    break;
+                }
+            }
+            if (type == null) return null;
+            return isNullable(call) ? type + " | None" : type;
+        }
+        if (RELATIONSHIP_FACTORIES.contains(factory)) {
+            PyExpression target = call.getArguments().length > 0 ? call.getArguments()[0] : null;
+            String model = target instanceof PyStringLiteralExpression literal
+                    ? literal.getStringValue() : getReferencedName(target);
+            if (model == null) return null;
+            PyExpression useList = call.getKeywordArgument("uselist");
+            return useList != null && "False".equals(useList.getText()) ? model + " | None" : "list[" + model + "]";
+        }
+        return null;
+    }
+
+    /**
+     * Columns are nullable unless they are primary keys or declare nullable=False
+     */
+    private static boolean isNullable(@NotNull PyCallExpression column) {
+        PyExpression nullable = column.getKeywordArgument("nullable");
+        if (nullable != null) return !"False".equals(nullable.getText());
+        PyExpression primaryKey = column.getKeywordArgument("primary_key");
+        return primaryKey == null || !"True".equals(primaryKey.getText());
+    }
+
+    private static @Nullable String getReferencedName(@Nullable PyExpression expression) {
+        return expression instanceof PyReferenceExpression reference ? reference.getReferencedName() : null;
+    }
+
+    @Override
+    public @NotNull KeyDescriptor<String> getKeyDescriptor() {
+        return EnumeratorStringDescriptor.INSTANCE;
+    }
+
+    @Override
+    public @NotNull DataExternalizer<Map<String, String>> getValueExternalizer() {
+        return StringMapExternalizer.INSTANCE;
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+
+    @Override
+    public FileBasedIndex.@NotNull InputFilter getInputFilter() {
+        return new DefaultFileTypeSpecificInputFilter(PythonFileType.INSTANCE);
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    /**
+     * Gets column and relationship types of a model from all files declaring it
+     *
+     * @param project project to search
+     * @param modelName model class name
+     * @return attribute name to type, or null if there is no such model or indexes are not ready
+     */
+    public static @Nullable Map<String, String> getModelAttributes(@NotNull Project project, @NotNull String modelName) {
+        if (DumbService.isDumb(project)) return null;
+        List<Map<String, String>> values =
+                FileBasedIndex.getInstance().getValues(NAME, modelName, GlobalSearchScope.projectScope(project));
+        if (values.isEmpty()) return null;
+        Map<String, String> attributes = new LinkedHashMap<>();
+        values.forEach(attributes::putAll);
+        return attributes;
+    }
+
+    /**
+     * Checks if any project model declares an attribute of the given name, so reads of other
+     * attributes skip resolving their qualifier. Names are cached until the PSI changes.
+     *
+     * @param project project to search
+     * @param attribute attribute name
+     * @return true if some model has a column or relationship of that name
+     */
+    public static boolean isModelAttribute(@NotNull Project project, @NotNull String attribute) {
+        if (DumbService.isDumb(project)) return false;
+        Set<String> names = CachedValuesManager.getManager(project).getCachedValue(project, ATTRIBUTE_NAMES_KEY, () -> {
+            FileBasedIndex index = FileBasedIndex.getInstance();
+            GlobalSearchScope scope = GlobalSearchScope.projectScope(project);
+            Set<String> collected = new HashSet<>();
+            for (String model : index.getAllKeys(NAME, project)) {
+                for (Map<String, String> attributes : index.getValues(NAME, model, scope)) {
+                    collected.addAll(attributes.keySet());
+                }
+            }
+            return CachedValueProvider.Result.create(Set.copyOf(collected), PsiModificationTracker.MODIFICATION_COUNT);
+        }, false);
+        return names.contains(attribute);
+    }
+
+    /**
+     * Gets result type of a query expression like {@code User.query.filter_by(...).first()},
+     * {@code db.session.get(User, id)} or {@code db.get_or_404(User, id)}.
+     * Must be called inside a read action.
+     *
+     * @param expression expression to check
+     * @return type, possibly a union like "User | None", or null if expression is not a model query
+     */
+    public static @Nullable String getQueryType(@NotNull PyExpression expression) {
+        if (expression instanceof PyReferenceExpression reference) {
+            String model = getQueriedModel(reference);
+            return model == null ? null : QUERY_TYPE.formatted(model);
+        }
+        if (!(expression instanceof PyCallExpression call)
+                || !(call.getCallee() instanceof PyReferenceExpression callee)) return null;
+        String method = callee.getReferencedName();
+        if (method == null) return null;
+
+        String model = getQueriedModel(callee.getQualifier());
+        // session and extension helpers take the model as first argument
+        if (model == null && callee.getQualifier() != null
+                && (method.equals("get") || method.equals("get_or_404"))) {
+            model = getModelName(call.getArguments().length > 0 ? call.getArguments()[0] : null);
+        }
+        if (model == null) return null;
+        if (QUERY_CHAIN_METHODS.contains(method)) return QUERY_TYPE.formatted(model);
+        String type = QUERY_RESULT_TYPES.get(method);
+        return type == null ? null : type.formatted(model);
+    }
+
+    /**
+     * Gets model queried by an expression: {@code Model.query}, {@code db.session.query(Model)}
+     * or any chain of filtering calls on them
+     *
+     * @param expression possible query
+     * @return model name or null if expression is not a query
+     */
+    private static @Nullable String getQueriedModel(@Nullable PyExpression expression) {
+        while (expression instanceof PyCallExpression call && call.getCallee() instanceof PyReferenceExpression callee) {
+            String method = callee.getReferencedName();
+            if ("query".equals(method)) {
+                return getModelName(call.getArguments().length > 0 ? call.getArguments()[0] : null);
+            }
+            if (!QUERY_CHAIN_METHODS.contains(method)) return null;
+            expression = callee.getQualifier();
+        }
+        if (expression instanceof PyReferenceExpression reference && "query".equals(reference.getReferencedName())) {
+            return getModelName(reference.getQualifier());
+        }
+        return null;
+    }
+
+    /**
+     * Gets name of the referenced class if it is an indexed model
+     */
+    private static @Nullable String getModelName(@Nullable PyExpression expression) {
+        if (!(expression instanceof PyReferenceExpression reference) || reference.getReferencedName() == null) return null;
+        String name = reference.getReferencedName();
+        return getModelAttributes(expression.getProject(), name) != null ? name : null;
+    }
+}
@@ -0,0 +1,198 @@
+package com.github.sullyvahnn.flaskplugin.java.Flask;
+
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import com.jetbrains.python.PythonFileType;
+import com.jetbrains.python.psi.*;
+import com.jetbrains.python.psi.types.PyClassType;
+import com.jetbrains.python.psi.types.PyType;
+import com.jetbrains.python.psi.types.TypeEvalContext;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Index of Flask route handlers: text offset of the function to types of its URL parameters.
+ * <p>
+ * Flask calls route handlers itself, so there are no call sites to infer parameter types from.
+ * The types come from URL converters instead, for example {@code <int:id>} makes {@code id} an int.
+ * Handlers are recognised by {@code @<app or blueprint>.route(...)} and the Flask 2 shortcuts
+ * like {@code @app.get(...)}. The indexer sees one file only, so it keeps every decorator of that
+ * shape, and the lookup checks that the qualifier is a {@code Flask} or {@code Blueprint} instance.
+ * Keys are offsets, so handlers with the same name in different scopes stay apart.
+ */
+public class FlaskRouteIndex extends FileBasedIndexExtension<String, Map<String, String>> implements PsiDependentIndex {
+    public static final ID<String, Map<String, String>> NAME = ID.create("flask.types.routes");
+
+    private static final Set<String> ROUTE_DECORATORS = Set.of("route", "get", "post", "put", "delete", "patch");
+    /** Classes whose instances register routes, matched in the MRO of the qualifier's class */
+    private static final Set<String> ROUTE_OWNERS = Set.of("flask.app.Flask", "flask.blueprints.Blueprint",
+            "flask.sansio.app.App", "flask.sansio.blueprints.Blueprint");
+    private static final Key<CachedValue<Boolean>> HANDLER_KEY = Key.create("flask.types.routes.handler");
+    /** Matches {@code <name>}, {@code <int:name>} and {@code <any(a, b):name>} */
+    private static final Pattern URL_VARIABLE = Pattern.compile("<(?:(\\w+)(?:\\([^)]*\\))?:)?(\\w+)>");
+    private static final Map<String, String> CONVERTER_TYPES = Map.of(
+            "string", "str",
+            "int", "int",
+            "float", "float",
+            "path", "str",
+            "uuid", "UUID",
+            "any", "str");
+
+    @Override
+    public @NotNull ID<String, Map<String, String>> getName() {
+        return NAME;
+    }
+
+    @Override
+    public @NotNull DataIndexer<String, Map<String, String>, FileContent> getIndexer() {
+        return inputData -> {
+            PsiFile file = inputData.getPsiFile();
+            if (!(file instanceof PyFile)) return Collections.emptyMap();
+            Map<String, Map<String, String>> result = new HashMap<>();
+            for (PyFunction function : PsiTreeUtil.findChildrenOfType(file, PyFunction.class)) {
+                Map<String, String> parameters = getRouteParameters(function);
+                if (parameters != null) result.put(String.valueOf(function.getTextOffset()), parameters);
+            }
+            return result;
+        };
+    }
+
+    /**
+     * Collects URL parameter types from all route decorators of a function
+     *
+     * @param function function to check
+     * @return parameter name to type, or null if function is not a route handler
+     */
+    private static @Nullable Map<String, String> getRouteParameters(@NotNull PyFunction function) {
+        PyDecoratorList decorators = function.getDecoratorList();
+        if (decorators == null) return null;
+        Map<String, String> parameters = null;
+        for (PyDecorator decorator : decorators.getDecorators()) {
+            if (!isRouteDecorator(decorator)) continue;
+            if (parameters == null) parameters = new LinkedHashMap<>();
+            PyStringLiteralExpression rule = decorator.getArgument(0, PyStringLiteralExpression.class);
+            if (rule == null) continue;
+            Map<String, String> ruleParameters = new LinkedHashMap<>();
+            Matcher matcher = URL_VARIABLE.matcher(rule.getStringValue());
+            while (matcher.find()) {
+                String converter = matcher.group(1) == null ? "string" : matcher.group(1);
+                ruleParameters.put(matcher.group(2), CONVERTER_TYPES.getOrDefault(converter, converter));
+            }
+            parameters = mergeParameters(parameters, ruleParameters);
+        }
+        return parameters;
+    }
+
+    /**
+     * Checks if decorator is {@code <name>.route(...)} or one of the method shortcuts, by shape only
+     */
+    private static boolean isRouteDecorator(@NotNull PyDecorator decorator) {
+        if (!decorator.hasArgumentList()) return false;
+        PyExpression callee = decorator.getCallee();
+        return callee instanceof PyReferenceExpression reference
+                && reference.isQualified()
+                && ROUTE_DECORATORS.contains(reference.getReferencedName());
+    }
+
+    /**
+     * Merges parameter types of two routes of the same handler into unions
+     */
+    private static Map<String, String> mergeParameters(Map<String, String> first, Map<String, String> second) {
+        Map<String, String> merged = new LinkedHashMap<>(first);
+        second.forEach((name, type) -> merged.merge(name, type,
+                (a, b) -> Arrays.asList(a.split(" \\| ")).contains(b) ? a : a + " | " + b));
+        return merged;
+    }
+
+    @Override
+    public @NotNull KeyDescriptor<String> getKeyDescriptor() {
+        return EnumeratorStringDescriptor.INSTANCE;
+    }
+
+    @Override
+    public @NotNull DataExternalizer<Map<String, String>> getValueExternalizer() {
+        return StringMapExternalizer.INSTANCE;
+    }
+
+    @Override
+    public int getVersion() {
+        return 2;
+    }
+
+    @Override
+    public FileBasedIndex.@NotNull InputFilter getInputFilter() {
+        return new DefaultFileTypeSpecificInputFilter(PythonFileType.INSTANCE);
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    /**
+     * Gets URL parameter types of a route handler from the index of its own file
+     *
+     * @param function possible route handler
+     * @return parameter name to type, or null if function is not a route handler or indexes are not ready
+     */
+    public static @Nullable Map<String, String> getRouteParameterTypes(@NotNull PyFunction function) {
+        PsiFile file = function.getContainingFile();
+        VirtualFile virtualFile = file == null ? null : file.getVirtualFile();
+        if (virtualFile == null) return null;
+        if (DumbService.isDumb(function.getProject())) return null;
+        Map<String, Map<String, String>> fileData =
+                FileBasedIndex.getInstance().getFileData(NAME, virtualFile, function.getProject());
+        Map<String, String> parameters = fileData.get(String.valueOf(function.getTextOffset()));
+        return parameters != null && isRouteHandler(function) ? parameters : null;
+    }
+
+    /**
+     * Checks if a route decorator of the function is called on a Flask or Blueprint instance.
+     * Cached per function until the PSI changes, so the check gets its own context instead of the caller's.
+     */
+    private static boolean isRouteHandler(@NotNull PyFunction function) {
+        return CachedValuesManager.getCachedValue(function, HANDLER_KEY, () -> {
+            TypeEvalContext context = TypeEvalContext.codeAnalysis(function.getProject(), function.getContainingFile());
+            return CachedValueProvider.Result.create(hasAppDecorator(function, context), PsiModificationTracker.MODIFICATION_COUNT);
+        });
+    }
+
+    private static boolean hasAppDecorator(@NotNull PyFunction function, @NotNull TypeEvalContext context) {
+        PyDecoratorList decorators = function.getDecoratorList();
+        if (decorators == null) return false;
+        for (PyDecorator decorator : decorators.getDecorators()) {
+            if (!isRouteDecorator(decorator)) continue;
+            PyExpression qualifier = ((PyReferenceExpression) Objects.requireNonNull(decorator.getCallee())).getQualifier();
+            if (qualifier != null && isRouteOwner(context.getType(qualifier), context)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a type is an instance of Flask, Blueprint or one of their subclasses
+     */
+    private static boolean isRouteOwner(@Nullable PyType type, @NotNull TypeEvalContext context) {
+        if (!(type instanceof PyClassType classType) || classType.isDefinition()) return false;
+        PyClass pyClass = classType.getPyClass();
+        if (ROUTE_OWNERS.contains(pyClass.getQualifiedName())) return true;
+        for (PyClass ancestor : pyClass.getAncestorClasses(context)) {
+            if (ROUTE_OWNERS.contains(ancestor.getQualifiedName())) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,128 @@
+package com.github.sullyvahnn.flaskplugin.java.Flask;
+
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.jetbrains.python.psi.*;
+import com.jetbrains.python.psi.types.PyClassType;
+import com.jetbrains.python.psi.types.PyType;
+import com.jetbrains.python.psi.types.TypeEvalContext;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Per-class summaries of WTForms and Flask-WTF forms: field name to the type of its {@code data}.
+ * <p>
+ * A summary is computed once per form class, including fields inherited from base forms,
+ * and cached on the class until the PSI changes. Reads like {@code form.email.data} then
+ * resolve to the summary type, for example {@code IntegerField} to {@code int | None}.
+ */
+public final class FormFieldSummaries {
+    private static final Key<CachedValue<Map<String, String>>> SUMMARY_KEY = Key.create("flask.types.form.fields");
+
+    private static final Set<String> FORM_BASES = Set.of("Form", "FlaskForm", "BaseForm");
+    private static final String DATA = "data";
+    private static final Map<String, String> FIELD_DATA_TYPES = Map.ofEntries(
+            Map.entry("StringField", "str | None"),
+            Map.entry("TextAreaField", "str | None"),
+            Map.entry("PasswordField", "str | None"),
+            Map.entry("HiddenField", "str | None"),
+            Map.entry("SearchField", "str | None"),
+            Map.entry("TelField", "str | None"),
+            Map.entry("URLField", "str | None"),
+            Map.entry("EmailField", "str | None"),
+            Map.entry("RadioField", "str | None"),
+            Map.entry("SelectField", "str | None"),
+            Map.entry("SelectMultipleField", "list[str] | None"),
+            Map.entry("IntegerField", "int | None"),
+            Map.entry("IntegerRangeField", "int | None"),
+            Map.entry("FloatField", "float | None"),
+            Map.entry("DecimalField", "Decimal | None"),
+            Map.entry("DecimalRangeField", "Decimal | None"),
+            Map.entry("BooleanField", "bool"),
+            Map.entry("SubmitField", "bool"),
+            Map.entry("DateField", "date | None"),
+            Map.entry("MonthField", "date | None"),
+            Map.entry("DateTimeField", "datetime | None"),
+            Map.entry("DateTimeLocalField", "datetime | None"),
+            Map.entry("TimeField", "time | None"),
+            Map.entry("FileField", "FileStorage | None"),
+            Map.entry("MultipleFileField", "list[FileStorage]"),
+            Map.entry("FieldList", "list"),
+            Map.entry("FormField", "dict[str, Any]"));
+    /** Fields whose data type follows their coerce argument */
+    private static final Set<String> COERCED_FIELDS = Set.of("SelectField", "RadioField", "SelectMultipleField");
+
+    private FormFieldSummaries() {
+    }
+
+    /**
+     * Gets type of {@code <form>.<field>.data}.
+     * Must be called inside a read action.
+     *
+     * @param expression expression to check
+     * @param context type evaluation context of the file
+     * @return type, possibly a union like "int | None", or null if expression does not read form data
+     */
+    public static @Nullable String getFieldDataType(@NotNull PyExpression expression, @NotNull TypeEvalContext context) {
+        if (!(expression instanceof PyReferenceExpression reference) || !DATA.equals(reference.getReferencedName())) return null;
+        if (!(reference.getQualifier() instanceof PyReferenceExpression field) || field.getReferencedName() == null) return null;
+        PyExpression form = field.getQualifier();
+        if (form == null) return null;
+        PyType formType = context.getType(form);
+        if (!(formType instanceof PyClassType classType) || classType.isDefinition()) return null;
+        return getSummary(classType.getPyClass()).get(field.getReferencedName());
+    }
+
+    /**
+     * Gets field summary of a class, empty if the class is not a form.
+     * The summary outlives the caller, so ancestors are resolved with a context of the class's own file.
+     *
+     * @param pyClass class of the form instance
+     * @return field name to data type
+     */
+    public static @NotNull Map<String, String> getSummary(@NotNull PyClass pyClass) {
+        return CachedValuesManager.getCachedValue(pyClass, SUMMARY_KEY, () -> {
+            TypeEvalContext context = TypeEvalContext.codeAnalysis(pyClass.getProject(), pyClass.getContainingFile());
+            return CachedValueProvider.Result.create(computeSummary(pyClass, context), PsiModificationTracker.MODIFICATION_COUNT);
+        });
+    }
+
+    private static Map<String, String> computeSummary(@NotNull PyClass pyClass, @NotNull TypeEvalContext context) {
+        List<PyClass> ancestors = pyClass.getAncestorClasses(context);
+        if (ancestors.stream().noneMatch(ancestor -> FORM_BASES.contains(ancestor.getName()))) return Map.of();
+
+        Map<String, String> summary = new LinkedHashMap<>();
+        // base fields first, so subclasses override them
+        List<PyClass> hierarchy = new ArrayList<>(ancestors);
+        Collections.reverse(hierarchy);
+        hierarchy.add(pyClass);
+        for (PyClass formClass : hierarchy) {
+            if (FORM_BASES.contains(formClass.getName())) continue;
+            for (PyTargetExpression target : formClass.getClassAttributes()) {
+                String type = target.findAssignedValue() instanceof PyCallExpression call ? getDataType(call) : null;
+                if (type != null && target.getName() != null) summary.put(target.getName(), type);
+            }
+        }
+        return Map.copyOf(summary);
+    }
+
+    /**
+     * Gets data type of a field declared like {@code IntegerField("Age", validators=[...])}
+     */
+    private static @Nullable String getDataType(@NotNull PyCallExpression call) {
+        if (!(call.getCallee() instanceof PyReferenceExpression callee)) return null;
+        String fieldClass = callee.getReferencedName();
+        String type = FIELD_DATA_TYPES.get(fieldClass);
+        if (type == null || !COERCED_FIELDS.contains(fieldClass)) return type;
+        PyExpression coerce = call.getKeywordArgument("coerce");
+        if (!(coerce instanceof PyReferenceExpression coerceReference)) return type;
+        String coerced = coerceReference.getReferencedName();
+        // a coerce argument still being typed, like coerce=types., names nothing yet
+        return coerced == null ? type : type.replace("str", coerced);
+    }
+}
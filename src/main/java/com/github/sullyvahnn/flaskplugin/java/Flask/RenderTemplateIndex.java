@@ -0,0 +1,179 @@
+package com.github.sullyvahnn.flaskplugin.java.Flask;
+
+import com.github.sullyvahnn.flaskplugin.java.ExpressionData.ExpressionData;
+import com.github.sullyvahnn.flaskplugin.java.NormalTypeWidget.VariableTypeResolver;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import com.jetbrains.python.PythonFileType;
+import com.jetbrains.python.psi.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of {@code render_template(...)} calls: template name to offsets of the keyword arguments
+ * passed to it in each view file.
+ * <p>
+ * The index only stores where the arguments are, because types need resolution across files
+ * which indexers must not do. Types are inferred on the first lookup and cached per view file
+ * until the PSI changes, so a lookup only touches the views that render the template.
+ */
+public class RenderTemplateIndex extends FileBasedIndexExtension<String, List<Integer>> implements PsiDependentIndex {
+    public static final ID<String, List<Integer>> NAME = ID.create("flask.types.render.template");
+
+    private static final String TEMPLATES_DIRECTORY = "templates";
+    private static final Key<CachedValue<Map<Integer, List<ExpressionData>>>> ARGUMENT_TYPES_KEY =
+            Key.create("flask.types.render.template.argument.types");
+
+    @Override
+    public @NotNull ID<String, List<Integer>> getName() {
+        return NAME;
+    }
+
+    @Override
+    public @NotNull DataIndexer<String, List<Integer>, FileContent> getIndexer() {
+        return inputData -> {
+            PsiFile file = inputData.getPsiFile();
+            if (!(file instanceof PyFile)) return Collections.emptyMap();
+            Map<String, List<Integer>> result = new HashMap<>();
+            for (PyCallExpression call : PsiTreeUtil.findChildrenOfType(file, PyCallExpression.class)) {
+                if (!(call.getCallee() instanceof PyReferenceExpression callee)
+                        || !"render_template".equals(callee.getReferencedName())) continue;
+                PyStringLiteralExpression template = call.getArgument(0, PyStringLiteralExpression.class);
+                if (template == null) continue;
+                List<Integer> offsets = result.computeIfAbsent(template.getStringValue(), k -> new ArrayList<>());
+                for (PyExpression argument : call.getArguments()) {
+                    if (argument instanceof PyKeywordArgument keywordArgument && keywordArgument.getKeyword() != null) {
+                        offsets.add(keywordArgument.getTextOffset());
+                    }
+                }
+            }
+            return result;
+        };
+    }
+
+    @Override
+    public @NotNull KeyDescriptor<String> getKeyDescriptor() {
+        return EnumeratorStringDescriptor.INSTANCE;
+    }
+
+    @Override
+    public @NotNull DataExternalizer<List<Integer>> getValueExternalizer() {
+        return new DataExternalizer<>() {
+            @Override
+            public void save(@NotNull DataOutput out, List<Integer> value) throws IOException {
+                out.writeInt(value.size());
+                for (int offset : value) {
+                    out.writeInt(offset);
+                }
+            }
+
+            @Override
+            public List<Integer> read(@NotNull DataInput in) throws IOException {
+                int size = in.readInt();
+                List<Integer> value = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    value.add(in.readInt());
+                }
+                return value;
+            }
+        };
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+
+    @Override
+    public FileBasedIndex.@NotNull InputFilter getInputFilter() {
+        return new DefaultFileTypeSpecificInputFilter(PythonFileType.INSTANCE);
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    /**
+     * Gets template name the way views pass it to render_template:
+     * path relative to the nearest enclosing "templates" directory
+     *
+     * @param templateFile template file
+     * @return template name or null if the file is not inside a templates directory
+     */
+    public static @Nullable String getTemplateName(@NotNull VirtualFile templateFile) {
+        for (VirtualFile dir = templateFile.getParent(); dir != null; dir = dir.getParent()) {
+            if (TEMPLATES_DIRECTORY.equals(dir.getName())) {
+                return VfsUtilCore.getRelativePath(templateFile, dir);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets types of every context variable passed to a template from all views.
+     * Must be called inside a read action.
+     *
+     * @param project project to search
+     * @param templateName template name as passed to render_template
+     * @return context variable name to its types, empty if indexes are not ready
+     */
+    public static @NotNull Map<String, List<ExpressionData>> getContextTypes(@NotNull Project project, @NotNull String templateName) {
+        if (DumbService.isDumb(project)) return Map.of();
+        // resolving queries other indexes, which must not happen inside the processor, so calls are collected first
+        Map<VirtualFile, List<Integer>> calls = new LinkedHashMap<>();
+        FileBasedIndex.getInstance().processValues(NAME, templateName, null, (file, offsets) -> {
+            calls.computeIfAbsent(file, k -> new ArrayList<>()).addAll(offsets);
+            return true;
+        }, GlobalSearchScope.projectScope(project));
+
+        Map<String, List<ExpressionData>> result = new LinkedHashMap<>();
+        for (Map.Entry<VirtualFile, List<Integer>> call : calls.entrySet()) {
+            PsiFile psiFile = PsiManager.getInstance(project).findFile(call.getKey());
+            if (!(psiFile instanceof PyFile)) continue;
+            Map<Integer, List<ExpressionData>> argumentTypes = getArgumentTypes(psiFile);
+            for (int offset : call.getValue()) {
+                PyKeywordArgument argument = PsiTreeUtil.findElementOfClassAtOffset(psiFile, offset, PyKeywordArgument.class, false);
+                if (argument == null || argument.getKeyword() == null) continue;
+                List<ExpressionData> types = argumentTypes.computeIfAbsent(offset, k -> computeArgumentTypes(argument));
+                result.computeIfAbsent(argument.getKeyword(), k -> new ArrayList<>()).addAll(types);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets per-file cache of keyword argument types, dropped on PSI modification
+     */
+    private static Map<Integer, List<ExpressionData>> getArgumentTypes(@NotNull PsiFile file) {
+        return CachedValuesManager.getCachedValue(file, ARGUMENT_TYPES_KEY, () ->
+                CachedValueProvider.Result.create(new ConcurrentHashMap<>(), PsiModificationTracker.MODIFICATION_COUNT));
+    }
+
+    private static List<ExpressionData> computeArgumentTypes(@NotNull PyKeywordArgument argument) {
+        PyExpression value = argument.getValueExpression();
+        if (value == null) return List.of();
+        return List.copyOf(new VariableTypeResolver().getExpressionTypes(value));
+    }
+}
@@ -0,0 +1,40 @@
+package com.github.sullyvahnn.flaskplugin.java.Flask;
+
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.IOUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Externalizer of name to type maps stored by the Flask indexes, keeps entry order
+ */
+final class StringMapExternalizer implements DataExternalizer<Map<String, String>> {
+    static final StringMapExternalizer INSTANCE = new StringMapExternalizer();
+
+    private StringMapExternalizer() {
+    }
+
+    @Override
+    public void save(@NotNull DataOutput out, Map<String, String> value) throws IOException {
+        out.writeInt(value.size());
+        for (Map.Entry<String, String> entry : value.entrySet()) {
+            IOUtil.writeUTF(out, entry.getKey());
+            IOUtil.writeUTF(out, entry.getValue());
+        }
+    }
+
+    @Override
+    public Map<String, String> read(@NotNull DataInput in) throws IOException {
+        int size = in.readInt();
+        Map<String, String> value = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            value.put(IOUtil.readUTF(in), IOUtil.readUTF(in));
+        }
+        return value;
+    }
+}
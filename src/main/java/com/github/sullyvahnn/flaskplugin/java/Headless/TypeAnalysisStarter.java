@@ -0,0 +1,255 @@
+package com.github.sullyvahnn.flaskplugin.java.Headless;
+
+import com.github.sullyvahnn.flaskplugin.java.NormalTypeWidget.NormalTypeWidget;
+import com.github.sullyvahnn.flaskplugin.java.ProjectAnalysis.ProjectTypeScanner;
+import com.github.sullyvahnn.flaskplugin.java.ProjectAnalysis.TypeReportWriter;
+import com.github.sullyvahnn.flaskplugin.java.Snapshot.SnapshotStore;
+import com.github.sullyvahnn.flaskplugin.java.Snapshot.SnapshotWriter;
+import com.github.sullyvahnn.flaskplugin.java.TypeAnalysis.AnalysisMemoryCache;
+import com.github.sullyvahnn.flaskplugin.java.TypeAnalysis.FileDependencies;
+import com.intellij.ide.impl.ProjectUtil;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ApplicationStarter;
+import com.intellij.openapi.application.ex.ApplicationEx;
+import com.intellij.openapi.application.ex.ApplicationManagerEx;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.project.ProjectManager;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Headless entry point running the project-wide type analysis without any UI.
+ * <p>
+ * Usage: {@code <ide> flask-types <project> [paths...] --output=<file> [--format=json|ndjson]
+ * [--snapshot=<file>] [--threshold=<types>] [--max-polymorphic=<count>]}
+ * <p>
+ * The report always goes to the --output file, the platform logs to stdout while it runs and would
+ * mix its lines into a report written there. A summary line is printed to stderr.
+ * <p>
+ * With --snapshot the results are also written as a snapshot which IDEs import at startup,
+ * see {@link SnapshotStore}.
+ * <p>
+ * The process exits with {@link #EXIT_OK} when at most --max-polymorphic variables reach
+ * --threshold types, with {@link #EXIT_THRESHOLD_EXCEEDED} when more do, and with
+ * {@link #EXIT_ERROR} when the analysis could not run. Only the scanner is used, so neither
+ * editors nor the status bar widgets are needed.
+ */
+public class TypeAnalysisStarter implements ApplicationStarter {
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_THRESHOLD_EXCEEDED = 1;
+    public static final int EXIT_ERROR = 2;
+
+    private static final Logger LOG = Logger.getInstance(TypeAnalysisStarter.class);
+    private static final String USAGE = "Usage: flask-types <project> [paths...] --output=<file> [--format=json|ndjson] "
+            + "[--snapshot=<file>] [--threshold=<types>] [--max-polymorphic=<count>]";
+
+    @Override
+    public void main(@NotNull List<String> args) {
+        Options options;
+        try {
+            // first argument is the command name itself
+            options = Options.parse(args.subList(1, args.size()));
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            exit(EXIT_ERROR);
+            return;
+        }
+
+        Project project = ProjectUtil.openOrImport(options.projectPath, null, false);
+        if (project == null) {
+            System.err.println("Cannot open project " + options.projectPath);
+            exit(EXIT_ERROR);
+            return;
+        }
+
+        // waiting for indexes must not block the thread the starter was called on
+        ApplicationManager.getApplication().executeOnPooledThread(() -> {
+            int exitCode = analyse(project, options);
+            ApplicationManager.getApplication().invokeAndWait(() -> ProjectManager.getInstance().closeAndDispose(project));
+            exit(exitCode);
+        });
+    }
+
+    /**
+     * Shuts the application down with an exit code. The exit runs on the EDT, so the platform
+     * disposes its services and flushes its caches instead of the JVM stopping under them.
+     *
+     * @param exitCode process exit code
+     */
+    private static void exit(int exitCode) {
+        ApplicationManager.getApplication().invokeLater(() -> ApplicationManagerEx.getApplicationEx()
+                .exit(ApplicationEx.FORCE_EXIT | ApplicationEx.EXIT_CONFIRMED, exitCode));
+    }
+
+    /**
+     * Scans selected files of the opened project and streams the report
+     *
+     * @param project opened project
+     * @param options parsed command line options
+     * @return process exit code
+     */
+    private static int analyse(@NotNull Project project, @NotNull Options options) {
+        try {
+            DumbService.getInstance(project).waitForSmartMode();
+            VirtualFile baseDir = LocalFileSystem.getInstance().refreshAndFindFileByNioFile(options.projectPath);
+            if (baseDir == null) throw new IOException("Project directory not found: " + options.projectPath);
+            ProjectTypeScanner scanner = new ProjectTypeScanner(project);
+            Collection<VirtualFile> files = filterFiles(scanner.findPythonFiles(), options);
+            String settingsHash = SnapshotStore.getInstance(project).getSettingsHash();
+
+            AtomicReference<IOException> writeError = new AtomicReference<>();
+            try (TypeReportWriter report = new TypeReportWriter(openOutput(options), options.ndjson, baseDir, options.threshold);
+                 SnapshotWriter snapshot = openSnapshot(options, baseDir, settingsHash)) {
+                report.begin(project.getName());
+                scanner.scan(files, new EmptyProgressIndicator(), result -> {
+                    try {
+                        report.write(result.records);
+                        if (snapshot != null) snapshot.write(result, getDependencyHash(project, result.file));
+                    } catch (IOException e) {
+                        writeError.compareAndSet(null, e);
+                    }
+                });
+                if (writeError.get() != null) throw writeError.get();
+                report.end();
+
+                int polymorphic = report.getPolymorphicCount();
+                System.err.println(polymorphic + " variables with " + options.threshold + " or more types in "
+                        + files.size() + " files");
+                System.err.println("Analysis cache: " + AnalysisMemoryCache.getInstance().getStatistics().describe());
+                return polymorphic > options.maxPolymorphic ? EXIT_THRESHOLD_EXCEEDED : EXIT_OK;
+            }
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Type analysis failed", e);
+            System.err.println("Type analysis failed: " + e.getMessage());
+            return EXIT_ERROR;
+        }
+    }
+
+    /**
+     * Keeps only files below one of the selected paths
+     *
+     * @param files all project Python files
+     * @param options options with selected paths
+     * @return files to analyse
+     */
+    private static Collection<VirtualFile> filterFiles(Collection<VirtualFile> files, Options options) {
+        if (options.paths.isEmpty()) return files;
+        List<VirtualFile> roots = new ArrayList<>();
+        for (Path path : options.paths) {
+            VirtualFile root = LocalFileSystem.getInstance().refreshAndFindFileByNioFile(options.projectPath.resolve(path));
+            if (root == null) throw new IllegalArgumentException("Path not found: " + path);
+            roots.add(root);
+        }
+        List<VirtualFile> result = new ArrayList<>();
+        for (VirtualFile file : files) {
+            for (VirtualFile root : roots) {
+                if (VfsUtilCore.isAncestor(root, file, false)) {
+                    result.add(file);
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Hashes a scanned file with its dependencies, so an IDE trusts its snapshot entry only while they are unchanged
+     */
+    private static @NotNull String getDependencyHash(@NotNull Project project, @NotNull VirtualFile file) throws IOException {
+        String hash = DumbService.getInstance(project).runReadActionInSmartMode(() -> {
+            PsiFile psiFile = PsiManager.getInstance(project).findFile(file);
+            return psiFile == null ? null : FileDependencies.getDependencyHash(psiFile);
+        });
+        if (hash == null) throw new IOException("Cannot hash dependencies of " + file.getPath());
+        return hash;
+    }
+
+    private static Writer openOutput(Options options) throws IOException {
+        Files.createDirectories(options.output.getParent());
+        return Files.newBufferedWriter(options.output, StandardCharsets.UTF_8);
+    }
+
+    private static @Nullable SnapshotWriter openSnapshot(Options options, VirtualFile baseDir,
+                                                         @NotNull String settingsHash) throws IOException {
+        if (options.snapshot == null) return null;
+        Files.createDirectories(options.snapshot.getParent());
+        Writer out = Files.newBufferedWriter(options.snapshot, StandardCharsets.UTF_8);
+        return new SnapshotWriter(out, baseDir, settingsHash);
+    }
+
+    /**
+     * Command line options of the starter
+     */
+    static final class Options {
+        Path projectPath;
+        final List<Path> paths = new ArrayList<>();
+        boolean ndjson = false;
+        Path output;
+        @Nullable Path snapshot;
+        int threshold = NormalTypeWidget.DEFAULT_TYPES_COUNT_WARNING;
+        int maxPolymorphic = 0;
+
+        static Options parse(List<String> args) {
+            Options options = new Options();
+            for (String arg : args) {
+                if (arg.startsWith("--format=")) {
+                    String format = arg.substring("--format=".length());
+                    if (!format.equals("json") && !format.equals("ndjson")) {
+                        throw new IllegalArgumentException("Unknown format: " + format);
+                    }
+                    options.ndjson = format.equals("ndjson");
+                } else if (arg.startsWith("--output=")) {
+                    options.output = Path.of(arg.substring("--output=".length())).toAbsolutePath();
+                } else if (arg.startsWith("--snapshot=")) {
+                    options.snapshot = Path.of(arg.substring("--snapshot=".length())).toAbsolutePath();
+                } else if (arg.startsWith("--threshold=")) {
+                    options.threshold = parseInt(arg, "--threshold=");
+                    // every declaration has at least one type, a lower threshold would report all of them
+                    if (options.threshold < 1) throw new IllegalArgumentException("Threshold must be at least 1: " + arg);
+                } else if (arg.startsWith("--max-polymorphic=")) {
+                    options.maxPolymorphic = parseInt(arg, "--max-polymorphic=");
+                    if (options.maxPolymorphic < 0) throw new IllegalArgumentException("Count must not be negative: " + arg);
+                } else if (arg.startsWith("--")) {
+                    throw new IllegalArgumentException("Unknown option: " + arg);
+                } else if (options.projectPath == null) {
+                    options.projectPath = Path.of(arg).toAbsolutePath().normalize();
+                } else {
+                    options.paths.add(Path.of(arg));
+                }
+            }
+            if (options.projectPath == null) {
+                throw new IllegalArgumentException("Project path is missing");
+            }
+            if (options.output == null) {
+                throw new IllegalArgumentException("Report file is missing, pass --output=<file>");
+            }
+            return options;
+        }
+
+        private static int parseInt(String arg, String prefix) {
+            try {
+                return Integer.parseInt(arg.substring(prefix.length()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Not a number: " + arg);
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.github.sullyvahnn.flaskplugin.java.Inspection;
+
+import com.github.sullyvahnn.flaskplugin.java.NormalTypeWidget.NormalTypeWidget;
+import com.github.sullyvahnn.flaskplugin.java.TypeAnalysis.TypeAnalysisCache;
+import com.intellij.codeInspection.LocalInspectionTool;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.codeInspection.options.OptPane;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementVisitor;
+import com.jetbrains.python.psi.PyElementVisitor;
+import com.jetbrains.python.psi.PyNamedParameter;
+import com.jetbrains.python.psi.PyTargetExpression;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * Reports variables and parameters whose inferred type set reaches the configured threshold.
+ * <p>
+ * This is the same signal the status bar widget shows as "⚠️ Types: N", but it works
+ * without an editor, so it can run in Code | Inspect Code and offline inspections.
+ * Results come from {@link TypeAnalysisCache}, so the widget, the inspection and
+ * project scans never analyse the same identifier twice.
+ */
+public class PolymorphicVariableInspection extends LocalInspectionTool {
+
+    /** Threshold for number of types at which a problem is reported */
+    public int typesCountWarning = NormalTypeWidget.DEFAULT_TYPES_COUNT_WARNING;
+
+    @Override
+    public @NotNull OptPane getOptionsPane() {
+        return OptPane.pane(
+                OptPane.number("typesCountWarning", "Report when the number of types reaches", 2, 100));
+    }
+
+    @Override
+    public @NotNull PsiElementVisitor buildVisitor(@NotNull ProblemsHolder holder, boolean isOnTheFly) {
+        return new PyElementVisitor() {
+            @Override
+            public void visitPyTargetExpression(@NotNull PyTargetExpression node) {
+                // resolver matches assignments by name, so report the name once per file
+                if (!TypeAnalysisCache.isAnalysedDeclaration(node)) return;
+                checkTypes(node, holder);
+            }
+
+            @Override
+            public void visitPyNamedParameter(@NotNull PyNamedParameter node) {
+                if (!TypeAnalysisCache.isAnalysedDeclaration(node)) return;
+                checkTypes(node, holder);
+            }
+        };
+    }
+
+    /**
+     * Registers a problem on identifier if its inferred type set is too large
+     *
+     * @param identifier target expression or parameter to check
+     * @param holder problems holder of the current file
+     */
+    private void checkTypes(@NotNull PsiElement identifier, @NotNull ProblemsHolder holder) {
+        ProgressManager.checkCanceled();
+        List<String> types = TypeAnalysisCache.getTypeNames(identifier);
+        if (types.size() < typesCountWarning) return;
+
+        holder.registerProblem(identifier,
+                "'" + identifier.getText() + "' can hold " + types.size() + " types: " + String.join(", ", types));
+    }
+}
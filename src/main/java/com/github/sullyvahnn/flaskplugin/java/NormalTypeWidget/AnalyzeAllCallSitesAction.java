@@ -0,0 +1,71 @@
+package com.github.sullyvahnn.flaskplugin.java.NormalTypeWidget;
+
+import com.github.sullyvahnn.flaskplugin.java.ExpressionData.ExpressionData;
+import com.intellij.openapi.actionSystem.ActionUpdateThread;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.wm.StatusBar;
+import com.intellij.openapi.wm.WindowManager;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.jetbrains.python.psi.PyFile;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * Infers types of the variable under caret from every call site of the enclosing function,
+ * instead of the sample used while moving the caret, and shows them in the status bar widget.
+ */
+public class AnalyzeAllCallSitesAction extends AnAction {
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent e) {
+        Project project = e.getProject();
+        Editor editor = e.getData(CommonDataKeys.EDITOR);
+        if (project == null || editor == null) return;
+        int offset = editor.getCaretModel().getOffset();
+
+        new Task.Backgroundable(project, "Inferring types from all call sites", true) {
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                List<ExpressionData> types = ReadAction.nonBlocking(() -> {
+                    PsiFile file = PsiDocumentManager.getInstance(project).getPsiFile(editor.getDocument());
+                    PsiElement leaf = file == null ? null : file.findElementAt(offset);
+                    VariableTypeResolver resolver = new VariableTypeResolver();
+                    resolver.setExhaustive(true);
+                    return resolver.getPossibleTypes(leaf == null ? null : leaf.getParent());
+                }).wrapProgress(indicator).executeSynchronously();
+                if (types == null) return;
+
+                ApplicationManager.getApplication().invokeLater(() -> {
+                    StatusBar statusBar = WindowManager.getInstance().getStatusBar(project);
+                    if (statusBar == null) return;
+                    NormalTypeWidget widget = (NormalTypeWidget) statusBar.getWidget("NormalTypeWidget");
+                    if (widget == null) return;
+                    widget.updateValue(types);
+                    statusBar.updateWidget("NormalTypeWidget");
+                });
+            }
+        }.queue();
+    }
+
+    @Override
+    public void update(@NotNull AnActionEvent e) {
+        e.getPresentation().setEnabled(e.getProject() != null && e.getData(CommonDataKeys.EDITOR) != null
+                && e.getData(CommonDataKeys.PSI_FILE) instanceof PyFile);
+    }
+
+    @Override
+    public @NotNull ActionUpdateThread getActionUpdateThread() {
+        return ActionUpdateThread.BGT;
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.sullyvahnn.flaskplugin.java.NormalTypeWidget;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Sums up call site sampling of one analysis, including searches made by child resolvers.
+ * Only searches that left out some call sites are counted.
+ */
+class CallSiteCoverage {
+    private int sampledCalls = 0;
+    private int foundCalls = 0;
+    private int visitedFiles = 0;
+    private int totalFiles = 0;
+
+    /**
+     * Records a finished search
+     *
+     * @param sampler sampler of the search
+     */
+    synchronized void record(CallSiteSampler sampler) {
+        if (!sampler.hasNext() && sampler.getSampledCalls() == sampler.getFoundCalls()) return;
+        sampledCalls += sampler.getSampledCalls();
+        foundCalls += sampler.getFoundCalls();
+        visitedFiles += sampler.getVisitedFiles();
+        totalFiles += sampler.getTotalFiles();
+    }
+
+    /**
+     * @return coverage text, or null if every search was exhaustive
+     */
+    synchronized @Nullable String describe() {
+        if (totalFiles == 0) return null;
+        return "sampled " + sampledCalls + " calls (of " + foundCalls + " found) in " + visitedFiles + " of " + totalFiles + " files";
+    }
+}
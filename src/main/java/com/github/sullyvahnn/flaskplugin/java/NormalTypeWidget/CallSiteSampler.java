@@ -0,0 +1,264 @@
+package com.github.sullyvahnn.flaskplugin.java.NormalTypeWidget;
+
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.PsiSearchHelper;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.jetbrains.python.PythonFileType;
+import com.jetbrains.python.psi.*;
+import com.jetbrains.python.psi.resolve.PyResolveContext;
+import com.jetbrains.python.psi.types.PyCallableParameter;
+import com.jetbrains.python.psi.types.PyCallableType;
+import com.jetbrains.python.psi.types.TypeEvalContext;
+import com.jetbrains.python.pyi.PyiUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Hands out call site arguments of a function in batches, stratified by module.
+ * <p>
+ * Candidate files come from the word index, so only files that are sampled get walked.
+ * The current file goes first, the rest round-robin over their directories, so every batch
+ * mixes call sites from different parts of the project. Files with many calls contribute an
+ * evenly spaced subset of them. In exhaustive mode every call site of every file is returned.
+ * Only calls whose callee resolves to the function count, so another {@code get} or {@code save}
+ * in the project does not contribute its arguments, and arguments are bound to parameters like Python does.
+ * <p>
+ * With a reduced budget, used for large files, batches are smaller and calls in the current file
+ * are found by a text search for the function name instead of a walk over its whole PSI tree.
+ */
+class CallSiteSampler {
+    /** Files walked per batch */
+    static final int FILES_PER_BATCH = 8;
+    /** Call sites taken from one file when sampling */
+    static final int MAX_CALLS_PER_FILE = 16;
+    /** Batches without a new type after which sampling stops */
+    static final int STABLE_BATCHES = 2;
+    /** Budget of a large current file */
+    static final int REDUCED_FILES_PER_BATCH = 4;
+    static final int REDUCED_CALLS_PER_FILE = 4;
+    static final int REDUCED_STABLE_BATCHES = 1;
+
+    private final List<PsiFile> files;
+    private final PyFunction function;
+    private final String functionName;
+    private final String parameterName;
+    private final boolean exhaustive;
+    private final boolean reduced;
+    private int nextFile = 0;
+    private int sampledCalls = 0;
+    private int foundCalls = 0;
+
+    /**
+     * @param function function whose call sites are sampled
+     * @param currentFile file in the editor, always walked first
+     * @param parameter parameter whose arguments are returned from every call
+     * @param exhaustive true to return every call site
+     * @param reduced true to sample with the smaller budget of a large file
+     */
+    CallSiteSampler(@NotNull PyFunction function, @NotNull PyNamedParameter parameter, @NotNull PsiFile currentFile,
+                    boolean exhaustive, boolean reduced) {
+        this.function = function;
+        this.functionName = Objects.requireNonNull(function.getName());
+        this.parameterName = Objects.requireNonNull(parameter.getName());
+        this.exhaustive = exhaustive;
+        this.reduced = reduced && !exhaustive;
+        this.files = findCandidateFiles(currentFile, functionName);
+    }
+
+    boolean hasNext() {
+        return nextFile < files.size();
+    }
+
+    /**
+     * @return batches without a new type after which sampling stops
+     */
+    int getStableBatches() {
+        return reduced ? REDUCED_STABLE_BATCHES : STABLE_BATCHES;
+    }
+
+    /**
+     * Walks the next files and returns arguments of the call sites taken from them
+     *
+     * @return arguments in file order
+     */
+    @NotNull List<PyExpression> nextBatch() {
+        List<PyExpression> batch = new ArrayList<>();
+        int end = Math.min(nextFile + (reduced ? REDUCED_FILES_PER_BATCH : FILES_PER_BATCH), files.size());
+        for (; nextFile < end; nextFile++) {
+            // the current file is first and it is the large one
+            List<PyExpression> arguments = reduced && nextFile == 0
+                    ? findArgumentsByText(files.get(nextFile), function, parameterName, REDUCED_CALLS_PER_FILE)
+                    : findArguments(files.get(nextFile), function, parameterName);
+            foundCalls += arguments.size();
+            List<PyExpression> taken = exhaustive ? arguments
+                    : spread(arguments, reduced ? REDUCED_CALLS_PER_FILE : MAX_CALLS_PER_FILE);
+            sampledCalls += taken.size();
+            batch.addAll(taken);
+        }
+        return batch;
+    }
+
+    int getSampledCalls() {
+        return sampledCalls;
+    }
+
+    /**
+     * @return calls found in the files walked so far, including those left out of the sample
+     */
+    int getFoundCalls() {
+        return foundCalls;
+    }
+
+    int getVisitedFiles() {
+        return nextFile;
+    }
+
+    int getTotalFiles() {
+        return files.size();
+    }
+
+    /**
+     * Gets arguments passed to a parameter by all calls of its function in one file
+     *
+     * @param file file to walk
+     * @param function called function
+     * @param parameterName name of the parameter
+     * @return arguments in file order
+     */
+    static @NotNull List<PyExpression> findArguments(@NotNull PsiFile file, @NotNull PyFunction function,
+                                                     @NotNull String parameterName) {
+        List<PyExpression> result = new ArrayList<>();
+        TypeEvalContext context = TypeEvalContext.codeAnalysis(file.getProject(), file);
+        file.accept(new PyRecursiveElementVisitor() {
+            @Override
+            public void visitPyCallExpression(@NotNull PyCallExpression node) {
+                super.visitPyCallExpression(node);
+                result.addAll(findArguments(node, function, parameterName, context));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Gets arguments of the first calls of a function in one file, found by searching the file text
+     * for the function name, so PSI is only looked at around the occurrences
+     *
+     * @param file file to search
+     * @param function called function
+     * @param parameterName name of the parameter
+     * @param limit number of calls after which the search stops
+     * @return arguments in file order
+     */
+    static @NotNull List<PyExpression> findArgumentsByText(@NotNull PsiFile file, @NotNull PyFunction function,
+                                                           @NotNull String parameterName, int limit) {
+        List<PyExpression> result = new ArrayList<>();
+        String functionName = Objects.requireNonNull(function.getName());
+        TypeEvalContext context = TypeEvalContext.codeAnalysis(file.getProject(), file);
+        CharSequence text = file.getViewProvider().getContents();
+        int offset = StringUtil.indexOf(text, functionName, 0);
+        int calls = 0;
+        while (offset >= 0 && calls < limit) {
+            PyReferenceExpression reference = PsiTreeUtil.getParentOfType(file.findElementAt(offset), PyReferenceExpression.class);
+            if (reference != null && reference.getParent() instanceof PyCallExpression call && call.getCallee() == reference) {
+                List<PyExpression> arguments = findArguments(call, function, parameterName, context);
+                if (!arguments.isEmpty()) calls++;
+                result.addAll(arguments);
+            }
+            offset = StringUtil.indexOf(text, functionName, offset + functionName.length());
+        }
+        return result;
+    }
+
+    /**
+     * Gets the arguments a call passes to a parameter, if the callee resolves to the parameter's function.
+     * Arguments are mapped the way Python binds them, so the self or cls of a method call, keyword
+     * arguments and defaults are accounted for. Unresolved calls are left out, a call of an unknown
+     * object's get or save says nothing about this function.
+     *
+     * @param call call to check
+     * @param function searched function
+     * @param parameterName name of the parameter
+     * @param context type evaluation context of the call's file
+     * @return arguments bound to the parameter, several for *args, empty if the call is not one of the function
+     */
+    static @NotNull List<PyExpression> findArguments(@NotNull PyCallExpression call, @NotNull PyFunction function,
+                                                     @NotNull String parameterName, @NotNull TypeEvalContext context) {
+        if (!(call.getCallee() instanceof PyReferenceExpression reference)) return List.of();
+        // mapping resolves the callee, most calls are ruled out by their name first
+        if (!Objects.equals(function.getName(), reference.getReferencedName())) return List.of();
+        for (PyCallExpression.PyArgumentsMapping mapping : call.multiMapArguments(PyResolveContext.defaultContext(context))) {
+            PyCallableType callableType = mapping.getCallableType();
+            PyCallable callable = callableType == null ? null : callableType.getCallable();
+            if (!(callable instanceof PyFunction target)) continue;
+            if (!target.equals(function) && !function.equals(PyiUtil.getOriginalElement(target))) continue;
+            List<PyExpression> arguments = new ArrayList<>();
+            for (Map.Entry<PyExpression, PyCallableParameter> entry : mapping.getMappedParameters().entrySet()) {
+                if (!parameterName.equals(entry.getValue().getName())) continue;
+                PyExpression argument = entry.getKey();
+                // f(*items) passes elements whose types are not the type of the list
+                if (argument instanceof PyStarArgument) continue;
+                if (argument instanceof PyKeywordArgument keyword) argument = keyword.getValueExpression();
+                if (argument != null) arguments.add(argument);
+            }
+            return arguments;
+        }
+        return List.of();
+    }
+
+    /**
+     * Takes evenly spaced call sites when a file has more than the given number
+     */
+    static <T> List<T> spread(List<T> arguments, int maxCalls) {
+        if (arguments.size() <= maxCalls) return arguments;
+        List<T> taken = new ArrayList<>(maxCalls);
+        double step = (double) arguments.size() / maxCalls;
+        for (int i = 0; i < maxCalls; i++) {
+            taken.add(arguments.get((int) (i * step)));
+        }
+        return taken;
+    }
+
+    /**
+     * Gets Python files containing the function name, current file first and the rest interleaved by directory.
+     * Only the current file is searched while indexes are not ready.
+     */
+    private static List<PsiFile> findCandidateFiles(@NotNull PsiFile currentFile, @NotNull String functionName) {
+        Project project = currentFile.getProject();
+        List<PsiFile> result = new ArrayList<>();
+        result.add(currentFile);
+        if (DumbService.isDumb(project)) return result;
+
+        GlobalSearchScope scope = GlobalSearchScope.getScopeRestrictedByFileTypes(
+                GlobalSearchScope.projectScope(project), PythonFileType.INSTANCE);
+        // directories sorted by path and files within them, so samples do not depend on index order
+        TreeMap<String, List<PsiFile>> byDirectory = new TreeMap<>();
+        PsiSearchHelper.getInstance(project).processAllFilesWithWord(functionName, scope, candidate -> {
+            VirtualFile virtualFile = candidate.getVirtualFile();
+            if (virtualFile == null || candidate.equals(currentFile)) return true;
+            VirtualFile directory = virtualFile.getParent();
+            byDirectory.computeIfAbsent(directory == null ? "" : directory.getPath(), k -> new ArrayList<>()).add(candidate);
+            return true;
+        }, true);
+        byDirectory.values().forEach(list -> list.sort(Comparator.comparing(PsiFile::getName)));
+
+        List<Iterator<PsiFile>> strata = new ArrayList<>();
+        byDirectory.values().forEach(list -> strata.add(list.iterator()));
+        boolean added = true;
+        while (added) {
+            added = false;
+            for (Iterator<PsiFile> stratum : strata) {
+                if (stratum.hasNext()) {
+                    result.add(stratum.next());
+                    added = true;
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,187 @@
+package com.github.sullyvahnn.flaskplugin.java.NormalTypeWidget;
+
+import com.jetbrains.python.psi.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Elements added to one container variable after its creation, like {@code items.append(user)}
+ * or {@code totals[name] = 0}.
+ * <p>
+ * The resolver fills it during its assignment pass and then rewrites container types it found
+ * for the variable, so {@code items = []} followed by appends reports {@code list[User | None]}
+ * instead of a bare {@code list}.
+ */
+class ContainerElements {
+    private static final Set<String> ELEMENT_METHODS = Set.of("append", "add", "insert", "appendleft");
+    private static final Set<String> ITERABLE_METHODS = Set.of("extend", "extendleft");
+    private static final Set<String> SEQUENCE_TYPES = Set.of("list", "set", "frozenset", "deque");
+    private static final String DICT_TYPE = "dict";
+
+    private final String name;
+    /** list and set items, dict values */
+    private final List<PyExpression> elements = new ArrayList<>();
+    /** iterables whose items were added with extend */
+    private final List<PyExpression> iterables = new ArrayList<>();
+    private final List<PyExpression> keys = new ArrayList<>();
+
+    /**
+     * @param name text of the container variable
+     */
+    ContainerElements(@NotNull String name) {
+        this.name = name;
+    }
+
+    boolean isEmpty() {
+        return elements.isEmpty() && iterables.isEmpty() && keys.isEmpty();
+    }
+
+    /**
+     * Records elements added by a method call on the container
+     *
+     * @param call any call in the analysed file
+     */
+    void addCall(@NotNull PyCallExpression call) {
+        if (!(call.getCallee() instanceof PyReferenceExpression callee) || !isContainer(callee.getQualifier())) return;
+        String method = callee.getReferencedName();
+        PyExpression[] arguments = call.getArguments();
+        if (method == null || arguments.length == 0) return;
+        if (ELEMENT_METHODS.contains(method)) {
+            // insert takes the index first
+            elements.add(arguments[arguments.length - 1]);
+        } else if (ITERABLE_METHODS.contains(method)) {
+            addIterable(arguments[0]);
+        } else if (method.equals("setdefault") && arguments.length == 2) {
+            keys.add(arguments[0]);
+            elements.add(arguments[1]);
+        } else if (method.equals("update")) {
+            for (PyExpression argument : arguments) {
+                if (argument instanceof PyKeywordArgument keywordArgument) {
+                    if (keywordArgument.getValueExpression() != null) elements.add(keywordArgument.getValueExpression());
+                } else if (argument instanceof PyDictLiteralExpression dict) {
+                    for (PyKeyValueExpression entry : dict.getElements()) {
+                        keys.add(entry.getKey());
+                        if (entry.getValue() != null) elements.add(entry.getValue());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Records an item assignment like {@code totals[name] = value}
+     *
+     * @param target assignment target
+     * @param value assigned value
+     */
+    void addItemAssignment(@NotNull PyExpression target, @NotNull PyExpression value) {
+        if (!(target instanceof PySubscriptionExpression subscription) || !isContainer(subscription.getOperand())) return;
+        // slices assign several items of a list
+        if (subscription.getIndexExpression() instanceof PySliceItem) {
+            addIterable(value);
+            return;
+        }
+        if (subscription.getIndexExpression() != null) keys.add(subscription.getIndexExpression());
+        elements.add(value);
+    }
+
+    private void addIterable(@NotNull PyExpression iterable) {
+        if (iterable instanceof PySequenceExpression sequence) {
+            elements.addAll(Arrays.asList(sequence.getElements()));
+        } else {
+            iterables.add(iterable);
+        }
+    }
+
+    private boolean isContainer(@Nullable PyExpression expression) {
+        return expression instanceof PyReferenceExpression reference
+                && !reference.isQualified() && name.equals(reference.getText());
+    }
+
+    /**
+     * Rewrites a container type with the recorded elements
+     *
+     * @param type type found for the variable, like "list" or "list[Any]"
+     * @param evaluator types of an expression, evaluated apart from the current results
+     * @return rewritten type, or the same type if it is not a container
+     */
+    @NotNull String apply(@NotNull String type, @NotNull Function<PyExpression, Collection<String>> evaluator) {
+        int bracket = type.indexOf('[');
+        String base = bracket < 0 ? type : type.substring(0, bracket);
+        String inner = bracket < 0 || !type.endsWith("]") ? "" : type.substring(bracket + 1, type.length() - 1);
+        if (SEQUENCE_TYPES.contains(base) && (!elements.isEmpty() || !iterables.isEmpty())) {
+            Set<String> elementTypes = initialTypes(inner);
+            evaluateAll(elements, evaluator, elementTypes);
+            for (PyExpression iterable : iterables) {
+                for (String iterableType : evaluator.apply(iterable)) {
+                    int start = iterableType.indexOf('[');
+                    if (start >= 0 && iterableType.endsWith("]")) {
+                        elementTypes.addAll(splitUnion(iterableType.substring(start + 1, iterableType.length() - 1)));
+                    }
+                }
+            }
+            return elementTypes.isEmpty() ? type : base + "[" + String.join(" | ", elementTypes) + "]";
+        }
+        if (DICT_TYPE.equals(base) && !elements.isEmpty()) {
+            int comma = topLevelComma(inner);
+            Set<String> keyTypes = initialTypes(comma < 0 ? "" : inner.substring(0, comma));
+            Set<String> valueTypes = initialTypes(comma < 0 ? "" : inner.substring(comma + 1));
+            evaluateAll(keys, evaluator, keyTypes);
+            evaluateAll(elements, evaluator, valueTypes);
+            if (valueTypes.isEmpty()) return type;
+            String keyType = keyTypes.isEmpty() ? "Any" : String.join(" | ", keyTypes);
+            return base + "[" + keyType + ", " + String.join(" | ", valueTypes) + "]";
+        }
+        return type;
+    }
+
+    private static void evaluateAll(List<PyExpression> expressions, Function<PyExpression, Collection<String>> evaluator,
+                                    Set<String> result) {
+        for (PyExpression expression : expressions) {
+            result.addAll(evaluator.apply(expression));
+        }
+    }
+
+    /**
+     * Element types already known from the literal, unknown ones are dropped
+     */
+    private static Set<String> initialTypes(String inner) {
+        Set<String> types = new LinkedHashSet<>(splitUnion(inner));
+        types.remove("Any");
+        types.remove("");
+        return types;
+    }
+
+    /**
+     * Splits union members outside of brackets, so "list[int | str] | None" gives two members
+     */
+    static List<String> splitUnion(String type) {
+        List<String> result = new ArrayList<>();
+        int start = 0;
+        int separator;
+        while ((separator = indexOfTopLevel(type, '|', start)) >= 0) {
+            result.add(type.substring(start, separator).trim());
+            start = separator + 1;
+        }
+        result.add(type.substring(start).trim());
+        return result;
+    }
+
+    private static int topLevelComma(String text) {
+        return indexOfTopLevel(text, ',', 0);
+    }
+
+    private static int indexOfTopLevel(String text, char wanted, int from) {
+        int depth = 0;
+        for (int i = from; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '[') depth++;
+            else if (c == ']') depth--;
+            else if (c == wanted && depth == 0) return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,348 @@
+package com.github.sullyvahnn.flaskplugin.java.NormalTypeWidget;
+
+import com.github.sullyvahnn.flaskplugin.java.Flask.FlaskApiTypeTable;
+import com.github.sullyvahnn.flaskplugin.java.Snapshot.SnapshotStore;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.intellij.ide.plugins.IdeaPluginDescriptor;
+import com.intellij.ide.plugins.PluginManagerCore;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.extensions.PluginId;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.psi.util.PsiUtilCore;
+import com.jetbrains.python.psi.PyFunction;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Return type summaries of installed library functions, shared by all open projects and kept across restarts.
+ * <p>
+ * Library code only changes when a package is reinstalled, so a summary of for example
+ * {@code flask.helpers.url_for} is computed once per interpreter environment and package version.
+ * The interpreter environment is identified by its library root, the site-packages directory, and
+ * the version comes from the {@code .dist-info} or {@code .egg-info} directory of the package, read again
+ * when the metadata directories of the root change. Summaries of one package live in a JSON file under
+ * the IDE system directory, written when new summaries were added and when the IDE exits. Files written
+ * by another snapshot version or plugin build are ignored.
+ */
+@Service(Service.Level.APP)
+public final class LibrarySummaryStore implements Disposable {
+    private static final Logger LOG = Logger.getInstance(LibrarySummaryStore.class);
+    private static final String FORMAT = "flask-types-library-summaries";
+    private static final String PLUGIN_ID = "com.github.sullyvahnn.flaskplugin";
+    /** Summaries depend on the analysis code and the built-in API table, so both are part of their version */
+    private static final String ANALYSIS_VERSION = SnapshotStore.VERSION + "/" + FlaskApiTypeTable.getVersion()
+            + "/" + getPluginVersion();
+    /** New summaries of a package after which it is written without waiting for exit */
+    private static final int SAVE_EVERY = 50;
+
+    /**
+     * Installed package in one interpreter environment
+     *
+     * @param root library root of the environment, usually its site-packages directory
+     * @param name import name of the top-level package or module
+     * @param version installed version
+     */
+    record PackageKey(String root, String name, String version) {
+    }
+
+    /**
+     * Installed versions of one library root
+     *
+     * @param structureStamp VFS structure modification count the versions were checked at
+     * @param metadataNames names of the metadata directories the versions were read from
+     * @param versions import name to installed version
+     */
+    private record RootVersions(long structureStamp, Set<String> metadataNames, Map<String, String> versions) {
+    }
+
+    private static final class PackageSummaries {
+        final Map<String, ReturnTypeSummaries.Summary> functions = new ConcurrentHashMap<>();
+        int unsaved = 0;
+    }
+
+    private final Path directory = PathManager.getSystemDir().resolve("flask-types").resolve("library-summaries");
+    private final Map<PackageKey, PackageSummaries> packages = new ConcurrentHashMap<>();
+    /** Installed versions per library root */
+    private final Map<String, RootVersions> versionsByRoot = new ConcurrentHashMap<>();
+
+    public static LibrarySummaryStore getInstance() {
+        return ApplicationManager.getApplication().getService(LibrarySummaryStore.class);
+    }
+
+    /**
+     * Gets the installed package a library function belongs to.
+     * Must be called inside a read action.
+     *
+     * @param function function to check
+     * @return package key, or null if the function is not in a versioned library
+     */
+    @Nullable PackageKey getPackageKey(@NotNull PyFunction function) {
+        VirtualFile file = PsiUtilCore.getVirtualFile(function);
+        if (file == null) return null;
+        ProjectFileIndex fileIndex = ProjectFileIndex.getInstance(function.getProject());
+        if (fileIndex.isInContent(file) || !fileIndex.isInLibraryClasses(file)) return null;
+        VirtualFile root = fileIndex.getClassRootForFile(file);
+        String relativePath = root == null ? null : VfsUtilCore.getRelativePath(file, root);
+        if (relativePath == null) return null;
+
+        int slash = relativePath.indexOf('/');
+        String name = slash < 0 ? FileUtil.getNameWithoutExtension(relativePath) : relativePath.substring(0, slash);
+        String version = getVersions(root).get(name);
+        return version == null ? null : new PackageKey(root.getPath(), name, version);
+    }
+
+    /**
+     * Gets a stored summary of a library function
+     *
+     * @param key package of the function
+     * @param qualifiedName qualified name of the function
+     * @return summary or null if it was not computed yet
+     */
+    @Nullable ReturnTypeSummaries.Summary get(@NotNull PackageKey key, @NotNull String qualifiedName) {
+        return getPackage(key).functions.get(qualifiedName);
+    }
+
+    /**
+     * Stores a summary of a library function
+     *
+     * @param key package of the function
+     * @param qualifiedName qualified name of the function
+     * @param summary computed summary
+     */
+    void put(@NotNull PackageKey key, @NotNull String qualifiedName, @NotNull ReturnTypeSummaries.Summary summary) {
+        PackageSummaries summaries = getPackage(key);
+        if (summaries.functions.putIfAbsent(qualifiedName, summary) != null) return;
+        boolean save;
+        synchronized (summaries) {
+            save = ++summaries.unsaved >= SAVE_EVERY;
+        }
+        if (save) ApplicationManager.getApplication().executeOnPooledThread(() -> save(key, summaries));
+    }
+
+    private PackageSummaries getPackage(PackageKey key) {
+        return packages.computeIfAbsent(key, this::load);
+    }
+
+    /**
+     * Gets versions of the packages installed in a library root, re-reading them after a package
+     * was installed, upgraded or removed, which renames its metadata directory
+     *
+     * @param root library root, usually site-packages
+     * @return import name to version
+     */
+    private Map<String, String> getVersions(@NotNull VirtualFile root) {
+        long stamp = VirtualFileManager.getInstance().getStructureModificationCount();
+        RootVersions cached = versionsByRoot.get(root.getPath());
+        if (cached != null && cached.structureStamp() == stamp) return cached.versions();
+        // most structure changes happen elsewhere, the metadata names tell if the root changed
+        Set<String> metadataNames = new HashSet<>();
+        for (VirtualFile child : root.getChildren()) {
+            if (getMetadataSuffix(child) != null) metadataNames.add(child.getName());
+        }
+        Map<String, String> versions = cached != null && cached.metadataNames().equals(metadataNames)
+                ? cached.versions() : readVersions(root);
+        versionsByRoot.put(root.getPath(), new RootVersions(stamp, metadataNames, versions));
+        return versions;
+    }
+
+    private static @Nullable String getMetadataSuffix(@NotNull VirtualFile child) {
+        String name = child.getName();
+        if (!child.isDirectory()) return null;
+        return name.endsWith(".dist-info") ? ".dist-info" : name.endsWith(".egg-info") ? ".egg-info" : null;
+    }
+
+    /**
+     * Reads versions of the packages installed in a library root from their metadata directories
+     *
+     * @param root library root, usually site-packages
+     * @return import name to version
+     */
+    private static Map<String, String> readVersions(@NotNull VirtualFile root) {
+        Map<String, String> versions = new HashMap<>();
+        for (VirtualFile child : root.getChildren()) {
+            String name = child.getName();
+            String suffix = getMetadataSuffix(child);
+            if (suffix == null) continue;
+            // Flask-3.0.3.dist-info, the project name may not be the import name
+            String base = name.substring(0, name.length() - suffix.length());
+            int dash = base.indexOf('-');
+            if (dash < 0) continue;
+            String version = base.substring(dash + 1);
+            List<String> importNames = new ArrayList<>();
+            VirtualFile topLevel = child.findChild("top_level.txt");
+            if (topLevel != null) {
+                try {
+                    for (String line : VfsUtilCore.loadText(topLevel).split("\n")) {
+                        if (!line.isBlank()) importNames.add(line.trim());
+                    }
+                } catch (IOException e) {
+                    LOG.debug("Cannot read " + topLevel.getPath(), e);
+                }
+            }
+            if (importNames.isEmpty()) {
+                importNames.add(base.substring(0, dash).toLowerCase(Locale.ROOT).replace('-', '_').replace('.', '_'));
+            }
+            for (String importName : importNames) {
+                versions.putIfAbsent(importName, version);
+            }
+        }
+        return versions;
+    }
+
+    private Path getPath(PackageKey key) {
+        return directory.resolve(hash(key.root())).resolve(key.name() + "-" + key.version() + ".json");
+    }
+
+    private PackageSummaries load(PackageKey key) {
+        PackageSummaries summaries = new PackageSummaries();
+        Path path = getPath(key);
+        if (!Files.isRegularFile(path)) return summaries;
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+             JsonReader json = new JsonReader(reader)) {
+            String analysisVersion = null;
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "format" -> {
+                        if (!FORMAT.equals(json.nextString())) return summaries;
+                    }
+                    case "analysisVersion" -> analysisVersion = json.nextString();
+                    case "functions" -> {
+                        // summaries of another analysis version, or of files without one, are recomputed
+                        if (!ANALYSIS_VERSION.equals(analysisVersion)) return summaries;
+                        json.beginObject();
+                        while (json.hasNext()) {
+                            String qualifiedName = json.nextName();
+                            summaries.functions.put(qualifiedName, readSummary(json));
+                        }
+                        json.endObject();
+                    }
+                    default -> json.skipValue();
+                }
+            }
+            json.endObject();
+        } catch (IOException | IllegalStateException e) {
+            LOG.warn("Cannot read library summaries " + path, e);
+            summaries.functions.clear();
+        }
+        return summaries;
+    }
+
+    private static ReturnTypeSummaries.Summary readSummary(JsonReader json) throws IOException {
+        List<ReturnTypeSummaries.ReturnType> types = new ArrayList<>();
+        boolean mayReturnNone = false;
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "mayReturnNone" -> mayReturnNone = json.nextBoolean();
+                case "types" -> {
+                    json.beginArray();
+                    while (json.hasNext()) {
+                        String type = null;
+                        int line = -1;
+                        boolean observed = false;
+                        json.beginObject();
+                        while (json.hasNext()) {
+                            switch (json.nextName()) {
+                                case "type" -> type = json.nextString();
+                                case "line" -> line = json.nextInt();
+                                case "observed" -> observed = json.nextBoolean();
+                                default -> json.skipValue();
+                            }
+                        }
+                        json.endObject();
+                        if (type != null) types.add(new ReturnTypeSummaries.ReturnType(type, line, observed));
+                    }
+                    json.endArray();
+                }
+                default -> json.skipValue();
+            }
+        }
+        json.endObject();
+        return new ReturnTypeSummaries.Summary(List.copyOf(types), mayReturnNone);
+    }
+
+    /**
+     * Writes summaries of one package, replacing the previous file at once
+     */
+    private void save(PackageKey key, PackageSummaries summaries) {
+        synchronized (summaries) {
+            if (summaries.unsaved == 0) return;
+            summaries.unsaved = 0;
+        }
+        Path path = getPath(key);
+        try {
+            Files.createDirectories(path.getParent());
+            Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8);
+                 JsonWriter json = new JsonWriter(writer)) {
+                json.beginObject();
+                json.name("format").value(FORMAT);
+                json.name("analysisVersion").value(ANALYSIS_VERSION);
+                json.name("root").value(key.root());
+                json.name("package").value(key.name());
+                json.name("packageVersion").value(key.version());
+                json.name("functions").beginObject();
+                for (Map.Entry<String, ReturnTypeSummaries.Summary> entry : new TreeMap<>(summaries.functions).entrySet()) {
+                    json.name(entry.getKey()).beginObject();
+                    json.name("mayReturnNone").value(entry.getValue().mayReturnNone());
+                    json.name("types").beginArray();
+                    for (ReturnTypeSummaries.ReturnType type : entry.getValue().types()) {
+                        json.beginObject();
+                        json.name("type").value(type.type());
+                        json.name("line").value(type.lineNumber());
+                        if (type.observed()) json.name("observed").value(true);
+                        json.endObject();
+                    }
+                    json.endArray();
+                    json.endObject();
+                }
+                json.endObject();
+                json.endObject();
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.warn("Cannot write library summaries " + path, e);
+        }
+    }
+
+    private static String getPluginVersion() {
+        IdeaPluginDescriptor plugin = PluginManagerCore.getPlugin(PluginId.getId(PLUGIN_ID));
+        return plugin == null ? "" : plugin.getVersion();
+    }
+
+    private static String hash(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        packages.forEach(this::save);
+    }
+}
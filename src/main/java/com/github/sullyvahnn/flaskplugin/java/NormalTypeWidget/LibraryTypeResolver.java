@@ -0,0 +1,41 @@
+package com.github.sullyvahnn.flaskplugin.java.NormalTypeWidget;
+
+/**
+ * Resolver for return summaries of installed library functions, which are shared by all projects.
+ * <p>
+ * Everything that depends on the open project is left out: call sites are not searched, so unannotated
+ * parameters have no types, the config and model indexes are skipped, only the built-in Flask API table
+ * is used and neither generated stubs nor runtime traces are merged in.
+ */
+class LibraryTypeResolver extends VariableTypeResolver {
+    @Override
+    protected boolean isProjectIndependent() {
+        return true;
+    }
+
+    /**
+     * Stubs are generated for project modules from project call sites
+     */
+    @Override
+    protected boolean usesGeneratedStubs() {
+        return false;
+    }
+
+    /**
+     * Traces are recorded by one project's runs
+     */
+    @Override
+    protected boolean usesRuntimeTraces() {
+        return false;
+    }
+
+    @Override
+    protected ReturnTypeSummaries.Mode getSummaryMode() {
+        return ReturnTypeSummaries.Mode.LIBRARY;
+    }
+
+    @Override
+    protected VariableTypeResolver createChild() {
+        return new LibraryTypeResolver();
+    }
+}
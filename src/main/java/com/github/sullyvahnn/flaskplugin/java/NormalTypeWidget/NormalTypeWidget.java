@@ -28,8 +28,10 @@ import java.awt.*;
 import java.awt.event.MouseEvent;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * A status bar widget for IntelliJ IDEA that displays type information and allows users
@@ -42,6 +44,12 @@ import java.util.Map;
 public class NormalTypeWidget extends EditorBasedWidget
         implements StatusBarWidget.TextPresentation {
 
+    /** Default number of types above which a variable is considered polymorphic */
+    public static final int DEFAULT_TYPES_COUNT_WARNING = 3;
+
+    /** Appended to types seen in runtime traces */
+    protected static final String OBSERVED_MARK = "*";
+
     /** Message displayed in the status bar */
     protected String message;
 
@@ -60,9 +68,15 @@ public class NormalTypeWidget extends EditorBasedWidget
     /** Map of type names to the line numbers where they appear */
     protected final Map<String, List<Integer>> typeLines = new HashMap<>();
 
+    /** Type names seen in runtime traces */
+    protected final Set<String> observedTypes = new HashSet<>();
+
     /** Tracks the editor where the mouse listener is currently attached */
     private Editor currentListenerEditor = null;
 
+    /** Note about results being approximate, like call site sampling coverage, or null */
+    protected @Nullable String approximationNote = null;
+
     /**
      * Creates a new NormalTypeWidget for the specified project.
      *
@@ -70,7 +84,7 @@ public class NormalTypeWidget extends EditorBasedWidget
      */
     public NormalTypeWidget(@NotNull Project project) {
         super(project);
-        typesCountWarning = 3;
+        typesCountWarning = DEFAULT_TYPES_COUNT_WARNING;
         message = "";
 
         // Create a mouse listener to remove highlight when user clicks
@@ -112,7 +126,12 @@ public class NormalTypeWidget extends EditorBasedWidget
         if (typeCounts.isEmpty()) {
             return "No types available";
         }
-        return "Click to view " + typeCounts.size() + " types";
+        String observed = observedTypes.isEmpty() ? "" : ", " + OBSERVED_MARK + " marks types seen in runtime traces";
+        if (approximationNote != null) {
+            return "Click to view " + typeCounts.size() + " partial types (" + approximationNote
+                    + "). Use Infer Types from All Call Sites for exact results" + observed;
+        }
+        return "Click to view " + typeCounts.size() + " types" + observed;
     }
 
     /**
@@ -170,7 +189,8 @@ public class NormalTypeWidget extends EditorBasedWidget
         // Create a list of type names for the popup with better formatting
         List<String> typeItems = new ArrayList<>();
         for (Map.Entry<String, Integer> entry : typeCounts.entrySet()) {
-            String typeMessage = entry.getKey() + " (" + entry.getValue() + " occurrences)";
+            String observed = observedTypes.contains(entry.getKey()) ? ", observed at runtime" : "";
+            String typeMessage = entry.getKey() + " (" + entry.getValue() + " occurrences" + observed + ")";
             typeItems.add(typeMessage);
         }
         return typeItems;
@@ -368,8 +388,21 @@ public class NormalTypeWidget extends EditorBasedWidget
      * @param expressionDataList List of expression data to analyze
      */
     public void updateValue(List<ExpressionData> expressionDataList) {
+        updateValue(expressionDataList, null);
+    }
+
+    /**
+     * Updates the widget with new expression data that may be approximate.
+     * Approximate results are marked with "≈" in the status bar and explained in the tooltip.
+     *
+     * @param expressionDataList List of expression data to analyze
+     * @param approximationNote why the results are approximate, or null if they are exact
+     */
+    public void updateValue(List<ExpressionData> expressionDataList, @Nullable String approximationNote) {
+        this.approximationNote = approximationNote;
         typeLines.clear();
         typeCounts.clear();
+        observedTypes.clear();
 
         // Count occurrences of each type and collect line numbers
         for (ExpressionData data : expressionDataList) {
@@ -378,6 +411,7 @@ public class NormalTypeWidget extends EditorBasedWidget
 
             // Add this line number to the type's list
             typeLines.computeIfAbsent(data.type.trim(), k -> new ArrayList<>()).add(data.lineNumber);
+            if (data.observed) observedTypes.add(data.type.trim());
         }
 
         updateMessageString();
@@ -408,7 +442,9 @@ public class NormalTypeWidget extends EditorBasedWidget
                 if (count > 0) {
                     sb.append(", ");
                 }
-                sb.append(entry.getKey()).append(" (").append(entry.getValue()).append(")");
+                sb.append(entry.getKey());
+                if (observedTypes.contains(entry.getKey())) sb.append(OBSERVED_MARK);
+                sb.append(" (").append(entry.getValue()).append(")");
                 count++;
 
                 if (count >= displayLimit) {
@@ -422,6 +458,9 @@ public class NormalTypeWidget extends EditorBasedWidget
 
             message = sb.toString();
         }
+        if (approximationNote != null) {
+            message = "≈ " + message;
+        }
 
         // Update the widget in the status bar
         if (getStatusBar() != null) {
@@ -0,0 +1,412 @@
+package com.github.sullyvahnn.flaskplugin.java.NormalTypeWidget;
+
+import com.github.sullyvahnn.flaskplugin.java.ExpressionData.ExpressionData;
+import com.github.sullyvahnn.flaskplugin.java.Snapshot.SnapshotStore;
+import com.github.sullyvahnn.flaskplugin.java.TypeAnalysis.AnalysisMemoryCache;
+import com.github.sullyvahnn.flaskplugin.java.TypeAnalysis.TypeAnalysisCache;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiReference;
+import com.intellij.psi.util.PsiUtilCore;
+import com.jetbrains.python.psi.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Return type summaries of functions, computed by fixpoint iteration over strongly connected
+ * components of the call graph.
+ * <p>
+ * A recursive function cannot be summarised by walking its returns, because evaluating
+ * {@code return walk(node.left)} needs the summary being computed. Instead the component of
+ * mutually recursive functions around the requested one is found with Tarjan's algorithm, every
+ * member starts with no types, and their returns are re-evaluated against the current summaries
+ * until nothing changes. Types only grow and are bounded, so this ends after a few rounds.
+ * A function summarised while another component is iterated may read that component's approximations,
+ * for example through a call the graph walk did not follow. Such a summary is used but never cached,
+ * and the component reached this way is iterated as recursive.
+ * Summaries hold no PSI and are kept in the {@link AnalysisMemoryCache} until the PSI changes. Once a component
+ * is done the summaries of all its members are kept, so asking for another member does not walk the graph again.
+ * Regular summaries of project functions are taken from the imported {@link SnapshotStore} while it is current.
+ * Summaries of installed library functions go to the {@link LibrarySummaryStore} instead,
+ * which shares them between projects and keeps them for the package version. They are computed
+ * by a {@link LibraryTypeResolver}, so nothing of the project that asked first ends up in them.
+ */
+public final class ReturnTypeSummaries {
+    /** Calls followed from one function when building its component, keeps the graph walk bounded */
+    private static final int MAX_GRAPH_SIZE = 200;
+    private static final int MAX_ITERATIONS = 8;
+    /** Summaries of components being iterated on this thread, answered instead of recursing */
+    private static final ThreadLocal<Map<PyFunction, Summary>> ACTIVE = ThreadLocal.withInitial(HashMap::new);
+    /** Functions whose active approximations were read on this thread since the current summary started */
+    private static final ThreadLocal<Set<PyFunction>> ACTIVE_READS = ThreadLocal.withInitial(HashSet::new);
+
+    /**
+     * Return types of one function
+     *
+     * @param types types of all return expressions
+     * @param mayReturnNone true if a return is conditional, so the function may fall through
+     */
+    public record Summary(List<ReturnType> types, boolean mayReturnNone) {
+        static final Summary EMPTY = new Summary(List.of(), false);
+
+        public Set<String> typeNames() {
+            Set<String> names = new LinkedHashSet<>();
+            for (ReturnType type : types) {
+                names.add(type.type().trim());
+            }
+            if (mayReturnNone) names.add("None");
+            return names;
+        }
+
+        long estimateWeight() {
+            List<String> names = new ArrayList<>();
+            for (ReturnType type : types) {
+                names.add(type.type());
+            }
+            return AnalysisMemoryCache.estimateWeight(names) + 24L * types.size();
+        }
+    }
+
+    /**
+     * Type of one return expression
+     *
+     * @param type type name
+     * @param lineNumber line of the return in its file
+     * @param observed true if the type was seen in runtime traces, like one returned by a traced callee
+     */
+    public record ReturnType(String type, int lineNumber, boolean observed) {
+    }
+
+    /**
+     * Resolver kind return expressions are evaluated with
+     */
+    public enum Mode {
+        /** Regular analysis shown in the editor */
+        DEFAULT,
+        /** Exhaustive analysis of the code alone, for types written into files, see {@link SourceTypeResolver} */
+        SOURCE,
+        /** Analysis without project inputs, for summaries shared between projects, see {@link LibraryTypeResolver} */
+        LIBRARY;
+
+        VariableTypeResolver createResolver() {
+            return switch (this) {
+                case DEFAULT -> new VariableTypeResolver();
+                case SOURCE -> new SourceTypeResolver();
+                case LIBRARY -> new LibraryTypeResolver();
+            };
+        }
+    }
+
+    /**
+     * Result of a summary computation
+     *
+     * @param summary computed summary
+     * @param component final summaries of every member of the function's component, the function included
+     * @param provisional true if it depends on approximations of a component still being iterated
+     */
+    private record Computed(Summary summary, Map<PyFunction, Summary> component, boolean provisional) {
+    }
+
+    /**
+     * Summaries active on one thread, handed over to worker threads together with the approximations they read
+     */
+    static final class ActiveSummaries {
+        private final Map<PyFunction, Summary> summaries;
+        private final Set<PyFunction> reads = ConcurrentHashMap.newKeySet();
+
+        private ActiveSummaries(Map<PyFunction, Summary> summaries) {
+            this.summaries = summaries;
+        }
+    }
+
+    /**
+     * Key of a cached summary, free of PSI
+     *
+     * @param project location hash of the project
+     * @param fileUrl URL of the function's file
+     * @param offset text offset of the function
+     * @param stamp analysis stamp the summary was computed at
+     * @param mode resolver kind the summary was computed with
+     */
+    private record SummaryKey(String project, String fileUrl, int offset, long stamp, Mode mode) {
+    }
+
+    private ReturnTypeSummaries() {
+    }
+
+    /**
+     * Gets the return summary of a function.
+     * Functions of a component still being iterated give their current approximation.
+     *
+     * @param function function to summarise
+     * @return summary, empty for functions without returns
+     */
+    public static @NotNull Summary getSummary(@NotNull PyFunction function) {
+        return getSummary(function, Mode.DEFAULT);
+    }
+
+    /**
+     * Gets the return summary of a function computed by the given resolver kind.
+     * Functions of installed packages are always summarised in {@link Mode#LIBRARY}.
+     *
+     * @param function function to summarise
+     * @param mode resolver kind evaluating the returns
+     * @return summary, empty for functions without returns
+     */
+    public static @NotNull Summary getSummary(@NotNull PyFunction function, @NotNull Mode mode) {
+        Summary active = ACTIVE.get().get(function);
+        if (active != null) {
+            // whatever is computed from an approximation is only valid until its component is done
+            ACTIVE_READS.get().add(function);
+            return active;
+        }
+        Summary library = getLibrarySummary(function);
+        if (library != null) return library;
+        if (mode == Mode.DEFAULT) {
+            // the snapshot was computed by the regular analysis, written types never come from it
+            Summary snapshot = SnapshotStore.getInstance(function.getProject()).getSummary(function);
+            if (snapshot != null) return snapshot;
+        }
+        SummaryKey key = getKey(function, mode);
+        if (key == null) return computeSummary(function, mode).summary();
+        AnalysisMemoryCache cache = AnalysisMemoryCache.getInstance();
+        Summary cached = cache.get(key, Summary.class);
+        if (cached != null) return cached;
+        Computed computed = computeSummary(function, mode);
+        if (computed.provisional()) return computed.summary();
+        // every member reached its fixpoint together with the function
+        for (Map.Entry<PyFunction, Summary> member : computed.component().entrySet()) {
+            SummaryKey memberKey = getKey(member.getKey(), mode);
+            if (memberKey != null) cache.put(memberKey, member.getValue(), member.getValue().estimateWeight());
+        }
+        return computed.summary();
+    }
+
+    private static @Nullable SummaryKey getKey(@NotNull PyFunction function, @NotNull Mode mode) {
+        VirtualFile file = PsiUtilCore.getVirtualFile(function);
+        if (file == null) return null;
+        Project project = function.getProject();
+        return new SummaryKey(project.getLocationHash(), file.getUrl(), function.getTextOffset(),
+                TypeAnalysisCache.getAnalysisStamp(project), mode);
+    }
+
+    /**
+     * Gets the summary of a function of an installed package, computing it once per package version
+     *
+     * @param function function to summarise
+     * @return summary or null if the function is not in a versioned library
+     */
+    private static @Nullable Summary getLibrarySummary(@NotNull PyFunction function) {
+        String qualifiedName = function.getQualifiedName();
+        if (qualifiedName == null) return null;
+        LibrarySummaryStore store = LibrarySummaryStore.getInstance();
+        LibrarySummaryStore.PackageKey key = store.getPackageKey(function);
+        if (key == null) return null;
+        Summary stored = store.get(key, qualifiedName);
+        if (stored != null) return stored;
+        // stored summaries are shared, so they must not depend on the project asking for them
+        Computed computed = computeSummary(function, Mode.LIBRARY);
+        if (!computed.provisional()) store.put(key, qualifiedName, computed.summary());
+        return computed.summary();
+    }
+
+    private static Computed computeSummary(@NotNull PyFunction function, @NotNull Mode mode) {
+        List<PyFunction> component = findComponent(function);
+        boolean recursive = component.size() > 1 || getCallees(function).contains(function);
+        Map<PyFunction, Summary> active = ACTIVE.get();
+        Set<PyFunction> outerReads = ACTIVE_READS.get();
+        Set<PyFunction> reads = new HashSet<>();
+        ACTIVE_READS.set(reads);
+        for (PyFunction member : component) {
+            active.put(member, Summary.EMPTY);
+        }
+        try {
+            for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+                boolean changed = false;
+                for (PyFunction member : component) {
+                    Summary updated = evaluateReturns(member, mode);
+                    if (!updated.typeNames().equals(active.get(member).typeNames())) changed = true;
+                    active.put(member, updated);
+                }
+                // a member reached through a call the graph walk missed, like one found by name
+                // or cut off by MAX_GRAPH_SIZE, makes the component recursive after all
+                if (!recursive && component.stream().anyMatch(reads::contains)) recursive = true;
+                // without recursion the first round already used final summaries of all callees
+                if (!changed || !recursive) break;
+            }
+            reads.removeAll(component);
+            // the caller depends on the same approximations of outer components
+            outerReads.addAll(reads);
+            Map<PyFunction, Summary> summaries = new HashMap<>();
+            for (PyFunction member : component) {
+                summaries.put(member, active.get(member));
+            }
+            return new Computed(active.get(function), summaries, !reads.isEmpty());
+        } finally {
+            ACTIVE_READS.set(outerReads);
+            for (PyFunction member : component) {
+                active.remove(member);
+            }
+        }
+    }
+
+    /**
+     * Evaluates every return of a function once, against the current summaries
+     */
+    private static Summary evaluateReturns(@NotNull PyFunction function, @NotNull Mode mode) {
+        List<PyExpression> values = new ArrayList<>();
+        boolean[] mayReturnNone = {false};
+        function.getStatementList().accept(new PyRecursiveElementVisitor() {
+            @Override
+            public void visitPyReturnStatement(@NotNull PyReturnStatement returnStatement) {
+                if (VariableTypeResolver.isReturnUnreachable(returnStatement)) mayReturnNone[0] = true;
+                PyExpression value = returnStatement.getExpression();
+                if (value != null) values.add(value);
+            }
+
+            @Override
+            public void visitPyFunction(@NotNull PyFunction node) {
+                // returns of nested functions belong to them
+            }
+        });
+        // returns are independent, each one is evaluated by its own resolver
+        List<ReturnType> types = new ArrayList<>();
+        for (List<ExpressionData> returnTypes : VariableTypeResolver.evaluateBranches(values,
+                value -> mode.createResolver().getExpressionTypes(value))) {
+            for (ExpressionData data : returnTypes) {
+                types.add(new ReturnType(data.type, data.lineNumber, data.observed));
+            }
+        }
+        return new Summary(List.copyOf(types), mayReturnNone[0]);
+    }
+
+    /**
+     * Copies summaries of components being iterated on this thread, for handing over to worker threads
+     */
+    static ActiveSummaries snapshotActive() {
+        return new ActiveSummaries(new HashMap<>(ACTIVE.get()));
+    }
+
+    /**
+     * Runs an action with the given summaries active on the current thread
+     * Approximations read by the action are recorded in the snapshot, see {@link #collectReads}
+     *
+     * @param active summaries taken with {@link #snapshotActive()}
+     * @param action action to run
+     * @return result of the action
+     */
+    static <T> T runWithActive(ActiveSummaries active, Supplier<T> action) {
+        Map<PyFunction, Summary> previous = ACTIVE.get();
+        Set<PyFunction> previousReads = ACTIVE_READS.get();
+        Set<PyFunction> reads = new HashSet<>();
+        ACTIVE.set(new HashMap<>(active.summaries));
+        ACTIVE_READS.set(reads);
+        try {
+            return action.get();
+        } finally {
+            active.reads.addAll(reads);
+            ACTIVE.set(previous);
+            ACTIVE_READS.set(previousReads);
+        }
+    }
+
+    /**
+     * Adds approximations read on worker threads to the reads of the current thread, once the workers are done
+     *
+     * @param active snapshot the workers ran with
+     */
+    static void collectReads(ActiveSummaries active) {
+        ACTIVE_READS.get().addAll(active.reads);
+    }
+
+    /**
+     * Finds the strongly connected component of the call graph containing the function,
+     * using Tarjan's algorithm over project functions reachable from it
+     *
+     * @param function start of the walk
+     * @return members of the component, the function itself when it is not mutually recursive
+     */
+    static List<PyFunction> findComponent(@NotNull PyFunction function) {
+        Tarjan tarjan = new Tarjan();
+        tarjan.visit(function);
+        for (List<PyFunction> component : tarjan.components) {
+            if (component.contains(function)) return component;
+        }
+        return List.of(function);
+    }
+
+    /**
+     * Gets project functions called in the body of a function, nested definitions excluded
+     */
+    private static Set<PyFunction> getCallees(@NotNull PyFunction function) {
+        Set<PyFunction> callees = new LinkedHashSet<>();
+        ProjectFileIndex fileIndex = ProjectFileIndex.getInstance(function.getProject());
+        function.getStatementList().accept(new PyRecursiveElementVisitor() {
+            @Override
+            public void visitPyCallExpression(@NotNull PyCallExpression call) {
+                super.visitPyCallExpression(call);
+                PyExpression callee = call.getCallee();
+                PsiReference reference = callee == null ? null : callee.getReference();
+                PsiElement resolved = reference == null ? null : reference.resolve();
+                if (!(resolved instanceof PyFunction target)) return;
+                VirtualFile file = PsiUtilCore.getVirtualFile(target);
+                if (file != null && fileIndex.isInContent(file)) callees.add(target);
+            }
+
+            @Override
+            public void visitPyFunction(@NotNull PyFunction node) {
+            }
+
+            @Override
+            public void visitPyClass(@NotNull PyClass node) {
+            }
+        });
+        return callees;
+    }
+
+    /**
+     * Tarjan's strongly connected components, components are emitted callees first
+     */
+    private static final class Tarjan {
+        final List<List<PyFunction>> components = new ArrayList<>();
+        private final Map<PyFunction, Integer> index = new HashMap<>();
+        private final Map<PyFunction, Integer> lowLink = new HashMap<>();
+        private final Deque<PyFunction> stack = new ArrayDeque<>();
+        private final Set<PyFunction> onStack = new HashSet<>();
+
+        void visit(PyFunction function) {
+            int current = index.size();
+            index.put(function, current);
+            lowLink.put(function, current);
+            stack.push(function);
+            onStack.add(function);
+
+            for (PyFunction callee : getCallees(function)) {
+                if (!index.containsKey(callee)) {
+                    if (index.size() >= MAX_GRAPH_SIZE) continue;
+                    visit(callee);
+                    lowLink.put(function, Math.min(lowLink.get(function), lowLink.get(callee)));
+                } else if (onStack.contains(callee)) {
+                    lowLink.put(function, Math.min(lowLink.get(function), index.get(callee)));
+                }
+            }
+
+            if (lowLink.get(function).equals(index.get(function))) {
+                List<PyFunction> component = new ArrayList<>();
+                PyFunction member;
+                do {
+                    member = stack.pop();
+                    onStack.remove(member);
+                    component.add(member);
+                } while (member != function);
+                components.add(component);
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.github.sullyvahnn.flaskplugin.java.NormalTypeWidget;
+
+/**
+ * Resolver for types that are written into files, like generated stubs and inferred annotations.
+ * <p>
+ * Every call site is evaluated instead of a sample, large files get no reduced budget, and only the
+ * code itself is used: generated stubs would feed their own old types back, and types seen in runtime
+ * traces were never inferred from the code.
+ */
+public class SourceTypeResolver extends VariableTypeResolver {
+    public SourceTypeResolver() {
+        setExhaustive(true);
+    }
+
+    @Override
+    protected boolean usesGeneratedStubs() {
+        return false;
+    }
+
+    @Override
+    protected boolean usesRuntimeTraces() {
+        return false;
+    }
+
+    @Override
+    protected ReturnTypeSummaries.Mode getSummaryMode() {
+        return ReturnTypeSummaries.Mode.SOURCE;
+    }
+
+    @Override
+    protected VariableTypeResolver createChild() {
+        return new SourceTypeResolver();
+    }
+}
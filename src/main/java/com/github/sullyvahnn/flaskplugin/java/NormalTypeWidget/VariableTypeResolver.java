@@ -1,8 +1,22 @@
 package com.github.sullyvahnn.flaskplugin.java.NormalTypeWidget;
 
 import com.github.sullyvahnn.flaskplugin.java.ExpressionData.ExpressionData;
+import com.github.sullyvahnn.flaskplugin.java.Flask.FlaskApiTypeTable;
+import com.github.sullyvahnn.flaskplugin.java.Flask.FlaskConfigIndex;
+import com.github.sullyvahnn.flaskplugin.java.Flask.FlaskModelIndex;
+import com.github.sullyvahnn.flaskplugin.java.Flask.FlaskRouteIndex;
+import com.github.sullyvahnn.flaskplugin.java.Flask.FormFieldSummaries;
+import com.github.sullyvahnn.flaskplugin.java.RuntimeTraces.RuntimeTraceIndex;
+import com.github.sullyvahnn.flaskplugin.java.RuntimeTraces.RuntimeTraceStore;
+import com.github.sullyvahnn.flaskplugin.java.StubGeneration.GeneratedStubs;
+import com.github.sullyvahnn.flaskplugin.java.TypeAnalysis.ClassAttributeTable;
+import com.github.sullyvahnn.flaskplugin.java.TypeAnalysis.LargeFileMode;
+import com.github.sullyvahnn.flaskplugin.java.Flask.RenderTemplateIndex;
+import com.intellij.concurrency.JobLauncher;
 import com.intellij.openapi.editor.event.CaretEvent;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiDocumentManager;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
@@ -19,14 +33,35 @@ import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.Unmodifiable;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
 
 public class VariableTypeResolver {
+    /** Expressions currently resolved by detached resolvers on this thread */
+    private static final ThreadLocal<Set<PsiElement>> DETACHED_IN_PROGRESS = ThreadLocal.withInitial(HashSet::new);
+    /** Fewer branches are evaluated on the calling thread, forking them costs more than it saves */
+    private static final int PARALLEL_BRANCH_THRESHOLD = 4;
+
     protected List<ExpressionData> collectedTypes;
     protected TypeEvalContext context;
     protected PsiElement element;
     protected PsiElement scope;
     PsiFile file;
     protected boolean isError = false;
+    /** Attribute assignments already evaluated, guards against cycles like self.a = self.b; self.b = self.a */
+    protected Set<PyTargetExpression> visitedAttributeTargets = new HashSet<>();
+    /** Functions whose returns are being walked, a call to one of them again is answered from its summary */
+    protected Set<PyFunction> functionsInProgress = new HashSet<>();
+    /** Variables whose assignments are being searched, guards against cycles like a = b; b = a */
+    protected Set<String> variablesInProgress = new HashSet<>();
+    /** Parameters whose call sites are being searched, guards against recursive calls passing them on */
+    protected Set<PyParameter> parametersInProgress = new HashSet<>();
+    /** Evaluate every call site instead of sampling them */
+    private boolean exhaustive = false;
+    /** Call site coverage of the current analysis, shared with child resolvers */
+    private CallSiteCoverage coverage = new CallSiteCoverage();
+    /** Analysed file is too large for whole-file searches, see {@link LargeFileMode} */
+    private boolean largeFile = false;
 
     /**
      * Gets possible types for the element at the current caret position.
@@ -36,12 +71,110 @@ public class VariableTypeResolver {
      * @return List of expression data containing possible types, or null if an error occurred
      */
     public @Nullable List<ExpressionData> getPossibleTypes(CaretEvent event) {
+        PsiFile psiFile = getPsiFile(event);
+        largeFile = false;
+        if (psiFile != null && !(psiFile instanceof PyFile)) {
+            return getTemplateVariableTypes(event, psiFile);
+        }
         initializeElements(event);
+        return collectPossibleTypes();
+    }
+
+    /**
+     * Gets types of the expression itself, as if it was assigned to a variable.
+     * Used for values that are not bound to any name, like render_template arguments.
+     *
+     * @param expression expression to evaluate
+     * @return List of expression data containing possible types
+     */
+    public @NotNull List<ExpressionData> getExpressionTypes(@NotNull PyExpression expression) {
+        collectedTypes = new ArrayList<>();
+        coverage = new CallSiteCoverage();
+        visitedAttributeTargets = new HashSet<>();
+        functionsInProgress = new HashSet<>();
+        variablesInProgress = new HashSet<>();
+        parametersInProgress = new HashSet<>();
+        isError = false;
+        element = expression;
+        file = expression.getContainingFile();
+        scope = getScope(expression);
+        if (file == null || scope == null) return collectedTypes;
+        largeFile = !exhaustive && LargeFileMode.isLargeFile(file);
+        context = TypeEvalContext.codeAnalysis(file.getProject(), file);
+        evaluateType(expression);
+        return collectedTypes;
+    }
+
+    /**
+     * Gets types of a template variable under caret from the render_template calls of all views
+     * Types come from other files, so they are reported without line numbers
+     *
+     * @param event The caret event
+     * @param templateFile template open in the editor
+     * @return List of expression data containing possible types
+     */
+    protected List<ExpressionData> getTemplateVariableTypes(@NotNull CaretEvent event, @NotNull PsiFile templateFile) {
+        collectedTypes = new ArrayList<>();
+        VirtualFile virtualFile = templateFile.getVirtualFile();
+        String templateName = virtualFile == null ? null : RenderTemplateIndex.getTemplateName(virtualFile);
+        String name = getIdentifierAtCaret(event);
+        if (templateName == null || name == null) return collectedTypes;
+
+        List<ExpressionData> types = RenderTemplateIndex.getContextTypes(templateFile.getProject(), templateName).get(name);
+        if (types == null) return collectedTypes;
+        for (ExpressionData data : types) {
+            collectedTypes.add(new ExpressionData(data.expression, data.type, -1, data.observed));
+        }
+        return collectedTypes;
+    }
+
+    /**
+     * Gets identifier characters around the caret from the document text
+     *
+     * @param event The caret event
+     * @return identifier or null if caret is not on one
+     */
+    private static @Nullable String getIdentifierAtCaret(@NotNull CaretEvent event) {
+        CharSequence text = event.getEditor().getDocument().getCharsSequence();
+        int offset = Objects.requireNonNull(event.getCaret()).getOffset();
+        int start = offset;
+        int end = offset;
+        while (start > 0 && Character.isJavaIdentifierPart(text.charAt(start - 1))) start--;
+        while (end < text.length() && Character.isJavaIdentifierPart(text.charAt(end))) end++;
+        return start == end ? null : text.subSequence(start, end).toString();
+    }
+
+    /**
+     * Gets possible types for an identifier without an editor.
+     * Used by inspections and project-wide analysis, where there is no caret to start from.
+     *
+     * @param identifier reference, target expression or named parameter to analyse
+     * @return List of expression data containing possible types
+     */
+    public @Nullable List<ExpressionData> getPossibleTypes(@Nullable PsiElement identifier) {
+        initializeElements(identifier);
+        return collectPossibleTypes();
+    }
+
+    /**
+     * Runs the resolution strategy matching the initialized element.
+     *
+     * @return List of expression data containing possible types
+     */
+    private List<ExpressionData> collectPossibleTypes() {
 //      if caret on parameter in function declaration
         if(element instanceof PyParameter) {
             findDeclarationParameterType((PyParameter) element);
             return collectedTypes;
         }
+//      if caret on Flask API access like request.json or on a model query
+        PyExpression fastPathExpression = getFastPathExpression(element);
+        if(!isError && (isEvaluateConfig(fastPathExpression) || isEvaluateFlaskApi(fastPathExpression)
+                || isEvaluateModel(fastPathExpression) || isEvaluateFormField(fastPathExpression)))
+            return collectedTypes;
+//      if caret on attribute like self.user
+        if(!isError && isEvaluateClassAttribute(fastPathExpression))
+            return collectedTypes;
 //      if caret on parameter in function body
         if(isEvaluateParameter(element))
             return collectedTypes;
@@ -50,6 +183,19 @@ public class VariableTypeResolver {
         return collectedTypes;
     }
 
+    /**
+     * Gets expression the index and table fast paths should look at
+     * When caret is on the name of a called method, like first in query.first(), the whole call is used
+     *
+     * @param element element under caret
+     * @return expression or null if element is not an expression
+     */
+    private static @Nullable PyExpression getFastPathExpression(PsiElement element) {
+        if (!(element instanceof PyExpression expression)) return null;
+        if (expression.getParent() instanceof PyCallExpression call && call.getCallee() == expression) return call;
+        return expression;
+    }
+
     /**
      * Initializes all necessary elements to get PsiElement from PsiTree and later evaluate its context
      * Handles NullPointerException for file, element and scope
@@ -57,21 +203,38 @@ public class VariableTypeResolver {
      * @param event The caret event
      */
     protected void initializeElements(CaretEvent event) {
+        PsiFile psiFile = getPsiFile(event);
+        PsiElement leaf = psiFile == null ? null : getPsiElementAtCaret(event, psiFile);
+        initializeElements(leaf == null ? null : leaf.getParent());
+    }
+
+    /**
+     * Initializes all necessary elements starting from the identifier itself
+     * checks if element is variable
+     * @param identifier identifier to analyse
+     */
+    protected void initializeElements(@Nullable PsiElement identifier) {
         collectedTypes = new ArrayList<>();
+        coverage = new CallSiteCoverage();
+        visitedAttributeTargets = new HashSet<>();
+        functionsInProgress = new HashSet<>();
+        variablesInProgress = new HashSet<>();
+        parametersInProgress = new HashSet<>();
         isError = false;
-        file = getPsiFile(event);
+        largeFile = false;
         context=null;
-        if (file == null) {
+        element = identifier;
+        if (element == null) {
             isError = true;
             return;
         }
 
-        element = getPsiElementAtCaret(event, file);
-        if (element == null) {
+        file = element.getContainingFile();
+        if (file == null) {
             isError = true;
             return;
         }
-        element = element.getParent();
+        largeFile = !exhaustive && LargeFileMode.isLargeFile(file);
         if (!isVariable(element) && !(element instanceof PyNamedParameter)) {
             isError = true;
             return;
@@ -95,7 +258,26 @@ public class VariableTypeResolver {
      */
     protected void findVariableAssignments(PsiElement identifier) {
         if(isError) return;
-        scope.getContainingFile().accept(new PyRecursiveElementVisitor() {
+        // a variable reached again while its own assignments are searched adds nothing new
+        if(!variablesInProgress.add(identifier.getText())) return;
+        try {
+            searchVariableAssignments(identifier);
+        } finally {
+            variablesInProgress.remove(identifier.getText());
+        }
+    }
+
+    /**
+     * Single pass over the file collecting assignments of the identifier and elements added to it
+     * Large files are only searched in the scope of the identifier
+     * @param identifier identifier under caret
+     */
+    private void searchVariableAssignments(PsiElement identifier) {
+        int firstType = collectedTypes.size();
+        ContainerElements containerElements = new ContainerElements(identifier.getText());
+        PsiElement identifierScope = largeFile ? getScope(identifier) : null;
+        PsiElement searched = identifierScope != null ? identifierScope : scope.getContainingFile();
+        searched.accept(new PyRecursiveElementVisitor() {
             // if assignment check if target equals identifier
             @Override
             public void visitPyAssignmentStatement(@NotNull PyAssignmentStatement assignment) {
@@ -114,14 +296,46 @@ public class VariableTypeResolver {
                     if (Objects.equals(target.getName(), identifier.getText())) {
                         evaluateType(assignedValue);
                     }
+                    // items[key] = value adds an element to the container
+                    containerElements.addItemAssignment(target, assignedValue);
                 }
             }
             @Override
             public void visitPyCallExpression(@NotNull PyCallExpression node) {
+                // items.append(value) and similar add elements to the container
+                containerElements.addCall(node);
                 if(!identifier.isEquivalentTo(node.getCallee())) return;
                 evaluateType(node);
             }
         });
+        applyContainerElements(containerElements, firstType);
+    }
+
+    /**
+     * Checks if container types should be rewritten with their elements
+     *
+     * @return true unless a subclass keeps every assignment as its own result
+     */
+    protected boolean tracksContainerElements() {
+        return true;
+    }
+
+    /**
+     * Rewrites container types found for the variable with the elements added to it later
+     * so items = [] followed by items.append(user) gives list[User] instead of list
+     *
+     * @param containerElements elements recorded during the assignment pass
+     * @param firstType index of the first type collected for the variable
+     */
+    private void applyContainerElements(ContainerElements containerElements, int firstType) {
+        if (!tracksContainerElements() || containerElements.isEmpty()) return;
+        for (int i = firstType; i < collectedTypes.size(); i++) {
+            ExpressionData data = collectedTypes.get(i);
+            String type = containerElements.apply(data.type.trim(), this::resolveDetached);
+            if (!type.equals(data.type.trim())) {
+                collectedTypes.set(i, new ExpressionData(data.expression, type, data.lineNumber, data.observed));
+            }
+        }
     }
 
     /**
@@ -138,48 +352,251 @@ public class VariableTypeResolver {
             addParamAnnotationTypes(namedParameter);
             return;
         }
+        // without the project there are no call sites, only annotations say anything
+        if (isProjectIndependent()) return;
         // find containing function
         PyFunction function = PsiTreeUtil.getParentOfType(identifier, PyFunction.class);
         // if doesnt have function parent
         if (function == null) return;
-        PyParameterList args = function.getParameterList();
-        PyParameter[] arguments = args.getParameters();
-        // find param place in arguments
-        int idx=0;
-        for(PyParameter param : arguments) {
-            if (Objects.equals(param.getName(), identifier.getText())) {
-                break;
-            }
-            idx++;
-        }
+        // a current stub holds what the code infers now, so like an annotation it ends the search
+        boolean stubbed = addStubParameterTypes(namedParameter, function);
+        // types seen at runtime are added next to the inferred ones
+        addObservedParameterTypes(namedParameter, function);
+        if (stubbed) return;
+        // route handlers are called by Flask, their types come from URL converters
+        if (addRouteParameterTypes(namedParameter, function)) return;
+        if (namedParameter.getName() == null) return;
         // search all function calls for every possible type
-        searchAllCalls(function, idx);
+        if(!parametersInProgress.add(identifier)) return;
+        try {
+            searchAllCalls(function, namedParameter);
+        } finally {
+            parametersInProgress.remove(identifier);
+        }
+    }
+
+    /**
+     * Adds type of a route handler parameter taken from its URL converter
+     * Uses FlaskRouteIndex, so no call sites have to be searched
+     *
+     * @param namedParameter parameter of the function
+     * @param function function that may be a route handler
+     * @return true if parameter is part of the route URL and its type was added
+     */
+    private boolean addRouteParameterTypes(@NotNull PyNamedParameter namedParameter, @NotNull PyFunction function) {
+        Map<String, String> routeParameters = FlaskRouteIndex.getRouteParameterTypes(function);
+        if (routeParameters == null) return false;
+        String type = routeParameters.get(namedParameter.getName());
+        if (type == null) return false;
+        addSeparatedTypes(namedParameter, type);
+        return true;
     }
 
     /**
-     * search all calls of function in file and adds type of argument with index x to collected types
+     * search all calls of function and adds types of the arguments bound to the parameter to collected types
+     * Call sites of the whole project are sampled by module until no new type shows up,
+     * unless the resolver is exhaustive or does not sample
      * @param expression function call we need to find
-     * @param idx index of argument we need to check
+     * @param parameter parameter whose arguments we need to check
      */
 
-    private void searchAllCalls(@NotNull PyFunction expression ,int idx) {
-        file.accept(new PyRecursiveElementVisitor() {
-            @Override
-            public void visitPyCallExpression(@NotNull PyCallExpression node) {
-                if(node.getCallee() == null) return;
-                String callName = Objects.requireNonNull(node.getCallee()).getName();
-                if(callName==null || callName.isEmpty()) return;
-                // compare calle with expression
-                if(callName.equals(expression.getName())) {
-                    PyArgumentList args = node.getArgumentList();
-                    if (args == null) return;
-                    PyExpression[] arguments = args.getArguments();
-                    if (idx >= arguments.length) return;
-                    // add type of argument with index idx to collected types
-                    evaluateType(arguments[idx]);
+    private void searchAllCalls(@NotNull PyFunction expression, @NotNull PyNamedParameter parameter) {
+        if(expression.getName() == null || expression.getName().isEmpty()) return;
+        if(!usesCallSiteSampling()) {
+            evaluateAll(CallSiteSampler.findArguments(file, expression, Objects.requireNonNull(parameter.getName())));
+            return;
+        }
+        CallSiteSampler sampler = new CallSiteSampler(expression, parameter, file, exhaustive, largeFile);
+        Set<String> foundTypes = new HashSet<>();
+        int stableBatches = 0;
+        while (sampler.hasNext() && (exhaustive || stableBatches < sampler.getStableBatches())) {
+            boolean grew = false;
+            for (List<ExpressionData> types : evaluateBranches(sampler.nextBatch(), this::evaluateInChild)) {
+                collectedTypes.addAll(types);
+                for (ExpressionData data : types) {
+                    grew |= foundTypes.add(data.type.trim());
                 }
             }
-        });
+            stableBatches = grew ? 0 : stableBatches + 1;
+        }
+        coverage.record(sampler);
+    }
+
+    /**
+     * Checks if call sites are sampled across the project
+     *
+     * @return true unless a subclass evaluates call sites of the current file in order
+     */
+    protected boolean usesCallSiteSampling() {
+        return usesParallelBranches();
+    }
+
+    /**
+     * Checks if the resolver runs without anything that depends on the open project,
+     * like call sites, project indexes, settings and traces
+     *
+     * @return true for resolvers whose results are shared between projects
+     */
+    protected boolean isProjectIndependent() {
+        return false;
+    }
+
+    /**
+     * Gets the resolver kind return summaries of called functions are computed with
+     *
+     * @return mode matching this resolver
+     */
+    protected ReturnTypeSummaries.Mode getSummaryMode() {
+        return ReturnTypeSummaries.Mode.DEFAULT;
+    }
+
+    /**
+     * Creates a resolver of the same kind for evaluating a branch or a detached expression
+     *
+     * @return new resolver without state
+     */
+    protected VariableTypeResolver createChild() {
+        return new VariableTypeResolver();
+    }
+
+    /**
+     * Makes the resolver evaluate every call site instead of a stable sample
+     *
+     * @param exhaustive true for an exact but slower analysis
+     */
+    public void setExhaustive(boolean exhaustive) {
+        this.exhaustive = exhaustive;
+    }
+
+    /**
+     * Describes how much of the call sites the last analysis looked at
+     *
+     * @return text like "sampled 96 calls (of 130 found) in 16 of 310 files", or null if all call sites were used
+     */
+    public @Nullable String getCoverage() {
+        return coverage.describe();
+    }
+
+    /**
+     * Checks if the last analysis ran in large-file mode, with scope-only searches and a smaller budget
+     *
+     * @return true if results of the last analysis are partial because of the file size
+     */
+    public boolean isLargeFile() {
+        return largeFile;
+    }
+
+    /**
+     * Explains why results of the last analysis may be incomplete
+     *
+     * @return large-file note and call site coverage joined together, or null if the analysis was complete
+     */
+    public @Nullable String getApproximationNote() {
+        String callSites = getCoverage();
+        if (!largeFile) return callSites;
+        return callSites == null ? LargeFileMode.NOTE : LargeFileMode.NOTE + ", " + callSites;
+    }
+
+    /**
+     * Evaluates independent branches, like arguments of all call sites, and adds their types in branch order
+     * Each branch gets its own child resolver so branches can run in parallel
+     *
+     * @param branches expressions to evaluate
+     */
+    protected void evaluateAll(List<PyExpression> branches) {
+        if (!usesParallelBranches()) {
+            branches.forEach(this::evaluateType);
+            return;
+        }
+        for (List<ExpressionData> types : evaluateBranches(branches, this::evaluateInChild)) {
+            collectedTypes.addAll(types);
+        }
+    }
+
+    /**
+     * Checks if branches are evaluated by child resolvers, possibly in parallel
+     *
+     * @return true unless a subclass links results of every branch into its own state
+     */
+    protected boolean usesParallelBranches() {
+        return true;
+    }
+
+    /**
+     * Evaluates one branch with a child resolver sharing this resolver's cycle guards
+     * Branches like call site arguments can be in other files, the child searches the branch's own file and scope
+     *
+     * @param expression branch to evaluate
+     * @return types of the branch
+     */
+    private List<ExpressionData> evaluateInChild(PyExpression expression) {
+        VariableTypeResolver child = createChild();
+        PsiFile branchFile = expression.getContainingFile();
+        child.collectedTypes = new ArrayList<>();
+        child.element = expression;
+        child.file = branchFile;
+        child.scope = getScope(expression);
+        child.isError = isError || branchFile == null || child.scope == null;
+        if (child.isError) return child.collectedTypes;
+        boolean sameFile = branchFile.equals(file);
+        child.context = sameFile ? context : TypeEvalContext.codeAnalysis(branchFile.getProject(), branchFile);
+        child.visitedAttributeTargets = new HashSet<>(visitedAttributeTargets);
+        child.functionsInProgress = new HashSet<>(functionsInProgress);
+        child.variablesInProgress = new HashSet<>(variablesInProgress);
+        child.parametersInProgress = new HashSet<>(parametersInProgress);
+        child.exhaustive = exhaustive;
+        child.largeFile = sameFile ? largeFile : !exhaustive && LargeFileMode.isLargeFile(branchFile);
+        child.coverage = coverage;
+        child.evaluateType(expression);
+        return child.collectedTypes;
+    }
+
+    /**
+     * Evaluates branches on the fork-join pool under the caller's read action when there are enough of them
+     * Results are returned in branch order, so merged types never depend on scheduling.
+     * Thread-local cycle guards and active return summaries are handed over to the workers.
+     * Must be called inside a read action.
+     *
+     * @param branches expressions to evaluate
+     * @param evaluator evaluation of one branch, must not share mutable state with other branches
+     * @return types of every branch, in branch order
+     */
+    static List<List<ExpressionData>> evaluateBranches(List<PyExpression> branches,
+                                                       Function<PyExpression, List<ExpressionData>> evaluator) {
+        List<List<ExpressionData>> results = new ArrayList<>(branches.size());
+        if (branches.size() < PARALLEL_BRANCH_THRESHOLD) {
+            for (PyExpression branch : branches) {
+                results.add(evaluator.apply(branch));
+            }
+            return results;
+        }
+
+        Set<PsiElement> detached = new HashSet<>(DETACHED_IN_PROGRESS.get());
+        ReturnTypeSummaries.ActiveSummaries active = ReturnTypeSummaries.snapshotActive();
+        AtomicReferenceArray<List<ExpressionData>> branchResults = new AtomicReferenceArray<>(branches.size());
+        List<Integer> indices = new ArrayList<>(branches.size());
+        for (int i = 0; i < branches.size(); i++) {
+            indices.add(i);
+        }
+        // workers join the caller's read action, JobLauncher runs the rest on this thread if they cannot
+        boolean completed = JobLauncher.getInstance().invokeConcurrentlyUnderProgress(indices,
+                ProgressManager.getGlobalProgressIndicator(), i -> {
+                    Set<PsiElement> previous = DETACHED_IN_PROGRESS.get();
+                    DETACHED_IN_PROGRESS.set(new HashSet<>(detached));
+                    try {
+                        branchResults.set(i, ReturnTypeSummaries.runWithActive(active, () -> evaluator.apply(branches.get(i))));
+                    } finally {
+                        DETACHED_IN_PROGRESS.set(previous);
+                    }
+                    return true;
+                });
+        ReturnTypeSummaries.collectReads(active);
+        if (!completed) ProgressManager.checkCanceled();
+        for (int i = 0; i < branches.size(); i++) {
+            List<ExpressionData> types = branchResults.get(i);
+            results.add(types == null ? List.of() : types);
+        }
+        return results;
     }
 
     /**
@@ -279,6 +696,158 @@ public class VariableTypeResolver {
         return false;
     }
 
+    /**
+     * Checks if the expression is a known Flask or Werkzeug API access and adds its type from FlaskApiTypeTable
+     * Runs before generic resolution, which cannot see through request, session and other proxies
+     *
+     * @param expression The expression to check
+     * @return true if the expression is in the table, false otherwise
+     */
+    protected boolean isEvaluateFlaskApi(PyExpression expression) {
+        if (expression == null) return false;
+        // project entries of the table come from the project settings
+        String type = isProjectIndependent() ? FlaskApiTypeTable.getBuiltinType(expression) : FlaskApiTypeTable.getType(expression);
+        if (type == null) return false;
+        addSeparatedTypes(expression, type);
+        return true;
+    }
+
+    /**
+     * Checks if the expression reads a Flask config key and adds the types written to it from FlaskConfigIndex
+     * Runs before the API table, which only knows that config values can be anything
+     *
+     * @param expression The expression to check
+     * @return true if the key is in the index, false otherwise
+     */
+    protected boolean isEvaluateConfig(PyExpression expression) {
+        if (expression == null || isProjectIndependent()) return false;
+        String type = FlaskConfigIndex.getConfigType(expression);
+        if (type == null) return false;
+        addSeparatedTypes(expression, type);
+        return true;
+    }
+
+    /**
+     * Checks if the expression is a Flask-SQLAlchemy query or a column of a model instance
+     * and adds its type from FlaskModelIndex
+     * Query chains like User.query.filter_by(...).first() resolve to User | None
+     *
+     * @param expression The expression to check
+     * @return true if the type came from the model index, false otherwise
+     */
+    protected boolean isEvaluateModel(PyExpression expression) {
+        if (expression == null || context == null || isProjectIndependent()) return false;
+        String type = FlaskModelIndex.getQueryType(expression);
+        if (type == null) type = getModelAttributeType(expression);
+        if (type == null) return false;
+        addSeparatedTypes(expression, type);
+        return true;
+    }
+
+    /**
+     * Checks if the expression reads data of a WTForms field, like form.age.data
+     * and adds the type from the cached field summary of the form class
+     *
+     * @param expression The expression to check
+     * @return true if the type came from a form summary, false otherwise
+     */
+    protected boolean isEvaluateFormField(PyExpression expression) {
+        if (expression == null || context == null) return false;
+        String type = FormFieldSummaries.getFieldDataType(expression, context);
+        if (type == null) return false;
+        addSeparatedTypes(expression, type);
+        return true;
+    }
+
+    /**
+     * Checks if the expression is an attribute of a class or its instance, like self.user
+     * and evaluates every assignment to it found in ClassAttributeTable, across all methods and project bases
+     *
+     * @param expression The expression to check
+     * @return true if the class assigns the attribute, false otherwise
+     */
+    protected boolean isEvaluateClassAttribute(PyExpression expression) {
+        if (context == null || !(expression instanceof PyQualifiedExpression qualified)) return false;
+        PyExpression qualifier = qualified.getQualifier();
+        String name = qualified.getReferencedName();
+        if (qualifier == null || name == null) return false;
+        if (!(context.getType(qualifier) instanceof PyClassType classType)) return false;
+        List<PyTargetExpression> targets = ClassAttributeTable.getAssignments(classType.getPyClass()).get(name);
+        if (targets == null) return false;
+        for (PyTargetExpression target : targets) {
+            if (!visitedAttributeTargets.add(target)) continue;
+            PyExpression value = target.findAssignedValue();
+            if (value != null) evaluateType(value);
+        }
+        return true;
+    }
+
+    /**
+     * Gets type of a column or relationship read from a model instance, like user.email
+     * Qualifier types come from the type checker, or from this resolver when the checker does not know them
+     *
+     * @param expression possible attribute access
+     * @return type or null if the qualifier is not a model instance or has no such column
+     */
+    private @Nullable String getModelAttributeType(PyExpression expression) {
+        if (!(expression instanceof PyReferenceExpression reference)) return null;
+        PyExpression qualifier = reference.getQualifier();
+        String attribute = reference.getReferencedName();
+        if (qualifier == null || attribute == null) return null;
+        // most attribute reads are not model columns, and resolving their qualifier is the expensive part
+        if (!FlaskModelIndex.isModelAttribute(expression.getProject(), attribute)) return null;
+
+        Collection<String> models;
+        PyType qualifierType = context.getType(qualifier);
+        if (qualifierType instanceof PyClassType classType) {
+            if (classType.isDefinition()) return null;
+            models = List.of(Objects.requireNonNull(classType.getName()));
+        } else if (qualifierType == null) {
+            models = resolveDetached(qualifier);
+        } else {
+            return null;
+        }
+
+        Set<String> types = new LinkedHashSet<>();
+        for (String model : models) {
+            Map<String, String> attributes = FlaskModelIndex.getModelAttributes(expression.getProject(), model);
+            String type = attributes == null ? null : attributes.get(attribute);
+            if (type != null) types.add(type);
+        }
+        return types.isEmpty() ? null : String.join(" | ", types);
+    }
+
+    /**
+     * Gets types of an expression from a separate resolver, without touching the current results
+     * Assignments like node = node.parent would resolve the same expression forever,
+     * so an expression already being resolved on this thread gives no types
+     *
+     * @param expression expression to evaluate
+     * @return distinct type names
+     */
+    protected @NotNull Set<String> resolveDetached(@NotNull PyExpression expression) {
+        Set<PsiElement> inProgress = DETACHED_IN_PROGRESS.get();
+        if (!inProgress.add(expression)) return Set.of();
+        try {
+            // resolver keeps state, the expression is resolved by its own instance
+            return ExpressionData.distinctTypes(createChild().getExpressionTypes(expression));
+        } finally {
+            inProgress.remove(expression);
+        }
+    }
+
+    /**
+     * Adds every member of a union type string like "str | None" to collected types
+     *
+     * @param expression expression to create ExpressionData
+     * @param type type string
+     */
+    private void addSeparatedTypes(PyExpression expression, String type) {
+        for (String t : type.split(" \\| ")) {
+            collectedTypes.add(makeExpressionData(expression, t));
+        }
+    }
+
     /**
      * Checks if the expression is a function call and evaluates its return type
      * If it's a function call, finds all return statements in the function body
@@ -318,8 +887,8 @@ public class VariableTypeResolver {
             return null;
         }
 
-        // Step 3: Get the statement list (the function body)
-        return (PyFunction) resolved;
+        // Step 3: Get the statement list (the function body), from the module if a generated stub is stale
+        return GeneratedStubs.getCurrentDeclaration((PyFunction) resolved);
     }
 
     /**
@@ -331,9 +900,171 @@ public class VariableTypeResolver {
     protected void searchAllReturns(PyCallExpression expression) {
         PyFunction function = getFunctionBody(expression);
         if(function == null) return;
+        boolean stubbed = false;
         if(function.getAnnotation() != null) {
             addFunctionAnnotationTypes(expression, function);
+        } else {
+            stubbed = addStubReturnTypes(expression, function);
+        }
+        addObservedReturnTypes(expression, function);
+        // returns of a current stub are already the inferred ones
+        if(stubbed) return;
+        // summaries are computed to a fixpoint, so recursive functions end in bounded time
+        if(usesReturnSummaries() || functionsInProgress.contains(function)) {
+            addReturnSummary(expression, ReturnTypeSummaries.getSummary(function, getSummaryMode()));
+            return;
+        }
+        functionsInProgress.add(function);
+        try {
+            walkReturns(expression, function);
+        } finally {
+            functionsInProgress.remove(function);
+        }
+    }
+
+    /**
+     * Checks if annotations of current .pyi stubs answer for unannotated parameters and returns
+     *
+     * @return true unless a subclass needs the types inferred from the code itself
+     */
+    protected boolean usesGeneratedStubs() {
+        return true;
+    }
+
+    /**
+     * Adds the stub annotation of an unannotated parameter, unless it is Any
+     *
+     * @param parameter parameter of the function
+     * @param function function declaring the parameter
+     * @return true if the stub gave types
+     */
+    private boolean addStubParameterTypes(@NotNull PyNamedParameter parameter, @NotNull PyFunction function) {
+        if(!usesGeneratedStubs()) return false;
+        PyNamedParameter stubParameter = GeneratedStubs.findStubParameter(parameter, function);
+        List<String> types = getStubTypes(stubParameter == null ? null : stubParameter.getAnnotation());
+        for (String type : types) {
+            collectedTypes.add(makeExpressionData(parameter, type));
+        }
+        return !types.isEmpty();
+    }
+
+    /**
+     * Adds the stub return annotation of an unannotated function as return types of a call, unless it is Any
+     *
+     * @param expression call of the function
+     * @param function called function
+     * @return true if the stub gave types
+     */
+    private boolean addStubReturnTypes(@NotNull PyCallExpression expression, @NotNull PyFunction function) {
+        if(!usesGeneratedStubs()) return false;
+        PyFunction stubFunction = GeneratedStubs.findStubFunction(function);
+        List<String> types = getStubTypes(stubFunction == null ? null : stubFunction.getAnnotation());
+        for (String type : types) {
+            collectedTypes.add(makeExpressionData(expression, type));
+        }
+        return !types.isEmpty();
+    }
+
+    /**
+     * Gets union members of a stub annotation, split only outside brackets so list[User | None] stays whole
+     *
+     * @param annotation annotation of a stub parameter or function
+     * @return member types without quotes, empty if there is no annotation or it contains Any
+     */
+    static @NotNull List<String> getStubTypes(@Nullable PyAnnotation annotation) {
+        PyExpression value = annotation == null ? null : annotation.getValue();
+        if(value == null) return List.of();
+        List<String> types = new ArrayList<>();
+        for (String type : ContainerElements.splitUnion(unquote(value.getText()))) {
+            String member = unquote(type);
+            if (!member.isEmpty()) types.add(member);
+        }
+        // Any says nothing, inferring from the code gives more
+        return types.contains("Any") ? List.of() : types;
+    }
+
+    /**
+     * Removes the quotes of a forward reference like "User | None"
+     */
+    private static String unquote(String text) {
+        String trimmed = text.trim();
+        if (trimmed.length() >= 2 && (trimmed.charAt(0) == '"' || trimmed.charAt(0) == '\'')
+                && trimmed.charAt(trimmed.length() - 1) == trimmed.charAt(0)) {
+            return trimmed.substring(1, trimmed.length() - 1).trim();
         }
+        return trimmed;
+    }
+
+    /**
+     * Checks if types seen in runtime traces are merged into the results
+     *
+     * @return true unless a subclass reports only statically inferred types
+     */
+    protected boolean usesRuntimeTraces() {
+        return true;
+    }
+
+    /**
+     * Adds types of a parameter seen in runtime traces, marked as observed
+     *
+     * @param parameter parameter of the function
+     * @param function traced function
+     */
+    private void addObservedParameterTypes(@NotNull PyNamedParameter parameter, @NotNull PyFunction function) {
+        if(!usesRuntimeTraces()) return;
+        RuntimeTraceIndex.FunctionTrace trace = RuntimeTraceStore.getInstance(function.getProject()).getTrace(function);
+        if(trace == null) return;
+        for (String type : trace.argumentTypes().getOrDefault(parameter.getName(), List.of())) {
+            collectedTypes.add(new ExpressionData(parameter, type, -1, true));
+        }
+    }
+
+    /**
+     * Adds return types of a function seen in runtime traces, marked as observed
+     *
+     * @param expression call of the function
+     * @param function traced function
+     */
+    private void addObservedReturnTypes(@NotNull PyCallExpression expression, @NotNull PyFunction function) {
+        if(!usesRuntimeTraces()) return;
+        RuntimeTraceIndex.FunctionTrace trace = RuntimeTraceStore.getInstance(function.getProject()).getTrace(function);
+        if(trace == null) return;
+        for (String type : trace.returnTypes()) {
+            collectedTypes.add(new ExpressionData(expression, type, -1, true));
+        }
+    }
+
+    /**
+     * Checks if return types come from cached ReturnTypeSummaries instead of walking returns per call
+     *
+     * @return true unless a subclass needs to see every return expression being evaluated
+     */
+    protected boolean usesReturnSummaries() {
+        return true;
+    }
+
+    /**
+     * Adds types of a function summary as the return types of a call
+     *
+     * @param expression call of the function
+     * @param summary summary of the called function
+     */
+    private void addReturnSummary(PyCallExpression expression, ReturnTypeSummaries.Summary summary) {
+        if(summary.mayReturnNone()) addNoneType(expression);
+        // summaries hold no PSI, the call stands in for the return expressions
+        for (ReturnTypeSummaries.ReturnType returnType : summary.types()) {
+            collectedTypes.add(new ExpressionData(expression, returnType.type(), returnType.lineNumber(),
+                    returnType.observed()));
+        }
+    }
+
+    /**
+     * Evaluates every return statement of the called function directly
+     *
+     * @param expression The call expression whose return types to find
+     * @param function called function
+     */
+    private void walkReturns(PyCallExpression expression, PyFunction function) {
         function.getStatementList().accept(new PyRecursiveElementVisitor() {
             boolean isNoneAdded = false;
             @Override
@@ -368,7 +1099,7 @@ public class VariableTypeResolver {
      * @param returnStatement The return statement to check
      * @return true if the return statement is inside a control flow structure, false otherwise
      */
-    private boolean isReturnUnreachable(PyReturnStatement returnStatement) {
+    static boolean isReturnUnreachable(PyReturnStatement returnStatement) {
         // Check if the return statement is inside a blocking control flow structure
         return PsiTreeUtil.getParentOfType(returnStatement,
                 PyIfStatement.class,
@@ -400,6 +1131,11 @@ public class VariableTypeResolver {
      */
     protected void evaluateType(PyExpression expr) {
         if(context == null) return;
+        if(isEvaluateConfig(expr)) return;
+        if(isEvaluateFlaskApi(expr)) return;
+        if(isEvaluateModel(expr)) return;
+        if(isEvaluateFormField(expr)) return;
+        if(isEvaluateClassAttribute(expr)) return;
         if(isEvaluateParameter(expr)) return;
         if(isEvaluateVariable(expr)) return;
         if(!isClass(expr)) {
@@ -0,0 +1,267 @@
+package com.github.sullyvahnn.flaskplugin.java.PolymorphismToolWindow;
+
+import com.github.sullyvahnn.flaskplugin.java.NormalTypeWidget.NormalTypeWidget;
+import com.github.sullyvahnn.flaskplugin.java.ProjectAnalysis.ProjectTypeScanner;
+import com.github.sullyvahnn.flaskplugin.java.TypeAnalysis.AnalysisMemoryCache;
+import com.github.sullyvahnn.flaskplugin.java.TypeAnalysis.VariableTypeRecord;
+import com.intellij.icons.AllIcons;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.actionSystem.*;
+import com.intellij.openapi.fileEditor.OpenFileDescriptor;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.progress.impl.BackgroundableProcessIndicator;
+import com.intellij.openapi.project.DumbAwareAction;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.SimpleToolWindowPanel;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.ui.DoubleClickListener;
+import com.intellij.ui.ScrollPaneFactory;
+import com.intellij.ui.components.JBLabel;
+import com.intellij.ui.table.JBTable;
+import com.intellij.util.ui.ColumnInfo;
+import com.intellij.util.ui.JBUI;
+import com.intellij.util.ui.ListTableModel;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Tool window content listing inferred types of every declaration in the project.
+ * <p>
+ * The scan runs in background and rows are flushed to the table a few times per second
+ * while it runs. JTable only paints visible rows, so even 100k rows stay responsive.
+ */
+public class PolymorphismPanel extends SimpleToolWindowPanel implements Disposable {
+    public static final String TOOL_WINDOW_ID = "Variable Types";
+
+    /** How often rows found by the running scan are moved into the table */
+    private static final int FLUSH_INTERVAL_MS = 250;
+
+    private final Project project;
+    private final ListTableModel<VariableTypeRecord> model;
+    private final JBTable table;
+    private final JBLabel statusLabel = new JBLabel();
+
+    /** Rows found by the background scan but not yet shown */
+    private final Queue<VariableTypeRecord> pendingRecords = new ConcurrentLinkedQueue<>();
+    private final Timer flushTimer;
+
+    private volatile ProgressIndicator currentScan;
+
+    public PolymorphismPanel(@NotNull Project project) {
+        super(true, true);
+        this.project = project;
+
+        model = new ListTableModel<>(createColumns());
+        table = new JBTable(model);
+        table.setAutoCreateRowSorter(true);
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        installNavigation();
+
+        flushTimer = new Timer(FLUSH_INTERVAL_MS, e -> flushPendingRecords());
+
+        JPanel content = new JPanel(new BorderLayout());
+        content.add(ScrollPaneFactory.createScrollPane(table), BorderLayout.CENTER);
+        statusLabel.setBorder(JBUI.Borders.empty(2, 6));
+        content.add(statusLabel, BorderLayout.SOUTH);
+        setContent(content);
+        setToolbar(createToolbar());
+        statusLabel.setText("Press Scan to analyse the project");
+    }
+
+    /**
+     * Creates table columns: variable, file, type count and types
+     *
+     * @return column infos for the table model
+     */
+    private static ColumnInfo<?, ?>[] createColumns() {
+        return new ColumnInfo[]{
+                new ColumnInfo<VariableTypeRecord, String>("Variable") {
+                    @Override
+                    public @Nullable String valueOf(VariableTypeRecord record) {
+                        return record.getQualifiedName();
+                    }
+                },
+                new ColumnInfo<VariableTypeRecord, String>("File") {
+                    @Override
+                    public @Nullable String valueOf(VariableTypeRecord record) {
+                        return record.file.getName() + ":" + (record.lineNumber + 1);
+                    }
+                },
+                new ColumnInfo<VariableTypeRecord, Integer>("Types") {
+                    @Override
+                    public Integer valueOf(VariableTypeRecord record) {
+                        return record.types.size();
+                    }
+
+                    @Override
+                    public Class<?> getColumnClass() {
+                        // lets the row sorter compare numbers instead of strings
+                        return Integer.class;
+                    }
+                },
+                new ColumnInfo<VariableTypeRecord, String>("Possible types") {
+                    @Override
+                    public @Nullable String valueOf(VariableTypeRecord record) {
+                        return String.join(" | ", record.types);
+                    }
+                }
+        };
+    }
+
+    private JComponent createToolbar() {
+        DefaultActionGroup group = new DefaultActionGroup();
+        group.add(new DumbAwareAction("Scan Project", "Analyse variable types in all project files", AllIcons.Actions.Refresh) {
+            @Override
+            public void actionPerformed(@NotNull AnActionEvent e) {
+                startScan();
+            }
+        });
+        group.add(new DumbAwareAction("Stop", "Stop the running scan", AllIcons.Actions.Suspend) {
+            @Override
+            public void actionPerformed(@NotNull AnActionEvent e) {
+                if (currentScan != null) currentScan.cancel();
+            }
+
+            @Override
+            public void update(@NotNull AnActionEvent e) {
+                e.getPresentation().setEnabled(currentScan != null && currentScan.isRunning());
+            }
+
+            @Override
+            public @NotNull ActionUpdateThread getActionUpdateThread() {
+                return ActionUpdateThread.EDT;
+            }
+        });
+        ActionToolbar toolbar = ActionManager.getInstance().createActionToolbar("FlaskTypesPolymorphism", group, true);
+        toolbar.setTargetComponent(this);
+        return toolbar.getComponent();
+    }
+
+    /**
+     * Starts a new background scan, cancelling the previous one
+     */
+    public void startScan() {
+        if (currentScan != null) currentScan.cancel();
+        pendingRecords.clear();
+        model.setItems(new ArrayList<>());
+        statusLabel.setText("Scanning...");
+
+        ScanTask task = new ScanTask();
+        task.indicator = new BackgroundableProcessIndicator(task);
+        currentScan = task.indicator;
+        flushTimer.start();
+        ProgressManager.getInstance().runProcessWithProgressAsynchronously(task, task.indicator);
+    }
+
+    /**
+     * Moves rows found since the last flush into the table model
+     */
+    private void flushPendingRecords() {
+        List<VariableTypeRecord> batch = new ArrayList<>();
+        VariableTypeRecord record;
+        while ((record = pendingRecords.poll()) != null) {
+            batch.add(record);
+        }
+        if (batch.isEmpty()) return;
+        model.addRows(batch);
+        if (currentScan != null && currentScan.isRunning()) {
+            statusLabel.setText("Scanning... " + model.getRowCount() + " variables");
+        }
+    }
+
+    /**
+     * Background task running one project scan and streaming its rows into the panel
+     */
+    private class ScanTask extends Task.Backgroundable {
+        private final long startTime = System.currentTimeMillis();
+        private ProgressIndicator indicator;
+
+        ScanTask() {
+            super(project, "Scanning variable types", true);
+        }
+
+        @Override
+        public void run(@NotNull ProgressIndicator progressIndicator) {
+            new ProjectTypeScanner(project).scan(progressIndicator, result -> {
+                // a cancelled scan may still finish its current file
+                if (currentScan == indicator) pendingRecords.addAll(result.records);
+            });
+        }
+
+        @Override
+        public void onFinished() {
+            if (currentScan != indicator) return;
+            flushTimer.stop();
+            flushPendingRecords();
+            statusLabel.setText((indicator.isCanceled() ? "Scan stopped: " : "Scan finished: ")
+                    + model.getRowCount() + " variables, "
+                    + countPolymorphic() + " with " + NormalTypeWidget.DEFAULT_TYPES_COUNT_WARNING + " or more types in "
+                    + StringUtil.formatDuration(System.currentTimeMillis() - startTime)
+                    + ", cache: " + AnalysisMemoryCache.getInstance().getStatistics().describe());
+        }
+    }
+
+    /**
+     * Counts rows whose type count reaches the widget warning threshold
+     *
+     * @return number of polymorphic variables in the table
+     */
+    private int countPolymorphic() {
+        int count = 0;
+        for (VariableTypeRecord record : model.getItems()) {
+            if (record.types.size() >= NormalTypeWidget.DEFAULT_TYPES_COUNT_WARNING) count++;
+        }
+        return count;
+    }
+
+    private void installNavigation() {
+        new DoubleClickListener() {
+            @Override
+            protected boolean onDoubleClick(@NotNull MouseEvent event) {
+                return navigateToSelected();
+            }
+        }.installOn(table);
+
+        table.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (e.getKeyCode() == KeyEvent.VK_ENTER && navigateToSelected()) {
+                    e.consume();
+                }
+            }
+        });
+    }
+
+    /**
+     * Opens the declaration of the selected row in the editor
+     *
+     * @return true if navigation happened
+     */
+    private boolean navigateToSelected() {
+        int row = table.getSelectedRow();
+        if (row < 0) return false;
+        VariableTypeRecord record = model.getItem(table.convertRowIndexToModel(row));
+        if (record == null || !record.file.isValid()) return false;
+        new OpenFileDescriptor(project, record.file, record.offset).navigate(true);
+        return true;
+    }
+
+    @Override
+    public void dispose() {
+        flushTimer.stop();
+        if (currentScan != null) currentScan.cancel();
+        pendingRecords.clear();
+    }
+}
@@ -0,0 +1,44 @@
+package com.github.sullyvahnn.flaskplugin.java.ProjectAnalysis;
+
+import com.github.sullyvahnn.flaskplugin.java.PolymorphismToolWindow.PolymorphismPanel;
+import com.intellij.openapi.actionSystem.ActionUpdateThread;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.project.DumbAwareAction;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.wm.ToolWindow;
+import com.intellij.openapi.wm.ToolWindowManager;
+import com.intellij.ui.content.Content;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Runs the parallel project scan and shows its merged report in the Variable Types tool window.
+ * The scan can be cancelled from its progress indicator in the status bar.
+ */
+public class AnalyzeProjectTypesAction extends DumbAwareAction {
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent e) {
+        Project project = e.getProject();
+        if (project == null) return;
+        ToolWindow toolWindow = ToolWindowManager.getInstance(project).getToolWindow(PolymorphismPanel.TOOL_WINDOW_ID);
+        if (toolWindow == null) return;
+
+        // content is created lazily, so start the scan once the tool window is shown
+        toolWindow.activate(() -> {
+            Content content = toolWindow.getContentManager().getContent(0);
+            if (content != null && content.getComponent() instanceof PolymorphismPanel panel) {
+                panel.startScan();
+            }
+        });
+    }
+
+    @Override
+    public void update(@NotNull AnActionEvent e) {
+        e.getPresentation().setEnabled(e.getProject() != null);
+    }
+
+    @Override
+    public @NotNull ActionUpdateThread getActionUpdateThread() {
+        return ActionUpdateThread.BGT;
+    }
+}
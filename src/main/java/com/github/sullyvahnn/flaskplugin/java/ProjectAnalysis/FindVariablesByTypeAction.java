@@ -0,0 +1,55 @@
+package com.github.sullyvahnn.flaskplugin.java.ProjectAnalysis;
+
+import com.intellij.ide.util.PropertiesComponent;
+import com.intellij.openapi.actionSystem.ActionUpdateThread;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.project.DumbAwareAction;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.usages.UsageTarget;
+import com.intellij.usages.UsageViewManager;
+import com.intellij.usages.UsageViewPresentation;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Asks for a type name and lists every variable and parameter that can hold it in a usage view,
+ * filled while the project scan runs.
+ */
+public class FindVariablesByTypeAction extends DumbAwareAction {
+    /** Key of the last searched type, offered again next time */
+    private static final String LAST_TYPE_KEY = "flask.types.find.by.type.last";
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent e) {
+        Project project = e.getProject();
+        if (project == null) return;
+        // actions are shared by all projects and windows, so the last type lives in the project's properties
+        PropertiesComponent properties = PropertiesComponent.getInstance(project);
+        String input = Messages.showInputDialog(project, "Type name, for example None, Response or list:",
+                "Find Variables by Type", null, properties.getValue(LAST_TYPE_KEY, "None"), null);
+        if (input == null || input.isBlank()) return;
+        String typeName = input.trim();
+        properties.setValue(LAST_TYPE_KEY, typeName);
+
+        UsageViewPresentation presentation = new UsageViewPresentation();
+        presentation.setTabText("Type " + typeName);
+        presentation.setSearchString(typeName);
+        presentation.setCodeUsagesString("Variables that can hold " + typeName);
+        presentation.setTargetsNodeText("Type");
+        presentation.setOpenInNewTab(true);
+
+        VariableTypeSearcher searcher = new VariableTypeSearcher(project, typeName);
+        UsageViewManager.getInstance(project).searchAndShowUsages(UsageTarget.EMPTY_ARRAY, () -> searcher,
+                true, true, presentation, null);
+    }
+
+    @Override
+    public void update(@NotNull AnActionEvent e) {
+        e.getPresentation().setEnabled(e.getProject() != null);
+    }
+
+    @Override
+    public @NotNull ActionUpdateThread getActionUpdateThread() {
+        return ActionUpdateThread.BGT;
+    }
+}
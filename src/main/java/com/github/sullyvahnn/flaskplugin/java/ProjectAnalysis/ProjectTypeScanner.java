@@ -0,0 +1,203 @@
+package com.github.sullyvahnn.flaskplugin.java.ProjectAnalysis;
+
+import com.github.sullyvahnn.flaskplugin.java.NormalTypeWidget.ReturnTypeSummaries;
+import com.github.sullyvahnn.flaskplugin.java.Snapshot.SnapshotStore;
+import com.github.sullyvahnn.flaskplugin.java.TypeAnalysis.FileTypeRecords;
+import com.github.sullyvahnn.flaskplugin.java.TypeAnalysis.TypeAnalysisCache;
+import com.github.sullyvahnn.flaskplugin.java.TypeAnalysis.VariableTypeRecord;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.util.ProgressIndicatorUtils;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.search.FileTypeIndex;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.jetbrains.python.PythonFileType;
+import com.jetbrains.python.psi.PyFile;
+import com.jetbrains.python.psi.PyFunction;
+import com.jetbrains.python.psi.PyNamedParameter;
+import com.jetbrains.python.psi.PyRecursiveElementVisitor;
+import com.jetbrains.python.psi.PyTargetExpression;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.concurrency.CancellablePromise;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Scans all Python files of a project and reports inferred types of their declarations.
+ * <p>
+ * Results are handed to the sink file by file while the scan runs, so callers can show
+ * them before the whole project is analysed. Files are spread over a worker pool bounded
+ * by the number of cores.
+ */
+public class ProjectTypeScanner {
+    private static final Logger LOG = Logger.getInstance(ProjectTypeScanner.class);
+    /** Number of files analysed at the same time */
+    private static final int WORKER_COUNT = Math.max(1, Runtime.getRuntime().availableProcessors());
+    private static final ExecutorService EXECUTOR =
+            AppExecutorUtil.createBoundedApplicationPoolExecutor("Flask Types Analysis", WORKER_COUNT);
+
+    private final Project project;
+
+    public ProjectTypeScanner(@NotNull Project project) {
+        this.project = project;
+    }
+
+    /**
+     * Gets all Python files in project content
+     *
+     * @return project Python files
+     */
+    public @NotNull Collection<VirtualFile> findPythonFiles() {
+        return DumbService.getInstance(project).runReadActionInSmartMode(() ->
+                FileTypeIndex.getFiles(PythonFileType.INSTANCE, GlobalSearchScope.projectScope(project)));
+    }
+
+    /**
+     * Scans all project Python files
+     *
+     * @param indicator progress indicator used for cancellation and progress reporting
+     * @param sink receives results of every analysed file
+     */
+    public void scan(@NotNull ProgressIndicator indicator, @NotNull Consumer<FileTypeRecords> sink) {
+        scan(findPythonFiles(), indicator, sink);
+    }
+
+    /**
+     * Scans given Python files in parallel.
+     * Every file is analysed in its own non-blocking read action on a bounded worker pool,
+     * and the per-identifier resolver instances keep workers independent of each other.
+     *
+     * @param files files to analyse
+     * @param indicator progress indicator used for cancellation and progress reporting
+     * @param sink receives results of every analysed file,
+     *             called from worker threads so it has to be thread-safe
+     */
+    public void scan(@NotNull Collection<VirtualFile> files,
+                     @NotNull ProgressIndicator indicator,
+                     @NotNull Consumer<FileTypeRecords> sink) {
+        forEachFile(files, indicator, this::analyseFile, sink);
+    }
+
+    /**
+     * Runs an analysis over given files in parallel, on the same worker pool as the scan.
+     * Every file is analysed in its own non-blocking read action, restarted when a write action comes.
+     *
+     * @param files files to analyse
+     * @param indicator progress indicator used for cancellation and progress reporting
+     * @param analysis analysis of one file, called inside a read action; null results are not passed on
+     * @param sink receives results of every analysed file,
+     *             called from worker threads so it has to be thread-safe
+     */
+    public <T> void forEachFile(@NotNull Collection<VirtualFile> files,
+                                @NotNull ProgressIndicator indicator,
+                                @NotNull Function<VirtualFile, T> analysis,
+                                @NotNull Consumer<T> sink) {
+        indicator.setIndeterminate(false);
+        indicator.setText2("Analysing " + files.size() + " files on " + WORKER_COUNT + " workers");
+        AtomicInteger done = new AtomicInteger();
+        List<CancellablePromise<T>> promises = new ArrayList<>(files.size());
+        try {
+            for (VirtualFile file : files) {
+                // non-blocking read action restarts instead of blocking typing in the editor
+                promises.add(ReadAction.nonBlocking(() -> analyseSafely(analysis, file))
+                        .inSmartMode(project)
+                        .wrapProgress(indicator)
+                        .submit(EXECUTOR)
+                        .onSuccess(result -> {
+                            if (result != null) sink.accept(result);
+                            indicator.setFraction(done.incrementAndGet() / (double) files.size());
+                        }));
+            }
+            for (CancellablePromise<T> promise : promises) {
+                ProgressIndicatorUtils.awaitWithCheckCanceled(promise, indicator);
+            }
+        } finally {
+            // stop queued files when the scan was cancelled or failed
+            promises.forEach(promise -> promise.cancel());
+        }
+    }
+
+    /**
+     * Runs the analysis of one file, so a file the analysis fails on is logged and skipped
+     * instead of failing the whole scan. Cancellation still stops the scan.
+     */
+    private static <T> @Nullable T analyseSafely(@NotNull Function<VirtualFile, T> analysis, @NotNull VirtualFile file) {
+        try {
+            return analysis.apply(file);
+        } catch (ProcessCanceledException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            LOG.warn("Type analysis failed for " + file.getPath(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Analyses every declaration and function of a single file.
+     * While the file and its dependencies are unchanged since the imported snapshot, it is answered from it without analysis.
+     * Must be called inside a read action.
+     *
+     * @param file Python file to analyse
+     * @return records of declarations with at least one type and non-empty return summaries, or null if file is not a Python file
+     */
+    public @Nullable FileTypeRecords analyseFile(@NotNull VirtualFile file) {
+        if (!file.isValid()) return null;
+        PsiFile psiFile = PsiManager.getInstance(project).findFile(file);
+        if (!(psiFile instanceof PyFile)) return null;
+
+        FileTypeRecords snapshotResult = SnapshotStore.getInstance(project).getFileResult(psiFile);
+        if (snapshotResult != null) return snapshotResult;
+
+        List<VariableTypeRecord> records = new ArrayList<>();
+        Map<Integer, ReturnTypeSummaries.Summary> functions = new HashMap<>();
+        psiFile.accept(new PyRecursiveElementVisitor() {
+            @Override
+            public void visitPyFunction(@NotNull PyFunction node) {
+                super.visitPyFunction(node);
+                ProgressManager.checkCanceled();
+                ReturnTypeSummaries.Summary summary = ReturnTypeSummaries.getSummary(node);
+                if (!summary.types().isEmpty() || summary.mayReturnNone()) functions.put(node.getTextOffset(), summary);
+            }
+
+            @Override
+            public void visitPyTargetExpression(@NotNull PyTargetExpression node) {
+                super.visitPyTargetExpression(node);
+                addRecord(node, records);
+            }
+
+            @Override
+            public void visitPyNamedParameter(@NotNull PyNamedParameter node) {
+                super.visitPyNamedParameter(node);
+                addRecord(node, records);
+            }
+        });
+        return new FileTypeRecords(file, TypeAnalysisCache.getContentHash(psiFile), records, functions);
+    }
+
+    private static void addRecord(PsiElement identifier, List<VariableTypeRecord> records) {
+        if (!TypeAnalysisCache.isAnalysedDeclaration(identifier)) return;
+        ProgressManager.checkCanceled();
+        List<String> types = TypeAnalysisCache.getTypeNames(identifier);
+        if (types.isEmpty()) return;
+        VariableTypeRecord record = VariableTypeRecord.create(identifier, types);
+        if (record != null) records.add(record);
+    }
+}
@@ -0,0 +1,136 @@
+package com.github.sullyvahnn.flaskplugin.java.ProjectAnalysis;
+
+import com.github.sullyvahnn.flaskplugin.java.TypeAnalysis.VariableTypeRecord;
+import com.google.gson.stream.JsonWriter;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Streams analysis records as a JSON document or as NDJSON, one record per line.
+ * <p>
+ * Records are written as soon as they arrive, so the report never has to be held in memory.
+ * All methods are synchronized because scanner workers call {@link #write} concurrently.
+ */
+public class TypeReportWriter implements Closeable {
+    /** Version of the report layout, bumped when fields change */
+    public static final int FORMAT_VERSION = 1;
+
+    private final Writer out;
+    private final boolean ndjson;
+    private final @Nullable VirtualFile baseDir;
+    private final int typesCountWarning;
+    private JsonWriter json;
+
+    private int variableCount = 0;
+    private int polymorphicCount = 0;
+
+    /**
+     * @param out destination of the report
+     * @param ndjson true to write one JSON object per line instead of a single document
+     * @param baseDir directory file paths are made relative to, absolute paths are written if null
+     * @param typesCountWarning number of types at which a variable counts as polymorphic
+     */
+    public TypeReportWriter(@NotNull Writer out, boolean ndjson, @Nullable VirtualFile baseDir, int typesCountWarning) {
+        this.out = out;
+        this.ndjson = ndjson;
+        this.baseDir = baseDir;
+        this.typesCountWarning = typesCountWarning;
+    }
+
+    /**
+     * Writes the report header
+     *
+     * @param projectName name of the analysed project
+     */
+    public synchronized void begin(String projectName) throws IOException {
+        if (ndjson) return;
+        json = new JsonWriter(out);
+        json.setIndent("  ");
+        json.beginObject();
+        json.name("version").value(FORMAT_VERSION);
+        json.name("project").value(projectName);
+        json.name("variables").beginArray();
+    }
+
+    /**
+     * Writes records of one file
+     *
+     * @param records analysed declarations
+     */
+    public synchronized void write(@NotNull List<VariableTypeRecord> records) throws IOException {
+        for (VariableTypeRecord record : records) {
+            variableCount++;
+            if (record.types.size() >= typesCountWarning) polymorphicCount++;
+
+            JsonWriter writer = ndjson ? lineWriter() : json;
+            writer.beginObject();
+            writer.name("file").value(getPath(record.file));
+            writer.name("line").value(record.lineNumber + 1);
+            writer.name("scope").value(record.scope);
+            writer.name("name").value(record.name);
+            writer.name("typeCount").value(record.types.size());
+            writer.name("types").beginArray();
+            for (String type : record.types) {
+                writer.value(type);
+            }
+            writer.endArray();
+            writer.endObject();
+            if (ndjson) endLine(writer);
+        }
+    }
+
+    /**
+     * Writes the summary and finishes the document
+     */
+    public synchronized void end() throws IOException {
+        JsonWriter writer;
+        if (ndjson) {
+            writer = lineWriter();
+            writer.beginObject();
+            writer.name("summary");
+        } else {
+            json.endArray();
+            writer = json;
+            writer.name("summary");
+        }
+        writer.beginObject();
+        writer.name("variables").value(variableCount);
+        writer.name("polymorphic").value(polymorphicCount);
+        writer.name("typesCountWarning").value(typesCountWarning);
+        writer.endObject();
+        writer.endObject();
+        if (ndjson) endLine(writer);
+        out.flush();
+    }
+
+    public synchronized int getPolymorphicCount() {
+        return polymorphicCount;
+    }
+
+    private JsonWriter lineWriter() {
+        // each NDJSON line is a separate compact document written straight to the output
+        return new JsonWriter(out);
+    }
+
+    private void endLine(JsonWriter writer) throws IOException {
+        writer.flush();
+        out.write('\n');
+    }
+
+    private String getPath(VirtualFile file) {
+        String relative = baseDir == null ? null : VfsUtilCore.getRelativePath(file, baseDir);
+        return relative != null ? relative : file.getPath();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,149 @@
+package com.github.sullyvahnn.flaskplugin.java.ProjectAnalysis;
+
+import com.github.sullyvahnn.flaskplugin.java.Snapshot.SnapshotStore;
+import com.github.sullyvahnn.flaskplugin.java.TypeAnalysis.AnalysisMemoryCache;
+import com.github.sullyvahnn.flaskplugin.java.TypeAnalysis.FileDependencies;
+import com.github.sullyvahnn.flaskplugin.java.TypeAnalysis.FileTypeRecords;
+import com.github.sullyvahnn.flaskplugin.java.TypeAnalysis.VariableTypeRecord;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.PsiNameIdentifierOwner;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.usageView.UsageInfo;
+import com.intellij.usages.Usage;
+import com.intellij.usages.UsageInfo2UsageAdapter;
+import com.intellij.usages.UsageSearcher;
+import com.intellij.util.Processor;
+import com.jetbrains.python.psi.PyNamedParameter;
+import com.jetbrains.python.psi.PyTargetExpression;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Finds declarations whose inferred types include a type, for a usage view.
+ * <p>
+ * Runs the parallel project scan over type sets kept per file in the {@link AnalysisMemoryCache}, keyed
+ * by the hash of the file with its dependencies, see {@link FileDependencies}, and by the analysis settings.
+ * After an edit only the edited file and the files around it are analysed again, the others are matched
+ * against their kept records. Files analysed again come from the imported snapshot or the resolver.
+ * Matches of a file are handed to the usage view as soon as the file is done.
+ */
+public class VariableTypeSearcher implements UsageSearcher {
+    private final Project project;
+    private final String typeName;
+
+    /**
+     * Key of the records of one file, free of PSI
+     *
+     * @param project location hash of the project
+     * @param fileUrl URL of the file
+     * @param dependencyHash hash of the file and its dependencies
+     * @param settingsHash hash of the analysis settings, see {@link SnapshotStore#getSettingsHash()}
+     */
+    private record FileRecordsKey(String project, String fileUrl, String dependencyHash, String settingsHash) {
+    }
+
+    /**
+     * @param project project to search
+     * @param typeName type to look for, like "None", "Response" or "flask.Response"
+     */
+    public VariableTypeSearcher(@NotNull Project project, @NotNull String typeName) {
+        this.project = project;
+        String trimmed = typeName.trim();
+        // inferred types are short class names
+        this.typeName = trimmed.contains("[") ? trimmed : trimmed.substring(trimmed.lastIndexOf('.') + 1);
+    }
+
+    @Override
+    public void generate(@NotNull Processor<? super Usage> processor) {
+        ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+        if (indicator == null) indicator = new EmptyProgressIndicator();
+        ProgressIndicator scanIndicator = indicator;
+        AtomicBoolean stopped = new AtomicBoolean();
+        ProjectTypeScanner scanner = new ProjectTypeScanner(project);
+        String settingsHash = SnapshotStore.getInstance(project).getSettingsHash();
+        scanner.forEachFile(scanner.findPythonFiles(), scanIndicator, file -> findMatches(scanner, file, settingsHash), usages -> {
+            for (Usage usage : usages) {
+                // the usage view returns false once it is closed
+                if (!stopped.get() && !processor.process(usage)) {
+                    stopped.set(true);
+                    scanIndicator.cancel();
+                }
+            }
+        });
+    }
+
+    /**
+     * Analyses one file and turns declarations holding the type into usages, called inside a read action
+     *
+     * @param scanner scanner giving type sets of the file
+     * @param file Python file
+     * @param settingsHash hash of the analysis settings the search runs with
+     * @return usages of matching declarations, or null if there are none
+     */
+    @Nullable List<Usage> findMatches(@NotNull ProjectTypeScanner scanner, @NotNull VirtualFile file,
+                                      @NotNull String settingsHash) {
+        PsiFile psiFile = file.isValid() ? PsiManager.getInstance(project).findFile(file) : null;
+        if (psiFile == null) return null;
+        FileTypeRecords result = getRecords(scanner, psiFile, settingsHash);
+        if (result == null) return null;
+        List<Usage> usages = new ArrayList<>();
+        for (VariableTypeRecord record : result.records) {
+            if (!matches(record.types)) continue;
+            PsiElement declaration = PsiTreeUtil.getParentOfType(psiFile.findElementAt(record.offset),
+                    PyTargetExpression.class, PyNamedParameter.class);
+            PsiElement name = declaration instanceof PsiNameIdentifierOwner owner ? owner.getNameIdentifier() : null;
+            if (name != null) usages.add(new UsageInfo2UsageAdapter(new UsageInfo(name)));
+        }
+        return usages.isEmpty() ? null : usages;
+    }
+
+    /**
+     * Gets the records of a file, analysing it only if it or one of its dependencies changed since the last search
+     */
+    private @Nullable FileTypeRecords getRecords(@NotNull ProjectTypeScanner scanner, @NotNull PsiFile psiFile,
+                                                 @NotNull String settingsHash) {
+        VirtualFile file = psiFile.getVirtualFile();
+        String dependencyHash = FileDependencies.getDependencyHash(psiFile);
+        if (dependencyHash == null) return scanner.analyseFile(file);
+        FileRecordsKey key = new FileRecordsKey(project.getLocationHash(), file.getUrl(), dependencyHash, settingsHash);
+        AnalysisMemoryCache cache = AnalysisMemoryCache.getInstance();
+        FileTypeRecords cached = cache.get(key, FileTypeRecords.class);
+        if (cached != null) return cached;
+        FileTypeRecords result = scanner.analyseFile(file);
+        if (result != null) {
+            long weight = 0;
+            for (VariableTypeRecord record : result.records) {
+                weight += AnalysisMemoryCache.estimateWeight(record.types);
+            }
+            cache.put(key, result, weight);
+        }
+        return result;
+    }
+
+    /**
+     * Checks if a type set holds the searched type, directly or as a generic like "list[Response]" for "list"
+     *
+     * @param types inferred type names of a declaration
+     * @return true if one of them is the searched type
+     */
+    boolean matches(@NotNull List<String> types) {
+        for (String type : types) {
+            String trimmed = type.trim();
+            int bracket = trimmed.indexOf('[');
+            String base = bracket < 0 ? trimmed : trimmed.substring(0, bracket);
+            if (trimmed.equals(typeName) || base.equals(typeName)) return true;
+        }
+        return false;
+    }
+}
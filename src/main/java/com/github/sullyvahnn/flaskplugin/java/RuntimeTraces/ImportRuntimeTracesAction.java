@@ -0,0 +1,53 @@
+package com.github.sullyvahnn.flaskplugin.java.RuntimeTraces;
+
+import com.github.sullyvahnn.flaskplugin.java.Settings.FlaskTypesSettings;
+import com.intellij.openapi.actionSystem.ActionUpdateThread;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.fileChooser.FileChooser;
+import com.intellij.openapi.fileChooser.FileChooserDescriptor;
+import com.intellij.openapi.project.DumbAwareAction;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.project.ProjectUtil;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * Adds runtime trace files to the project settings and reads all configured traces again.
+ * Files inside the project are stored relative to it, so the settings can be shared.
+ */
+public class ImportRuntimeTracesAction extends DumbAwareAction {
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent e) {
+        Project project = e.getProject();
+        if (project == null) return;
+        FileChooserDescriptor descriptor = new FileChooserDescriptor(true, false, false, false, false, true)
+                .withTitle("Runtime Type Traces")
+                .withDescription("JSON lines or JSON array files of MonkeyType call traces")
+                .withFileFilter(file -> "jsonl".equals(file.getExtension()) || "json".equals(file.getExtension()));
+        VirtualFile baseDir = ProjectUtil.guessProjectDir(project);
+        VirtualFile[] files = FileChooser.chooseFiles(descriptor, project, baseDir);
+        if (files.length == 0) return;
+
+        List<String> traceFiles = FlaskTypesSettings.getInstance(project).getState().traceFiles;
+        for (VirtualFile file : files) {
+            String relative = baseDir == null ? null : VfsUtilCore.getRelativePath(file, baseDir);
+            String path = relative != null ? relative : file.getPath();
+            if (!traceFiles.contains(path)) traceFiles.add(path);
+        }
+        RuntimeTraceStore.getInstance(project).importConfiguredTraces();
+    }
+
+    @Override
+    public void update(@NotNull AnActionEvent e) {
+        e.getPresentation().setEnabled(e.getProject() != null);
+    }
+
+    @Override
+    public @NotNull ActionUpdateThread getActionUpdateThread() {
+        return ActionUpdateThread.BGT;
+    }
+}
@@ -0,0 +1,142 @@
+package com.github.sullyvahnn.flaskplugin.java.RuntimeTraces;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Compact index of runtime type traces: function to the argument and return types observed for it.
+ * <p>
+ * Every call trace only adds type names to the entry of its function, so the index grows with the
+ * number of distinct functions and types, not with the size of the trace files. Type names are
+ * interned and capped per argument, so a function called with hundreds of different classes
+ * does not blow the index up.
+ */
+public final class RuntimeTraceIndex {
+    /** Types kept per argument or return value */
+    static final int MAX_TYPES_PER_SLOT = 16;
+
+    public static final RuntimeTraceIndex EMPTY = new RuntimeTraceIndex(Map.of(), 0);
+
+    /**
+     * Observed types of one function
+     *
+     * @param argumentTypes argument name to observed type names, in order of first observation
+     * @param returnTypes observed return type names
+     * @param calls number of traced calls
+     */
+    public record FunctionTrace(Map<String, List<String>> argumentTypes, List<String> returnTypes, long calls) {
+    }
+
+    /** Functions by "module.qualname" */
+    private final Map<String, FunctionTrace> functions;
+    /** Last segment of the qualified name to the functions having it, for module paths that differ from the project's */
+    private final Map<String, List<String>> byName = new HashMap<>();
+    private final long traces;
+
+    private RuntimeTraceIndex(Map<String, FunctionTrace> functions, long traces) {
+        this.functions = functions;
+        this.traces = traces;
+        for (String key : functions.keySet()) {
+            byName.computeIfAbsent(key.substring(key.lastIndexOf('.') + 1), name -> new ArrayList<>()).add(key);
+        }
+    }
+
+    /**
+     * @return number of distinct traced functions
+     */
+    public int getFunctionCount() {
+        return functions.size();
+    }
+
+    /**
+     * @return number of call traces the index was built from
+     */
+    public long getTraceCount() {
+        return traces;
+    }
+
+    /**
+     * Gets observed types of a function.
+     * Trace modules are matched exactly first, then by path suffix, so "app.views.index"
+     * also matches traces recorded as "src.app.views.index" and the other way around.
+     * Of several suffix matches the one with the fewest extra path segments is taken, ties by name.
+     *
+     * @param qualifiedName qualified name of the function in the project, like "app.views.index"
+     * @return observed types or null if the function was not traced
+     */
+    public @Nullable FunctionTrace getFunction(@NotNull String qualifiedName) {
+        FunctionTrace exact = functions.get(qualifiedName);
+        if (exact != null) return exact;
+        String name = qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1);
+        // the closest module path wins, so the result does not depend on the order of the trace files
+        String best = null;
+        for (String key : byName.getOrDefault(name, List.of())) {
+            if (!key.endsWith("." + qualifiedName) && !qualifiedName.endsWith("." + key)) continue;
+            if (best == null || compareMatches(key, best, qualifiedName) < 0) best = key;
+        }
+        return best == null ? null : functions.get(best);
+    }
+
+    /**
+     * Orders suffix matches of a qualified name, closer module paths first
+     */
+    private static int compareMatches(String first, String second, String qualifiedName) {
+        int byDistance = Integer.compare(Math.abs(first.length() - qualifiedName.length()),
+                Math.abs(second.length() - qualifiedName.length()));
+        return byDistance != 0 ? byDistance : first.compareTo(second);
+    }
+
+    /**
+     * Accumulates call traces into an index
+     */
+    static final class Builder {
+        private final Map<String, MutableTrace> functions = new HashMap<>();
+        private final Map<String, String> interned = new HashMap<>();
+        private long traces = 0;
+
+        private static final class MutableTrace {
+            final Map<String, Set<String>> arguments = new LinkedHashMap<>();
+            final Set<String> returns = new LinkedHashSet<>();
+            long calls = 0;
+        }
+
+        /**
+         * Adds one traced call
+         *
+         * @param function "module.qualname" of the called function
+         * @param argumentTypes argument name to type name
+         * @param returnType type name of the returned value, or null if it was not recorded
+         */
+        void add(@NotNull String function, @NotNull Map<String, String> argumentTypes, @Nullable String returnType) {
+            traces++;
+            MutableTrace trace = functions.computeIfAbsent(intern(function), key -> new MutableTrace());
+            trace.calls++;
+            for (Map.Entry<String, String> argument : argumentTypes.entrySet()) {
+                addCapped(trace.arguments.computeIfAbsent(intern(argument.getKey()), key -> new LinkedHashSet<>()),
+                        argument.getValue());
+            }
+            if (returnType != null) addCapped(trace.returns, returnType);
+        }
+
+        private void addCapped(Set<String> types, String type) {
+            if (types.size() < MAX_TYPES_PER_SLOT) types.add(intern(type));
+        }
+
+        private String intern(String text) {
+            return interned.computeIfAbsent(text, key -> key);
+        }
+
+        @NotNull RuntimeTraceIndex build() {
+            Map<String, FunctionTrace> built = new HashMap<>(functions.size());
+            functions.forEach((name, trace) -> {
+                Map<String, List<String>> arguments = new LinkedHashMap<>();
+                trace.arguments.forEach((argument, types) -> arguments.put(argument, List.copyOf(types)));
+                built.put(name, new FunctionTrace(Collections.unmodifiableMap(arguments),
+                        List.copyOf(trace.returns), trace.calls));
+            });
+            return new RuntimeTraceIndex(built, traces);
+        }
+    }
+}
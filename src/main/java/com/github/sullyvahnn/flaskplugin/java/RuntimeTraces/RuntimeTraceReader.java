@@ -0,0 +1,223 @@
+package com.github.sullyvahnn.flaskplugin.java.RuntimeTraces;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProgressIndicator;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams MonkeyType-style call traces into a {@link RuntimeTraceIndex.Builder}.
+ * <p>
+ * Two layouts are read, both with the columns of MonkeyType's {@code monkeytype_call_traces} table:
+ * JSON lines with one call trace per line, and a JSON array of trace objects as written by
+ * {@code sqlite3 -json monkeytype.sqlite3 "select * from monkeytype_call_traces"}.
+ * <pre>
+ * {"module": "app.views", "qualname": "index", "arg_types": {"user_id": {"module": "builtins", "qualname": "int"}},
+ *  "return_type": {"module": "flask.wrappers", "qualname": "Response"}}
+ * </pre>
+ * {@code arg_types} and {@code return_type} may be objects or strings holding JSON, as MonkeyType stores them.
+ * Files are read as a stream, only the index is kept in memory, so traces of several gigabytes can be read.
+ */
+final class RuntimeTraceReader {
+    private static final Logger LOG = Logger.getInstance(RuntimeTraceReader.class);
+    private static final String BUILTINS = "builtins";
+    private static final String TYPING = "typing";
+    /** Generic aliases of the typing module MonkeyType records, to the builtins static inference reports */
+    private static final Map<String, String> TYPING_ALIASES = Map.of("List", "list", "Dict", "dict", "Set", "set",
+            "FrozenSet", "frozenset", "Tuple", "tuple", "Type", "type", "DefaultDict", "defaultdict");
+
+    private final RuntimeTraceIndex.Builder builder;
+    private final ProgressIndicator indicator;
+
+    RuntimeTraceReader(@NotNull RuntimeTraceIndex.Builder builder, @NotNull ProgressIndicator indicator) {
+        this.builder = builder;
+        this.indicator = indicator;
+    }
+
+    /**
+     * Reads one trace file, reporting progress by bytes read.
+     * Malformed traces are skipped.
+     *
+     * @param path JSON lines or JSON array file
+     */
+    void read(@NotNull Path path) throws IOException {
+        long size = Math.max(1, Files.size(path));
+        try (CountingInputStream counting = new CountingInputStream(new BufferedInputStream(Files.newInputStream(path)));
+             BufferedReader reader = new BufferedReader(new InputStreamReader(counting, StandardCharsets.UTF_8))) {
+            reader.mark(1024);
+            int first;
+            do {
+                first = reader.read();
+            } while (first >= 0 && Character.isWhitespace(first));
+            reader.reset();
+            if (first == '[') {
+                readArray(reader, counting, size);
+            } else {
+                readLines(reader, counting, size);
+            }
+        }
+    }
+
+    private void readLines(BufferedReader reader, CountingInputStream counting, long size) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            indicator.checkCanceled();
+            indicator.setFraction((double) counting.count / size);
+            if (line.isBlank()) continue;
+            try (JsonReader json = new JsonReader(new StringReader(line))) {
+                readTrace(json);
+            } catch (IOException | IllegalStateException e) {
+                LOG.debug("Skipping malformed trace line", e);
+            }
+        }
+    }
+
+    private void readArray(BufferedReader reader, CountingInputStream counting, long size) throws IOException {
+        JsonReader json = new JsonReader(reader);
+        json.beginArray();
+        while (json.hasNext()) {
+            indicator.checkCanceled();
+            indicator.setFraction((double) counting.count / size);
+            readTrace(json);
+        }
+        json.endArray();
+    }
+
+    private void readTrace(JsonReader json) throws IOException {
+        String module = null;
+        String qualname = null;
+        Map<String, String> argumentTypes = Map.of();
+        String returnType = null;
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "module" -> module = nextStringOrNull(json);
+                case "qualname" -> qualname = nextStringOrNull(json);
+                case "arg_types" -> argumentTypes = readArgumentTypes(json);
+                case "return_type" -> returnType = readEncodedType(json);
+                default -> json.skipValue();
+            }
+        }
+        json.endObject();
+        if (module != null && qualname != null) builder.add(module + "." + qualname, argumentTypes, returnType);
+    }
+
+    private static Map<String, String> readArgumentTypes(JsonReader json) throws IOException {
+        if (json.peek() == JsonToken.STRING) {
+            try (JsonReader inner = new JsonReader(new StringReader(json.nextString()))) {
+                return readArgumentTypes(inner);
+            }
+        }
+        if (json.peek() != JsonToken.BEGIN_OBJECT) {
+            json.skipValue();
+            return Map.of();
+        }
+        Map<String, String> types = new LinkedHashMap<>();
+        json.beginObject();
+        while (json.hasNext()) {
+            String argument = json.nextName();
+            String type = readEncodedType(json);
+            if (type != null) types.put(argument, type);
+        }
+        json.endObject();
+        return types;
+    }
+
+    /**
+     * Reads a type encoded as an object, or as a string holding the object
+     */
+    private static @Nullable String readEncodedType(JsonReader json) throws IOException {
+        if (json.peek() == JsonToken.STRING) {
+            try (JsonReader inner = new JsonReader(new StringReader(json.nextString()))) {
+                return readEncodedType(inner);
+            }
+        }
+        if (json.peek() != JsonToken.BEGIN_OBJECT) {
+            json.skipValue();
+            return null;
+        }
+        String module = null;
+        String qualname = null;
+        List<String> elementTypes = new ArrayList<>();
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "module" -> module = nextStringOrNull(json);
+                case "qualname" -> qualname = nextStringOrNull(json);
+                case "elem_types" -> {
+                    if (json.peek() != JsonToken.BEGIN_ARRAY) {
+                        json.skipValue();
+                        continue;
+                    }
+                    json.beginArray();
+                    while (json.hasNext()) {
+                        String elementType = readEncodedType(json);
+                        if (elementType != null) elementTypes.add(elementType);
+                    }
+                    json.endArray();
+                }
+                default -> json.skipValue();
+            }
+        }
+        json.endObject();
+        return qualname == null ? null : toTypeName(module, qualname, elementTypes);
+    }
+
+    /**
+     * Converts an encoded type to the names the resolver reports, like "list[int]" or "int | None"
+     */
+    private static String toTypeName(@Nullable String module, @NotNull String qualname, List<String> elementTypes) {
+        if ("NoneType".equals(qualname)) return "None";
+        if ("Union".equals(qualname) || "Optional".equals(qualname)) {
+            return elementTypes.isEmpty() ? "Any" : String.join(" | ", elementTypes);
+        }
+        // classes are reported by their short name, the same way static inference does
+        String name = BUILTINS.equals(module) ? qualname : qualname.substring(qualname.lastIndexOf('.') + 1);
+        if (TYPING.equals(module)) name = TYPING_ALIASES.getOrDefault(name, name);
+        return elementTypes.isEmpty() ? name : name + "[" + String.join(", ", elementTypes) + "]";
+    }
+
+    private static @Nullable String nextStringOrNull(JsonReader json) throws IOException {
+        if (json.peek() == JsonToken.NULL) {
+            json.nextNull();
+            return null;
+        }
+        return json.nextString();
+    }
+
+    /**
+     * Counts bytes taken from the file, for progress of files too large to know their line count
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        long count = 0;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = super.read();
+            if (read >= 0) count++;
+            return read;
+        }
+
+        @Override
+        public int read(byte @NotNull [] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) count += read;
+            return read;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.github.sullyvahnn.flaskplugin.java.RuntimeTraces;
+
+import com.github.sullyvahnn.flaskplugin.java.Settings.FlaskTypesSettings;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiManager;
+import com.jetbrains.python.psi.PyFunction;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Holds the index of runtime type traces configured for the project, usually captured by MonkeyType on staging.
+ * <p>
+ * Trace files listed in {@link FlaskTypesSettings} are read in background at startup and whenever
+ * the list changes. The resolver merges observed types of a function into its static results,
+ * marked as observed.
+ */
+@Service(Service.Level.PROJECT)
+public final class RuntimeTraceStore {
+    private static final Logger LOG = Logger.getInstance(RuntimeTraceStore.class);
+
+    private final Project project;
+    private volatile RuntimeTraceIndex index = RuntimeTraceIndex.EMPTY;
+    /** SHA-256 of the contents of the indexed trace files, empty without traces */
+    private volatile String contentHash = "";
+
+    public RuntimeTraceStore(@NotNull Project project) {
+        this.project = project;
+    }
+
+    public static RuntimeTraceStore getInstance(@NotNull Project project) {
+        return project.getService(RuntimeTraceStore.class);
+    }
+
+    /**
+     * Reads the trace files configured in {@link FlaskTypesSettings} in a background task, replacing the current index
+     */
+    public void importConfiguredTraces() {
+        List<Path> paths = getConfiguredPaths();
+        if (paths.isEmpty()) {
+            contentHash = "";
+            index = RuntimeTraceIndex.EMPTY;
+            return;
+        }
+        new Task.Backgroundable(project, "Reading runtime type traces", true) {
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                RuntimeTraceIndex built = readTraces(paths, indicator);
+                contentHash = hashContents(paths);
+                index = built;
+                LOG.info("Indexed " + built.getTraceCount() + " runtime traces of " + built.getFunctionCount() + " functions");
+                // cached results were computed without the observed types
+                ApplicationManager.getApplication().invokeLater(
+                        () -> PsiManager.getInstance(project).dropPsiCaches(), project.getDisposed());
+            }
+        }.queue();
+    }
+
+    private List<Path> getConfiguredPaths() {
+        String basePath = project.getBasePath();
+        List<Path> paths = new ArrayList<>();
+        for (String configured : FlaskTypesSettings.getInstance(project).getState().traceFiles) {
+            if (configured == null || configured.isBlank()) continue;
+            Path path = basePath == null ? Path.of(configured) : Path.of(basePath).resolve(configured);
+            if (Files.isRegularFile(path)) paths.add(path);
+        }
+        return paths;
+    }
+
+    private static RuntimeTraceIndex readTraces(List<Path> paths, ProgressIndicator indicator) {
+        RuntimeTraceIndex.Builder builder = new RuntimeTraceIndex.Builder();
+        RuntimeTraceReader reader = new RuntimeTraceReader(builder, indicator);
+        indicator.setIndeterminate(false);
+        for (Path path : paths) {
+            indicator.setText2(path.getFileName().toString());
+            try {
+                reader.read(path);
+            } catch (IOException | IllegalStateException e) {
+                LOG.warn("Cannot read runtime traces " + path, e);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Hashes the trace files in order, unreadable files are left out like they are by the index
+     */
+    private static String hashContents(List<Path> paths) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        for (Path path : paths) {
+            try (InputStream stream = Files.newInputStream(path)) {
+                int read;
+                while ((read = stream.read(buffer)) > 0) {
+                    digest.update(buffer, 0, read);
+                }
+            } catch (IOException e) {
+                LOG.warn("Cannot hash runtime traces " + path, e);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Gets the hash of the indexed trace contents, so results computed with other traces can be told apart
+     *
+     * @return lowercase hex digest, empty when no traces are indexed
+     */
+    public @NotNull String getContentHash() {
+        return contentHash;
+    }
+
+    /**
+     * Gets observed types of a function, must be called inside a read action
+     *
+     * @param function project function
+     * @return observed types or null if the function was not traced
+     */
+    public @Nullable RuntimeTraceIndex.FunctionTrace getTrace(@NotNull PyFunction function) {
+        RuntimeTraceIndex current = index;
+        if (current.getFunctionCount() == 0) return null;
+        String qualifiedName = function.getQualifiedName();
+        return qualifiedName == null ? null : current.getFunction(qualifiedName);
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.sullyvahnn.flaskplugin.java.Settings;
+
+import com.intellij.openapi.components.PersistentStateComponent;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.components.State;
+import com.intellij.openapi.components.Storage;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.openapi.util.SimpleModificationTracker;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Project settings of the plugin, stored in .idea/flaskTypes.xml so they can be shared through VCS.
+ */
+@Service(Service.Level.PROJECT)
+@State(name = "FlaskTypesSettings", storages = @Storage("flaskTypes.xml"))
+public final class FlaskTypesSettings implements PersistentStateComponent<FlaskTypesSettings.State> {
+
+    public static class State {
+        /** Analysis snapshot imported at startup, relative to the project directory or absolute */
+        public String snapshotPath = ".flask-types/snapshot.json";
+        /**
+         * Project additions to the Flask API type table, for example "g.user" to "User".
+         * Keys use the same syntax as the built-in table: "name" for attributes,
+         * "name()" for calls and "name[]" for subscriptions.
+         */
+        public Map<String, String> apiTypes = new LinkedHashMap<>();
+        /** Files with at least this many lines are analysed in large-file mode */
+        public int largeFileLines = 5000;
+        /** Files with at least this many PSI nodes are analysed in large-file mode */
+        public int largeFilePsiNodes = 200_000;
+        /**
+         * Runtime type traces merged into the results, relative to the project directory or absolute.
+         * JSON lines or JSON arrays of MonkeyType call traces.
+         */
+        public List<String> traceFiles = new ArrayList<>();
+    }
+
+    private State state = new State();
+    private final SimpleModificationTracker modificationTracker = new SimpleModificationTracker();
+
+    public static FlaskTypesSettings getInstance(@NotNull Project project) {
+        return project.getService(FlaskTypesSettings.class);
+    }
+
+    @Override
+    public @NotNull State getState() {
+        return state;
+    }
+
+    @Override
+    public void loadState(@NotNull State state) {
+        this.state = state;
+        modificationTracker.incModificationCount();
+    }
+
+    /**
+     * Tracker changed whenever the settings are reloaded, for caches holding results that depend on them
+     */
+    public @NotNull ModificationTracker getModificationTracker() {
+        return modificationTracker;
+    }
+}
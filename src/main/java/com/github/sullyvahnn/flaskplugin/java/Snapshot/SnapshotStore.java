@@ -0,0 +1,362 @@
+package com.github.sullyvahnn.flaskplugin.java.Snapshot;
+
+import com.github.sullyvahnn.flaskplugin.java.Flask.FlaskApiTypeTable;
+import com.github.sullyvahnn.flaskplugin.java.NormalTypeWidget.ReturnTypeSummaries;
+import com.github.sullyvahnn.flaskplugin.java.RuntimeTraces.RuntimeTraceStore;
+import com.github.sullyvahnn.flaskplugin.java.Settings.FlaskTypesSettings;
+import com.github.sullyvahnn.flaskplugin.java.TypeAnalysis.FileDependencies;
+import com.github.sullyvahnn.flaskplugin.java.TypeAnalysis.FileTypeRecords;
+import com.github.sullyvahnn.flaskplugin.java.TypeAnalysis.TypeAnalysisCache;
+import com.github.sullyvahnn.flaskplugin.java.TypeAnalysis.VariableTypeRecord;
+import com.google.gson.stream.JsonReader;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.project.ProjectUtil;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.jetbrains.python.psi.PyFunction;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds an imported analysis snapshot, usually produced by the headless flask-types command on CI.
+ * <p>
+ * Entries are keyed by project-relative path and hold the variable types of a file, which serve as
+ * its symbol table, and the return summaries of its functions. Types of one file depend on other
+ * files through calls, imports and call sites, so an entry is used only while both the content hash
+ * of its file and the hash of the file with its dependencies, see {@link FileDependencies}, match.
+ * An edit therefore only invalidates the entries of the edited file and the files around it, the rest
+ * keep answering. An entry found stale is dropped, so it is not hashed again. The whole snapshot is
+ * dropped once the analysis inputs outside the code change, see {@link #getSettingsHash()}.
+ * Installed packages are not hashed, CI is expected to run in the same locked environment.
+ */
+@Service(Service.Level.PROJECT)
+public final class SnapshotStore {
+    public static final String FORMAT = "flask-types-snapshot";
+    /** Version of the snapshot layout and of the analysis producing it, bumped when either changes */
+    public static final int VERSION = 13;
+
+    private static final Logger LOG = Logger.getInstance(SnapshotStore.class);
+
+    private final Project project;
+    private final Map<String, FileEntry> entries = new ConcurrentHashMap<>();
+    /** Settings hash the imported snapshot was written with */
+    private volatile String importedSettingsHash;
+
+    /**
+     * Snapshot results of one file
+     *
+     * @param hash content hash of the file
+     * @param dependencyHash hash of the file and the project files its types depend on
+     */
+    private record FileEntry(String hash, String dependencyHash, List<SnapshotVariable> variables,
+                             Map<Integer, List<String>> typesByOffset, Map<Integer, ReturnTypeSummaries.Summary> functions) {
+    }
+
+    private record SnapshotVariable(int offset, int line, String scope, String name, List<String> types) {
+    }
+
+    public SnapshotStore(@NotNull Project project) {
+        this.project = project;
+    }
+
+    public static SnapshotStore getInstance(@NotNull Project project) {
+        return project.getService(SnapshotStore.class);
+    }
+
+    /**
+     * Imports the snapshot configured in {@link FlaskTypesSettings} if the file exists
+     */
+    public void importConfiguredSnapshot() {
+        String configured = FlaskTypesSettings.getInstance(project).getState().snapshotPath;
+        String basePath = project.getBasePath();
+        if (configured == null || configured.isBlank() || basePath == null) return;
+
+        Path path = Path.of(basePath).resolve(configured);
+        if (!Files.isRegularFile(path)) return;
+        try {
+            int count = importSnapshot(path);
+            LOG.info("Imported type analysis snapshot with " + count + " files from " + path);
+        } catch (IOException | IllegalStateException e) {
+            LOG.warn("Cannot import type analysis snapshot " + path, e);
+        }
+    }
+
+    /**
+     * Replaces current entries with the snapshot read from path.
+     * The file is streamed, so only the parsed entries are held in memory.
+     *
+     * @param path snapshot file
+     * @return number of imported file entries
+     */
+    public int importSnapshot(@NotNull Path path) throws IOException {
+        Map<String, FileEntry> imported = new ConcurrentHashMap<>();
+        String settingsHash = null;
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+             JsonReader json = new JsonReader(reader)) {
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "format" -> {
+                        if (!FORMAT.equals(json.nextString())) throw new IllegalStateException("Not a type analysis snapshot");
+                    }
+                    case "version" -> {
+                        int version = json.nextInt();
+                        if (version != VERSION) throw new IllegalStateException("Unsupported snapshot version " + version);
+                    }
+                    case "settingsHash" -> settingsHash = json.nextString();
+                    case "files" -> {
+                        json.beginArray();
+                        while (json.hasNext()) {
+                            readFile(json, imported);
+                        }
+                        json.endArray();
+                    }
+                    default -> json.skipValue();
+                }
+            }
+            json.endObject();
+        }
+        if (settingsHash == null) throw new IllegalStateException("Snapshot has no settings hash");
+        entries.clear();
+        importedSettingsHash = settingsHash;
+        entries.putAll(imported);
+        return imported.size();
+    }
+
+    private static void readFile(JsonReader json, Map<String, FileEntry> imported) throws IOException {
+        String path = null;
+        String hash = null;
+        String dependencyHash = null;
+        List<SnapshotVariable> variables = new ArrayList<>();
+        Map<Integer, ReturnTypeSummaries.Summary> functions = new HashMap<>();
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "path" -> path = json.nextString();
+                case "hash" -> hash = json.nextString();
+                case "dependencies" -> dependencyHash = json.nextString();
+                case "variables" -> {
+                    json.beginArray();
+                    while (json.hasNext()) {
+                        variables.add(readVariable(json));
+                    }
+                    json.endArray();
+                }
+                case "functions" -> {
+                    json.beginArray();
+                    while (json.hasNext()) {
+                        readFunction(json, functions);
+                    }
+                    json.endArray();
+                }
+                default -> json.skipValue();
+            }
+        }
+        json.endObject();
+        if (path != null && hash != null && dependencyHash != null) {
+            Map<Integer, List<String>> typesByOffset = new HashMap<>();
+            for (SnapshotVariable variable : variables) {
+                typesByOffset.put(variable.offset(), variable.types());
+            }
+            imported.put(path, new FileEntry(hash, dependencyHash, List.copyOf(variables), typesByOffset,
+                    Map.copyOf(functions)));
+        }
+    }
+
+    private static void readFunction(JsonReader json, Map<Integer, ReturnTypeSummaries.Summary> functions) throws IOException {
+        int offset = -1;
+        boolean mayReturnNone = false;
+        List<ReturnTypeSummaries.ReturnType> types = new ArrayList<>();
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "offset" -> offset = json.nextInt();
+                case "mayReturnNone" -> mayReturnNone = json.nextBoolean();
+                case "returns" -> {
+                    json.beginArray();
+                    while (json.hasNext()) {
+                        types.add(readReturnType(json));
+                    }
+                    json.endArray();
+                }
+                default -> json.skipValue();
+            }
+        }
+        json.endObject();
+        if (offset >= 0) functions.put(offset, new ReturnTypeSummaries.Summary(List.copyOf(types), mayReturnNone));
+    }
+
+    private static ReturnTypeSummaries.ReturnType readReturnType(JsonReader json) throws IOException {
+        String type = "";
+        int line = -1;
+        boolean observed = false;
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "type" -> type = json.nextString();
+                case "line" -> line = json.nextInt();
+                case "observed" -> observed = json.nextBoolean();
+                default -> json.skipValue();
+            }
+        }
+        json.endObject();
+        return new ReturnTypeSummaries.ReturnType(type, line, observed);
+    }
+
+    private static SnapshotVariable readVariable(JsonReader json) throws IOException {
+        int offset = -1;
+        int line = -1;
+        String scope = "";
+        String name = "";
+        List<String> types = new ArrayList<>();
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "offset" -> offset = json.nextInt();
+                case "line" -> line = json.nextInt();
+                case "scope" -> scope = json.nextString();
+                case "name" -> name = json.nextString();
+                case "types" -> {
+                    json.beginArray();
+                    while (json.hasNext()) {
+                        types.add(json.nextString());
+                    }
+                    json.endArray();
+                }
+                default -> json.skipValue();
+            }
+        }
+        json.endObject();
+        return new SnapshotVariable(offset, line, scope, name, List.copyOf(types));
+    }
+
+    /**
+     * Gets snapshot results of a file if neither the file nor its dependencies changed since the snapshot.
+     * Must be called inside a read action.
+     *
+     * @param psiFile project file
+     * @return results or null if the file is not in the snapshot or its entry is stale
+     */
+    public @Nullable FileTypeRecords getFileResult(@NotNull PsiFile psiFile) {
+        FileEntry entry = getEntry(psiFile);
+        VirtualFile file = psiFile.getVirtualFile();
+        if (entry == null || file == null) return null;
+        List<VariableTypeRecord> records = new ArrayList<>(entry.variables().size());
+        for (SnapshotVariable variable : entry.variables()) {
+            if (variable.types().isEmpty()) continue;
+            records.add(new VariableTypeRecord(file, variable.scope(), variable.name(),
+                    variable.offset(), variable.line(), variable.types()));
+        }
+        return new FileTypeRecords(file, entry.hash(), records, entry.functions());
+    }
+
+    /**
+     * Gets snapshot types of a declaration if its file and the files around it have not changed since the snapshot.
+     * Must be called inside a read action.
+     *
+     * @param identifier declaration, see {@link TypeAnalysisCache#isAnalysedDeclaration}
+     * @return type names or null if the snapshot cannot answer
+     */
+    public @Nullable List<String> getTypes(@NotNull PsiElement identifier) {
+        if (entries.isEmpty() || !TypeAnalysisCache.isAnalysedDeclaration(identifier)) return null;
+        FileEntry entry = getEntry(identifier.getContainingFile());
+        // declarations without types are not stored
+        return entry == null ? null : entry.typesByOffset().getOrDefault(identifier.getTextOffset(), List.of());
+    }
+
+    /**
+     * Gets the snapshot return summary of a function if its file and the files around it have not changed
+     * since the snapshot. Must be called inside a read action.
+     *
+     * @param function project function
+     * @return summary or null if the snapshot cannot answer
+     */
+    public @Nullable ReturnTypeSummaries.Summary getSummary(@NotNull PyFunction function) {
+        if (entries.isEmpty()) return null;
+        FileEntry entry = getEntry(function.getContainingFile());
+        if (entry == null) return null;
+        // functions without return types are not stored
+        ReturnTypeSummaries.Summary summary = entry.functions().get(function.getTextOffset());
+        return summary != null ? summary : new ReturnTypeSummaries.Summary(List.of(), false);
+    }
+
+    /**
+     * Gets the entry of a file if it is still current, dropping it once it is not
+     */
+    private @Nullable FileEntry getEntry(@Nullable PsiFile psiFile) {
+        if (entries.isEmpty()) return null;
+        VirtualFile file = psiFile == null ? null : psiFile.getVirtualFile();
+        VirtualFile baseDir = ProjectUtil.guessProjectDir(project);
+        String path = file == null || baseDir == null ? null : VfsUtilCore.getRelativePath(file, baseDir);
+        // library files are never in the snapshot, so they are not hashed
+        FileEntry entry = path == null ? null : entries.get(path);
+        if (entry == null) return null;
+        if (!getSettingsHash().equals(importedSettingsHash)) {
+            LOG.info("Analysis settings changed since the type analysis snapshot, dropping it");
+            entries.clear();
+            return null;
+        }
+        if (!entry.hash().equals(TypeAnalysisCache.getContentHash(psiFile))) {
+            entries.remove(path, entry);
+            return null;
+        }
+        String dependencyHash = FileDependencies.getDependencyHash(psiFile);
+        // unknown while indexing, the entry may still be current
+        if (dependencyHash == null) return null;
+        if (!entry.dependencyHash().equals(dependencyHash)) {
+            entries.remove(path, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Gets the hash of the analysis inputs besides the code: the snapshot and built-in API table versions,
+     * the project API type table entries and the runtime trace contents. Cheap, no file is read.
+     *
+     * @return lowercase hex digest
+     */
+    public @NotNull String getSettingsHash() {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        update(digest, "version", String.valueOf(VERSION));
+        update(digest, "apiTable", String.valueOf(FlaskApiTypeTable.getVersion()));
+        TreeMap<String, String> apiTypes = new TreeMap<>(FlaskTypesSettings.getInstance(project).getState().apiTypes);
+        for (Map.Entry<String, String> apiType : apiTypes.entrySet()) {
+            update(digest, apiType.getKey(), apiType.getValue());
+        }
+        update(digest, "traces", RuntimeTraceStore.getInstance(project).getContentHash());
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void update(MessageDigest digest, String name, String value) {
+        // separators keep ("ab", "c") and ("a", "bc") apart
+        digest.update(name.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) '\n');
+    }
+}
@@ -0,0 +1,99 @@
+package com.github.sullyvahnn.flaskplugin.java.Snapshot;
+
+import com.github.sullyvahnn.flaskplugin.java.NormalTypeWidget.ReturnTypeSummaries;
+import com.github.sullyvahnn.flaskplugin.java.TypeAnalysis.FileDependencies;
+import com.github.sullyvahnn.flaskplugin.java.TypeAnalysis.FileTypeRecords;
+import com.github.sullyvahnn.flaskplugin.java.TypeAnalysis.VariableTypeRecord;
+import com.google.gson.stream.JsonWriter;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * Streams analysis results into a snapshot file which IDEs can import with {@link SnapshotStore}.
+ * <p>
+ * The snapshot carries the settings hash it was computed with, and every file entry the hash of its content
+ * and the hash of the file with its dependencies, so an importing IDE uses an entry only while its copy
+ * of that file and the files around it is still identical.
+ * Methods are synchronized because scanner workers call {@link #write} concurrently.
+ */
+public class SnapshotWriter implements Closeable {
+    private final JsonWriter json;
+    private final VirtualFile baseDir;
+
+    /**
+     * @param out destination of the snapshot
+     * @param baseDir project directory, file paths are stored relative to it
+     * @param settingsHash hash of the analysis settings, see {@link SnapshotStore#getSettingsHash()}
+     */
+    public SnapshotWriter(@NotNull Writer out, @NotNull VirtualFile baseDir, @NotNull String settingsHash) throws IOException {
+        this.baseDir = baseDir;
+        json = new JsonWriter(out);
+        json.beginObject();
+        json.name("format").value(SnapshotStore.FORMAT);
+        json.name("version").value(SnapshotStore.VERSION);
+        json.name("settingsHash").value(settingsHash);
+        json.name("files").beginArray();
+    }
+
+    /**
+     * Writes results of one file, including files without any typed declaration
+     *
+     * @param result analysis results of the file
+     * @param dependencyHash hash of the file and its dependencies, see {@link FileDependencies#getDependencyHash}
+     */
+    public synchronized void write(@NotNull FileTypeRecords result, @NotNull String dependencyHash) throws IOException {
+        String path = VfsUtilCore.getRelativePath(result.file, baseDir);
+        if (path == null) return;
+
+        json.beginObject();
+        json.name("path").value(path);
+        json.name("hash").value(result.contentHash);
+        json.name("dependencies").value(dependencyHash);
+        json.name("variables").beginArray();
+        for (VariableTypeRecord record : result.records) {
+            json.beginObject();
+            json.name("offset").value(record.offset);
+            json.name("line").value(record.lineNumber);
+            json.name("scope").value(record.scope);
+            json.name("name").value(record.name);
+            json.name("types").beginArray();
+            for (String type : record.types) {
+                json.value(type);
+            }
+            json.endArray();
+            json.endObject();
+        }
+        json.endArray();
+        json.name("functions").beginArray();
+        for (Map.Entry<Integer, ReturnTypeSummaries.Summary> function : result.functions.entrySet()) {
+            json.beginObject();
+            json.name("offset").value(function.getKey());
+            json.name("mayReturnNone").value(function.getValue().mayReturnNone());
+            json.name("returns").beginArray();
+            for (ReturnTypeSummaries.ReturnType type : function.getValue().types()) {
+                json.beginObject();
+                json.name("type").value(type.type());
+                json.name("line").value(type.lineNumber());
+                if (type.observed()) json.name("observed").value(true);
+                json.endObject();
+            }
+            json.endArray();
+            json.endObject();
+        }
+        json.endArray();
+        json.endObject();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        json.endArray();
+        json.endObject();
+        json.close();
+    }
+}
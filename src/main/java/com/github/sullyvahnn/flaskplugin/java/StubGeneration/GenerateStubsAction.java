@@ -0,0 +1,156 @@
+package com.github.sullyvahnn.flaskplugin.java.StubGeneration;
+
+import com.github.sullyvahnn.flaskplugin.java.ProjectAnalysis.ProjectTypeScanner;
+import com.intellij.openapi.actionSystem.ActionUpdateThread;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.fileEditor.impl.LoadTextUtil;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.DumbAwareAction;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.wm.StatusBar;
+import com.intellij.openapi.wm.WindowManager;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.jetbrains.python.psi.PyFile;
+import com.jetbrains.python.pyi.PyiFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes a .pyi stub next to every unannotated module of the project, from the inferred types.
+ * <p>
+ * Annotations of a stub are used by the IDE's own inference and added to the types of the resolver.
+ * A stub whose header is still current, see {@link GeneratedStubs}, is kept without analysing its module again.
+ * Other stubs are generated again and only written when their text changed. Stubs written by hand are never
+ * touched, and stubs of modules that became fully annotated or define names a stub cannot describe are removed.
+ */
+public class GenerateStubsAction extends DumbAwareAction {
+    private static final Logger LOG = Logger.getInstance(GenerateStubsAction.class);
+
+    private enum Status { WRITE, DELETE, UP_TO_DATE, SKIPPED }
+
+    /**
+     * Outcome of one module
+     *
+     * @param stubPath path of the stub next to the module
+     * @param text new stub text, null unless the stub is written
+     * @param status what happens to the stub
+     */
+    private record StubUpdate(Path stubPath, @Nullable String text, Status status) {
+    }
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent e) {
+        Project project = e.getProject();
+        if (project == null) return;
+
+        new Task.Backgroundable(project, "Generating type stubs", true) {
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                ProjectTypeScanner scanner = new ProjectTypeScanner(project);
+                List<Path> changed = new CopyOnWriteArrayList<>();
+                AtomicInteger upToDate = new AtomicInteger();
+                AtomicInteger skipped = new AtomicInteger();
+                try {
+                    scanner.forEachFile(scanner.findPythonFiles(), indicator, file -> prepare(project, file), update -> {
+                        switch (update.status()) {
+                            case WRITE, DELETE -> {
+                                if (apply(update)) changed.add(update.stubPath());
+                            }
+                            case UP_TO_DATE -> upToDate.incrementAndGet();
+                            case SKIPPED -> skipped.incrementAndGet();
+                        }
+                    });
+                } finally {
+                    // stubs written before a cancellation are complete and have to show up as well
+                    LocalFileSystem.getInstance().refreshNioFiles(changed, true, false, null);
+                }
+                String message = "Type stubs: " + changed.size() + " updated, " + upToDate.get() + " up to date, "
+                        + skipped.get() + " annotated, conditional or hand-written";
+                LOG.info(message);
+                ApplicationManager.getApplication().invokeLater(() -> {
+                    StatusBar statusBar = WindowManager.getInstance().getStatusBar(project);
+                    if (statusBar != null) statusBar.setInfo(message);
+                }, project.getDisposed());
+            }
+        }.queue();
+    }
+
+    /**
+     * Decides what happens to the stub of one module and generates its text, called inside a read action
+     *
+     * @param project project of the module
+     * @param file Python module
+     * @return update of the stub, or null if the file cannot have one
+     */
+    private static @Nullable StubUpdate prepare(@NotNull Project project, @NotNull VirtualFile file) {
+        if (!file.isValid() || !file.isInLocalFileSystem() || file.getParent() == null) return null;
+        PsiFile psiFile = PsiManager.getInstance(project).findFile(file);
+        if (!(psiFile instanceof PyFile module) || psiFile instanceof PyiFile) return null;
+        String stubName = file.getNameWithoutExtension() + ".pyi";
+        Path stubPath = file.toNioPath().resolveSibling(stubName);
+
+        VirtualFile existing = file.getParent().findChild(stubName);
+        CharSequence existingText = null;
+        if (existing != null) {
+            PsiFile existingStub = PsiManager.getInstance(project).findFile(existing);
+            existingText = existingStub != null ? existingStub.getViewProvider().getContents() : LoadTextUtil.loadText(existing);
+            GeneratedStubs.Header header = GeneratedStubs.readHeader(existingText);
+            if (header == null) return new StubUpdate(stubPath, null, Status.SKIPPED);
+            // neither the module nor the modules its types come from changed since the stub was written
+            if (header.isCurrent(module)) return new StubUpdate(stubPath, null, Status.UP_TO_DATE);
+        }
+        // a stub would hide names the module defines conditionally from every importer
+        String text = StubGenerator.canDescribe(module) ? new StubGenerator(module).generate() : null;
+        if (text == null) {
+            // a fully annotated module needs no stub, an old generated one would hide its annotations
+            return new StubUpdate(stubPath, null, existingText != null ? Status.DELETE : Status.SKIPPED);
+        }
+        if (existingText != null && StringUtil.equals(existingText, text)) return new StubUpdate(stubPath, null, Status.UP_TO_DATE);
+        return new StubUpdate(stubPath, text, Status.WRITE);
+    }
+
+    /**
+     * Writes or removes a stub, replacing the previous text at once
+     *
+     * @return true if the stub changed on disk
+     */
+    private static boolean apply(@NotNull StubUpdate update) {
+        Path path = update.stubPath();
+        try {
+            if (update.text() == null) return Files.deleteIfExists(path);
+            Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+            Files.writeString(temporary, update.text(), StandardCharsets.UTF_8);
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            LOG.warn("Cannot write type stub " + path, e);
+            return false;
+        }
+    }
+
+    @Override
+    public void update(@NotNull AnActionEvent e) {
+        e.getPresentation().setEnabled(e.getProject() != null);
+    }
+
+    @Override
+    public @NotNull ActionUpdateThread getActionUpdateThread() {
+        return ActionUpdateThread.BGT;
+    }
+}
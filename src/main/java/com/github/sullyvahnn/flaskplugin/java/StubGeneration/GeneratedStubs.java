@@ -0,0 +1,123 @@
+package com.github.sullyvahnn.flaskplugin.java.StubGeneration;
+
+import com.github.sullyvahnn.flaskplugin.java.Snapshot.SnapshotStore;
+import com.github.sullyvahnn.flaskplugin.java.TypeAnalysis.FileDependencies;
+import com.github.sullyvahnn.flaskplugin.java.TypeAnalysis.TypeAnalysisCache;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.jetbrains.python.psi.PyFile;
+import com.jetbrains.python.psi.PyFunction;
+import com.jetbrains.python.psi.PyNamedParameter;
+import com.jetbrains.python.psi.PyParameter;
+import com.jetbrains.python.pyi.PyiFile;
+import com.jetbrains.python.pyi.PyiUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Recognises .pyi stubs written by {@link GenerateStubsAction} and tells whether they still describe their module.
+ * <p>
+ * Every generated stub starts with a header holding the SHA-256 of the module text it was generated from,
+ * the hash of the module with the modules its types depend on, see {@link FileDependencies}, and the analysis
+ * version. A stub is current only while all of them match, so its types are what the analysis would infer now:
+ * the resolver stops at them like at an annotation and the stub is not generated again. Stubs without
+ * the header were written by hand and are always trusted.
+ */
+public final class GeneratedStubs {
+    static final String HEADER_PREFIX = "# Generated by Flask Variables from inferred types.";
+    private static final Pattern HEADER = Pattern.compile(
+            Pattern.quote(HEADER_PREFIX) + " source-sha256=([0-9a-f]{64})(?: depends-sha256=([0-9a-f]{64}))? version=(\\d+)");
+
+    private GeneratedStubs() {
+    }
+
+    /**
+     * Source state a generated stub was written for
+     *
+     * @param sourceHash SHA-256 of the module text
+     * @param dependencyHash hash of the module and its dependencies, null if they could not be hashed
+     * @param version analysis version
+     */
+    record Header(String sourceHash, @Nullable String dependencyHash, int version) {
+        /**
+         * Creates the header of a stub generated from the current state of a module
+         */
+        static Header of(@NotNull PsiFile source) {
+            return new Header(TypeAnalysisCache.getContentHash(source), FileDependencies.getDependencyHash(source),
+                    SnapshotStore.VERSION);
+        }
+
+        String format() {
+            return HEADER_PREFIX + " source-sha256=" + sourceHash
+                    + (dependencyHash != null ? " depends-sha256=" + dependencyHash : "") + " version=" + version;
+        }
+
+        boolean isCurrent(@NotNull PsiFile source) {
+            return version == SnapshotStore.VERSION && sourceHash.equals(TypeAnalysisCache.getContentHash(source))
+                    && dependencyHash != null && dependencyHash.equals(FileDependencies.getDependencyHash(source));
+        }
+    }
+
+    /**
+     * Reads the header of a stub
+     *
+     * @param stubText text of the stub
+     * @return header or null if the stub was not generated
+     */
+    static @Nullable Header readHeader(@NotNull CharSequence stubText) {
+        int end = 0;
+        while (end < stubText.length() && stubText.charAt(end) != '\n') end++;
+        Matcher matcher = HEADER.matcher(stubText.subSequence(0, end));
+        if (!matcher.matches()) return null;
+        return new Header(matcher.group(1), matcher.group(2), Integer.parseInt(matcher.group(3)));
+    }
+
+    /**
+     * Gets the stub of a project function, must be called inside a read action
+     *
+     * @param function function of a .py module
+     * @return stub function, or null if there is no stub or it is a generated stub of an older state of the module
+     */
+    public static @Nullable PyFunction findStubFunction(@NotNull PyFunction function) {
+        if (!(function.getContainingFile() instanceof PyFile source) || source instanceof PyiFile) return null;
+        PsiElement stub = PyiUtil.getPythonStub(function);
+        if (!(stub instanceof PyFunction stubFunction)) return null;
+        Header header = readHeader(stubFunction.getContainingFile().getViewProvider().getContents());
+        return header == null || header.isCurrent(source) ? stubFunction : null;
+    }
+
+    /**
+     * Gets the declaration of a parameter in the stub of its function
+     *
+     * @param parameter parameter of a .py function
+     * @param function function declaring the parameter
+     * @return stub parameter, or null if the function has no current stub
+     */
+    public static @Nullable PyNamedParameter findStubParameter(@NotNull PyNamedParameter parameter,
+                                                               @NotNull PyFunction function) {
+        String name = parameter.getName();
+        if (name == null) return null;
+        PyFunction stubFunction = findStubFunction(function);
+        if (stubFunction == null) return null;
+        PyParameter stubParameter = stubFunction.getParameterList().findParameterByName(name);
+        return stubParameter == null ? null : stubParameter.getAsNamed();
+    }
+
+    /**
+     * Maps a function resolved into a stale generated stub back to its module, whose code is current
+     *
+     * @param function resolved function
+     * @return the function itself, or its original if it lives in a stale generated stub
+     */
+    public static @NotNull PyFunction getCurrentDeclaration(@NotNull PyFunction function) {
+        if (!(function.getContainingFile() instanceof PyiFile stubFile)) return function;
+        Header header = readHeader(stubFile.getViewProvider().getContents());
+        if (header == null) return function;
+        PsiElement original = PyiUtil.getOriginalElement(function);
+        if (!(original instanceof PyFunction originalFunction)) return function;
+        return header.isCurrent(originalFunction.getContainingFile()) ? function : originalFunction;
+    }
+}
@@ -0,0 +1,282 @@
+package com.github.sullyvahnn.flaskplugin.java.StubGeneration;
+
+import com.github.sullyvahnn.flaskplugin.java.NormalTypeWidget.ReturnTypeSummaries;
+import com.github.sullyvahnn.flaskplugin.java.NormalTypeWidget.SourceTypeResolver;
+import com.github.sullyvahnn.flaskplugin.java.TypeAnalysis.AnnotationText;
+import com.github.sullyvahnn.flaskplugin.java.TypeAnalysis.TypeAnalysisCache;
+import com.intellij.openapi.progress.ProgressManager;
+import com.jetbrains.python.psi.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Builds the text of a .pyi stub for one module from inferred types.
+ * <p>
+ * Declarations keep their own annotations, unannotated parameters, returns and module and class
+ * variables get the union of their inferred types. Type names the module neither defines nor imports
+ * are written as Any, so a stub never adds unresolved references. Imports are re-exported explicitly,
+ * because names imported by a stub are otherwise private to it. Types come from the exhaustive
+ * {@link SourceTypeResolver}, so neither samples, old stubs nor runtime traces end up in a stub.
+ * <p>
+ * A stub shadows its module completely. Modules defining names under if, try, for, while, with or match,
+ * like {@code try: import simplejson as json}, cannot be described and get no stub, see {@link #canDescribe}.
+ * Must be used inside a read action.
+ */
+final class StubGenerator {
+    private static final String INDENT = "    ";
+
+    private final PyFile file;
+    private final AnnotationText annotationText;
+    private final StringBuilder body = new StringBuilder();
+    private boolean usesAny = false;
+    private int inferredCount = 0;
+
+    StubGenerator(@NotNull PyFile file) {
+        this.file = file;
+        this.annotationText = new AnnotationText(file);
+    }
+
+    /**
+     * Checks if a stub can describe every name the module and its classes define.
+     * Blocks guarded by {@code if __name__ == "__main__"} only run as a script and are ignored.
+     *
+     * @param file module to check
+     * @return true if no name is defined inside a compound statement
+     */
+    static boolean canDescribe(@NotNull PyFile file) {
+        return canDescribe(file.getStatements());
+    }
+
+    private static boolean canDescribe(List<? extends PyStatement> statements) {
+        for (PyStatement statement : statements) {
+            if (statement instanceof PyClass pyClass) {
+                if (!canDescribe(Arrays.asList(pyClass.getStatementList().getStatements()))) return false;
+            } else if (isCompound(statement) && !isMainGuard(statement) && definesNames(statement)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isCompound(PyStatement statement) {
+        return statement instanceof PyIfStatement || statement instanceof PyTryExceptStatement
+                || statement instanceof PyForStatement || statement instanceof PyWhileStatement
+                || statement instanceof PyWithStatement || statement instanceof PyMatchStatement;
+    }
+
+    private static boolean isMainGuard(PyStatement statement) {
+        if (!(statement instanceof PyIfStatement ifStatement)) return false;
+        if (ifStatement.getElsePart() != null || ifStatement.getElifParts().length > 0) return false;
+        PyExpression condition = ifStatement.getIfPart().getCondition();
+        if (condition == null) return false;
+        String text = condition.getText().replace(" ", "").replace('\'', '"');
+        return text.equals("__name__==\"__main__\"") || text.equals("\"__main__\"==__name__");
+    }
+
+    /**
+     * Checks if a statement binds a name in the enclosing module or class
+     */
+    private static boolean definesNames(PyStatement statement) {
+        boolean[] found = {false};
+        statement.accept(new PyRecursiveElementVisitor() {
+            @Override
+            public void visitPyTargetExpression(@NotNull PyTargetExpression node) {
+                if (!node.isQualified()) found[0] = true;
+            }
+
+            @Override
+            public void visitPyFunction(@NotNull PyFunction node) {
+                found[0] = true;
+            }
+
+            @Override
+            public void visitPyClass(@NotNull PyClass node) {
+                found[0] = true;
+            }
+
+            @Override
+            public void visitPyImportStatement(@NotNull PyImportStatement node) {
+                found[0] = true;
+            }
+
+            @Override
+            public void visitPyFromImportStatement(@NotNull PyFromImportStatement node) {
+                found[0] = true;
+            }
+
+            @Override
+            public void visitPyLambdaExpression(@NotNull PyLambdaExpression node) {
+            }
+
+            @Override
+            public void visitPyComprehensionElement(@NotNull PyComprehensionElement node) {
+                // comprehension variables are local to the comprehension
+            }
+        });
+        return found[0];
+    }
+
+    /**
+     * Generates the stub of the module
+     *
+     * @return stub text, or null if the module is fully annotated and a stub would add nothing
+     */
+    @Nullable String generate() {
+        List<String> imports = new ArrayList<>();
+        for (PyStatement statement : file.getStatements()) {
+            if (statement instanceof PyImportStatementBase importStatement) addImport(importStatement, imports);
+        }
+        Set<String> declared = new HashSet<>();
+        for (PyStatement statement : file.getStatements()) {
+            ProgressManager.checkCanceled();
+            appendStatement(statement, "", declared);
+        }
+        if (inferredCount == 0) return null;
+
+        StringBuilder stub = new StringBuilder();
+        stub.append(GeneratedStubs.Header.of(file).format())
+                .append('\n');
+        if (usesAny) stub.append("from typing import Any\n");
+        imports.forEach(line -> stub.append(line).append('\n'));
+        return stub.append('\n').append(body).toString();
+    }
+
+    private void addImport(PyImportStatementBase statement, List<String> imports) {
+        if (statement instanceof PyFromImportStatement fromImport) {
+            if (fromImport.isFromFuture()) return;
+            PyReferenceExpression source = fromImport.getImportSource();
+            String from = ".".repeat(fromImport.getRelativeLevel()) + (source == null ? "" : source.getText());
+            if (fromImport.isStarImport()) {
+                imports.add("from " + from + " import *");
+                return;
+            }
+            List<String> names = new ArrayList<>();
+            for (PyImportElement element : fromImport.getImportElements()) {
+                String visibleName = element.getVisibleName();
+                if (element.getImportedQName() == null || visibleName == null) continue;
+                names.add(element.getImportedQName() + " as " + visibleName);
+            }
+            if (!names.isEmpty()) imports.add("from " + from + " import " + String.join(", ", names));
+            return;
+        }
+        imports.add(statement.getText());
+    }
+
+    /**
+     * Appends the stub of one statement
+     *
+     * @param statement module or class level statement
+     * @param indent indentation of the block
+     * @param declared variables already declared in the block, a stub declares each once
+     */
+    private void appendStatement(PyStatement statement, String indent, Set<String> declared) {
+        if (statement instanceof PyFunction function) {
+            appendFunction(function, indent);
+        } else if (statement instanceof PyClass pyClass) {
+            appendClass(pyClass, indent);
+        } else if (statement instanceof PyAssignmentStatement assignment) {
+            for (PyExpression target : assignment.getTargets()) {
+                if (target instanceof PyTargetExpression variable && !variable.isQualified()
+                        && declared.add(String.valueOf(variable.getName()))) {
+                    appendVariable(variable, indent);
+                }
+            }
+        } else if (statement instanceof PyTypeDeclarationStatement declaration) {
+            body.append(indent).append(declaration.getText()).append('\n');
+        }
+        // conditional and other statements hold no declarations a stub could describe reliably
+    }
+
+    private void appendVariable(PyTargetExpression variable, String indent) {
+        String name = variable.getName();
+        if (name == null) return;
+        String type = getAnnotationText(variable.getAnnotation());
+        if (type == null) type = inferred(TypeAnalysisCache.getSourceTypeNames(variable));
+        if (type == null) {
+            type = AnnotationText.ANY;
+            usesAny = true;
+        }
+        body.append(indent).append(name).append(": ").append(type).append('\n');
+    }
+
+    private void appendClass(PyClass pyClass, String indent) {
+        if (pyClass.getName() == null) return;
+        PyDecoratorList decorators = pyClass.getDecoratorList();
+        if (decorators != null) {
+            for (PyDecorator decorator : decorators.getDecorators()) {
+                body.append(indent).append(decorator.getText()).append('\n');
+            }
+        }
+        PyArgumentList superClasses = pyClass.getSuperClassExpressionList();
+        body.append(indent).append("class ").append(pyClass.getName())
+                .append(superClasses == null ? "" : superClasses.getText()).append(":\n");
+        int length = body.length();
+        Set<String> declared = new HashSet<>();
+        for (PyStatement statement : pyClass.getStatementList().getStatements()) {
+            appendStatement(statement, indent + INDENT, declared);
+        }
+        if (body.length() == length) body.append(indent).append(INDENT).append("...\n");
+    }
+
+    private void appendFunction(PyFunction function, String indent) {
+        if (function.getName() == null) return;
+        PyDecoratorList decorators = function.getDecoratorList();
+        if (decorators != null) {
+            // decorators like contextmanager or login_required replace the function, checkers apply them to stubs too
+            for (PyDecorator decorator : decorators.getDecorators()) {
+                body.append(indent).append(decorator.getText()).append('\n');
+            }
+        }
+        List<String> parameters = new ArrayList<>();
+        for (PyParameter parameter : function.getParameterList().getParameters()) {
+            parameters.add(getParameterText(parameter));
+        }
+        body.append(indent).append(function.isAsync() ? "async def " : "def ").append(function.getName())
+                .append('(').append(String.join(", ", parameters)).append(')');
+        String returnType = getAnnotationText(function.getAnnotation());
+        if (returnType == null) {
+            returnType = inferred(ReturnTypeSummaries.getSummary(function, ReturnTypeSummaries.Mode.SOURCE).typeNames());
+        }
+        if (returnType != null) body.append(" -> ").append(returnType);
+        body.append(": ...\n");
+    }
+
+    private String getParameterText(PyParameter parameter) {
+        PyNamedParameter named = parameter.getAsNamed();
+        // bare * and / separators are written as they are
+        if (named == null) return parameter.getText();
+        StringBuilder text = new StringBuilder();
+        if (named.isPositionalContainer()) text.append('*');
+        if (named.isKeywordContainer()) text.append("**");
+        text.append(named.getName());
+        String type = getAnnotationText(named.getAnnotation());
+        if (type == null && TypeAnalysisCache.isAnalysedDeclaration(named)) {
+            type = inferred(TypeAnalysisCache.getSourceTypeNames(named));
+        }
+        if (type != null) text.append(": ").append(type);
+        if (named.hasDefaultValue()) text.append(type != null ? " = ..." : "=...");
+        return text.toString();
+    }
+
+    private static @Nullable String getAnnotationText(@Nullable PyAnnotation annotation) {
+        PyExpression value = annotation == null ? null : annotation.getValue();
+        return value == null ? null : value.getText();
+    }
+
+    /**
+     * Writes inferred type names as an annotation
+     *
+     * @param types inferred type names
+     * @return union of the types, Any if it cannot be written, or null if nothing was inferred
+     */
+    private @Nullable String inferred(Collection<String> types) {
+        if (types.isEmpty()) return null;
+        inferredCount++;
+        String union = annotationText.render(types);
+        if (union != null) return union;
+        usesAny = true;
+        return AnnotationText.ANY;
+    }
+}
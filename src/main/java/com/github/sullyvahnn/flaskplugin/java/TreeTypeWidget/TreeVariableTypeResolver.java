@@ -83,6 +83,47 @@ public class TreeVariableTypeResolver extends VariableTypeResolver {
         collectedTypes.clear();
     }
 
+    /**
+     * Tree shows every assignment as its own node, element types are not merged into them
+     */
+    @Override
+    protected boolean tracksContainerElements() {
+        return false;
+    }
+
+    /**
+     * Tree needs every return expression evaluated to link it to the call,
+     * summaries are used only when a function is reached again through recursion
+     */
+    @Override
+    protected boolean usesReturnSummaries() {
+        return false;
+    }
+
+    /**
+     * Tree links every call site argument to the parameter, so they are evaluated by this resolver in order
+     */
+    @Override
+    protected boolean usesParallelBranches() {
+        return false;
+    }
+
+    /**
+     * Tree links types to the expressions they were inferred from, observed types have none
+     */
+    @Override
+    protected boolean usesRuntimeTraces() {
+        return false;
+    }
+
+    /**
+     * Tree shows how types were inferred from the code, a stub annotation would hide that
+     */
+    @Override
+    protected boolean usesGeneratedStubs() {
+        return false;
+    }
+
     @Override
     protected void evaluateType(PyExpression expression) {
         if (isError) return;
@@ -0,0 +1,194 @@
+package com.github.sullyvahnn.flaskplugin.java.TypeAnalysis;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.LowMemoryWatcher;
+import com.intellij.openapi.util.text.StringUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.SoftReference;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Application-wide, memory-bounded cache of analysis results and function summaries.
+ * <p>
+ * Payloads must not reference PSI, so they can outlive read actions and be shared between
+ * projects and threads. Entries are evicted least recently used first once their estimated
+ * size exceeds the budget, a 64th of the maximum heap between 4 and 64 MB, so a 4 GB IDE
+ * gets 64 MB. Payloads are held by soft references, and the whole cache is dropped when the
+ * IDE reports low memory. Keys carry the modification stamp of the data they were computed
+ * from, so stale entries are never hit and simply age out.
+ */
+@Service(Service.Level.APP)
+public final class AnalysisMemoryCache implements Disposable {
+    private static final Logger LOG = Logger.getInstance(AnalysisMemoryCache.class);
+    private static final long MIN_BUDGET = 4L << 20;
+    private static final long MAX_BUDGET = 64L << 20;
+    /** Estimated size of an entry without its payload: map node, key, soft reference */
+    static final long ENTRY_OVERHEAD = 128;
+
+    /**
+     * Counters of the cache, for sizing the budget
+     *
+     * @param hits lookups answered from the cache
+     * @param misses lookups that had to compute the payload
+     * @param evictions entries removed to stay within the budget
+     * @param collected entries whose payload was reclaimed by the garbage collector
+     * @param lowMemoryClears times the cache was dropped on low memory
+     * @param entries entries currently held
+     * @param weight estimated size of the held entries in bytes
+     * @param budget maximum estimated size in bytes
+     */
+    public record Statistics(long hits, long misses, long evictions, long collected, long lowMemoryClears,
+                             int entries, long weight, long budget) {
+        /**
+         * @return text like "1200 hits, 300 misses, 12 evictions, 2.1 MB of 64 MB"
+         */
+        public @NotNull String describe() {
+            return hits + " hits, " + misses + " misses, " + (evictions + collected) + " evictions, "
+                    + StringUtil.formatFileSize(weight) + " of " + StringUtil.formatFileSize(budget);
+        }
+    }
+
+    private record Entry(SoftReference<Object> payload, long weight) {
+    }
+
+    private final long budget;
+    /** Entries in access order, least recently used first */
+    private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long weight = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long collected = 0;
+    private long lowMemoryClears = 0;
+
+    public AnalysisMemoryCache() {
+        this(Math.max(MIN_BUDGET, Math.min(MAX_BUDGET, Runtime.getRuntime().maxMemory() / 64)));
+    }
+
+    /**
+     * @param budget maximum estimated size of the held entries in bytes
+     */
+    AnalysisMemoryCache(long budget) {
+        this.budget = budget;
+        LowMemoryWatcher.register(this::onLowMemory, this);
+    }
+
+    public static AnalysisMemoryCache getInstance() {
+        return ApplicationManager.getApplication().getService(AnalysisMemoryCache.class);
+    }
+
+    /**
+     * Gets a cached payload or computes and caches it.
+     * The payload is computed outside of the cache lock, so two threads may compute the same key once each.
+     *
+     * @param key key of the payload, must hold no PSI and include the modification stamp of its inputs
+     * @param type class of the payload
+     * @param compute computes the payload on a miss
+     * @param weigher estimated size of the payload in bytes
+     * @return cached or computed payload
+     */
+    public <T> @NotNull T computeIfAbsent(@NotNull Object key, @NotNull Class<T> type,
+                                          @NotNull Supplier<? extends T> compute, @NotNull ToLongFunction<? super T> weigher) {
+        T cached = get(key, type);
+        if (cached != null) return cached;
+        T payload = compute.get();
+        put(key, payload, weigher.applyAsLong(payload));
+        return payload;
+    }
+
+    /**
+     * Gets a cached payload, counting a hit or a miss
+     *
+     * @param key key of the payload
+     * @param type class of the payload
+     * @return payload, or null if it is not cached or was reclaimed
+     */
+    public synchronized <T> @Nullable T get(@NotNull Object key, @NotNull Class<T> type) {
+        Entry entry = entries.get(key);
+        Object payload = entry == null ? null : entry.payload().get();
+        if (entry != null && payload == null) {
+            remove(key, entry);
+            collected++;
+        }
+        if (!type.isInstance(payload)) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return type.cast(payload);
+    }
+
+    /**
+     * Caches a payload, evicting least recently used entries while over the budget
+     *
+     * @param key key of the payload
+     * @param payload payload without PSI references
+     * @param payloadWeight estimated size of the payload in bytes
+     */
+    public synchronized void put(@NotNull Object key, @NotNull Object payload, long payloadWeight) {
+        long entryWeight = ENTRY_OVERHEAD + payloadWeight;
+        // a payload larger than the budget would only evict everything else
+        if (entryWeight > budget) return;
+        Entry previous = entries.put(key, new Entry(new SoftReference<>(payload), entryWeight));
+        if (previous != null) weight -= previous.weight();
+        weight += entryWeight;
+
+        Iterator<Map.Entry<Object, Entry>> iterator = entries.entrySet().iterator();
+        while (weight > budget && iterator.hasNext()) {
+            Map.Entry<Object, Entry> eldest = iterator.next();
+            iterator.remove();
+            weight -= eldest.getValue().weight();
+            evictions++;
+        }
+    }
+
+    private void remove(Object key, Entry entry) {
+        entries.remove(key);
+        weight -= entry.weight();
+    }
+
+    /**
+     * @return counters and current size of the cache
+     */
+    public synchronized @NotNull Statistics getStatistics() {
+        return new Statistics(hits, misses, evictions, collected, lowMemoryClears, entries.size(), weight, budget);
+    }
+
+    private synchronized void onLowMemory() {
+        LOG.info("Dropping type analysis cache on low memory: " + getStatistics().describe());
+        evictions += entries.size();
+        lowMemoryClears++;
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * Estimates the size of strings held by a payload
+     *
+     * @param strings strings of the payload
+     * @return estimated size in bytes
+     */
+    public static long estimateWeight(@NotNull Collection<String> strings) {
+        long size = 16 + 8L * strings.size();
+        for (String string : strings) {
+            size += 40 + string.length();
+        }
+        return size;
+    }
+
+    @Override
+    public synchronized void dispose() {
+        entries.clear();
+        weight = 0;
+    }
+}
@@ -0,0 +1,102 @@
+package com.github.sullyvahnn.flaskplugin.java.TypeAnalysis;
+
+import com.intellij.psi.PsiElement;
+import com.jetbrains.python.psi.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Writes inferred type names as annotation text valid in one module.
+ * <p>
+ * Inferred names are short class names, so an annotation can only use those the module can see:
+ * builtins, classes defined at module level and imported names. A module class can only be written
+ * unquoted where it is already defined when the annotation is evaluated, see {@link #hasForwardReference}.
+ * Must be created inside a read action.
+ */
+public final class AnnotationText {
+    public static final String ANY = "Any";
+    /** Larger unions tell a reader nothing, they are not written */
+    private static final int MAX_UNION_SIZE = 8;
+    private static final Set<String> BUILTIN_TYPES = Set.of("None", "int", "float", "complex", "bool", "str",
+            "bytes", "bytearray", "memoryview", "list", "dict", "set", "frozenset", "tuple", "type", "object",
+            "range", "slice");
+    private static final Pattern TYPE_TEXT = Pattern.compile("[\\w.\\[\\], |]+");
+    private static final Pattern NAME = Pattern.compile("[A-Za-z_]\\w*");
+
+    /** Names a type may refer to, besides builtins */
+    private final Set<String> visibleNames = new HashSet<>();
+    /** First definition of every module level class by name */
+    private final Map<String, PyClass> moduleClasses = new HashMap<>();
+
+    public AnnotationText(@NotNull PyFile file) {
+        for (PyStatement statement : file.getStatements()) {
+            if (statement instanceof PyClass pyClass && pyClass.getName() != null) {
+                visibleNames.add(pyClass.getName());
+                moduleClasses.putIfAbsent(pyClass.getName(), pyClass);
+            } else if (statement instanceof PyImportStatementBase importStatement) {
+                for (PyImportElement element : importStatement.getImportElements()) {
+                    String visibleName = element.getVisibleName();
+                    // "import a.b" makes only "a" visible
+                    if (visibleName != null) visibleNames.add(visibleName.split("\\.")[0]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes inferred type names as a union
+     *
+     * @param types inferred type names
+     * @return union like "int | None", or null if nothing was inferred, the union is too large
+     *         or one of the types is Any or cannot be referred to from the module
+     */
+    public @Nullable String render(@NotNull Collection<String> types) {
+        Set<String> union = new LinkedHashSet<>();
+        for (String type : types) {
+            String trimmed = type.trim();
+            if (!isWritable(trimmed)) return null;
+            union.add(trimmed);
+        }
+        if (union.isEmpty() || union.size() > MAX_UNION_SIZE) return null;
+        return String.join(" | ", union);
+    }
+
+    /**
+     * Checks if an annotation refers to a module class that does not exist yet where it is evaluated:
+     * one defined later in the module, or the class enclosing the annotated declaration.
+     * Such an annotation raises NameError unless it is quoted or annotations are postponed.
+     *
+     * @param annotation text returned by {@link #render}
+     * @param position declaration the annotation is written to
+     * @return true if the annotation has to be quoted
+     */
+    public boolean hasForwardReference(@NotNull String annotation, @NotNull PsiElement position) {
+        Matcher matcher = NAME.matcher(annotation);
+        while (matcher.find()) {
+            if (matcher.start() > 0 && annotation.charAt(matcher.start() - 1) == '.') continue;
+            PyClass pyClass = moduleClasses.get(matcher.group());
+            // a class is bound only once its whole body ran
+            if (pyClass != null && pyClass.getTextRange().getEndOffset() > position.getTextRange().getStartOffset()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a type name is valid annotation text whose names all resolve in the module
+     */
+    private boolean isWritable(String type) {
+        if (!TYPE_TEXT.matcher(type).matches()) return false;
+        Matcher matcher = NAME.matcher(type);
+        while (matcher.find()) {
+            // only the first part of a dotted name has to be visible
+            if (matcher.start() > 0 && type.charAt(matcher.start() - 1) == '.') continue;
+            String name = matcher.group();
+            if (ANY.equals(name) || !BUILTIN_TYPES.contains(name) && !visibleNames.contains(name)) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,98 @@
+package com.github.sullyvahnn.flaskplugin.java.TypeAnalysis;
+
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.psi.util.PsiUtilCore;
+import com.jetbrains.python.psi.*;
+import com.jetbrains.python.psi.types.TypeEvalContext;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Per-class table of attribute assignments: attribute name to every target assigning it.
+ * <p>
+ * Covers {@code self.<attr> = ...} in all methods and class-level assignments of the class and of
+ * its project bases, so a reference like {@code self.user} is answered by one lookup instead of a
+ * walk over the file. Library classes and bases are skipped, their attributes come from the type checker.
+ * Tables are cached per class until the PSI changes.
+ */
+public final class ClassAttributeTable {
+    private static final Key<CachedValue<Map<String, List<PyTargetExpression>>>> TABLE_KEY =
+            Key.create("flask.types.class.attributes");
+
+    private ClassAttributeTable() {
+    }
+
+    /**
+     * Gets assignments of every attribute of a class, bases first
+     *
+     * The table outlives the caller, so ancestors are resolved with a context of the class's own file.
+     *
+     * @param pyClass class of the instance or the class itself
+     * @return attribute name to assignment targets, empty for classes outside project content
+     */
+    public static @NotNull Map<String, List<PyTargetExpression>> getAssignments(@NotNull PyClass pyClass) {
+        return CachedValuesManager.getCachedValue(pyClass, TABLE_KEY, () -> {
+            TypeEvalContext context = TypeEvalContext.codeAnalysis(pyClass.getProject(), pyClass.getContainingFile());
+            return CachedValueProvider.Result.create(computeAssignments(pyClass, context), PsiModificationTracker.MODIFICATION_COUNT);
+        });
+    }
+
+    private static Map<String, List<PyTargetExpression>> computeAssignments(@NotNull PyClass pyClass,
+                                                                            @NotNull TypeEvalContext context) {
+        ProjectFileIndex fileIndex = ProjectFileIndex.getInstance(pyClass.getProject());
+        VirtualFile classFile = PsiUtilCore.getVirtualFile(pyClass);
+        // a library class would pull its whole hierarchy into the table, the type checker knows its attributes
+        if (classFile == null || !fileIndex.isInContent(classFile)) return Map.of();
+        List<PyClass> hierarchy = new ArrayList<>();
+        for (PyClass ancestor : pyClass.getAncestorClasses(context)) {
+            VirtualFile file = PsiUtilCore.getVirtualFile(ancestor);
+            if (file != null && fileIndex.isInContent(file)) hierarchy.add(ancestor);
+        }
+        Collections.reverse(hierarchy);
+        hierarchy.add(pyClass);
+
+        Map<String, List<PyTargetExpression>> table = new HashMap<>();
+        for (PyClass owner : hierarchy) {
+            for (PyTargetExpression target : owner.getClassAttributes()) {
+                addTarget(table, target);
+            }
+            for (PyFunction method : owner.getMethods()) {
+                addInstanceTargets(table, method);
+            }
+        }
+        table.replaceAll((name, targets) -> List.copyOf(targets));
+        return table;
+    }
+
+    /**
+     * Adds every {@code self.<attr>} target of a method, not only the first one per name
+     * as the platform's instance attribute list does
+     */
+    private static void addInstanceTargets(Map<String, List<PyTargetExpression>> table, PyFunction method) {
+        PyParameter[] parameters = method.getParameterList().getParameters();
+        String self = parameters.length == 0 ? null : parameters[0].getName();
+        if (self == null) return;
+        method.accept(new PyRecursiveElementVisitor() {
+            @Override
+            public void visitPyTargetExpression(@NotNull PyTargetExpression target) {
+                super.visitPyTargetExpression(target);
+                if (target.getQualifier() instanceof PyReferenceExpression qualifier
+                        && !qualifier.isQualified() && self.equals(qualifier.getReferencedName())) {
+                    addTarget(table, target);
+                }
+            }
+        });
+    }
+
+    private static void addTarget(Map<String, List<PyTargetExpression>> table, PyTargetExpression target) {
+        if (target.getName() == null) return;
+        table.computeIfAbsent(target.getName(), name -> new ArrayList<>()).add(target);
+    }
+}
@@ -0,0 +1,130 @@
+package com.github.sullyvahnn.flaskplugin.java.TypeAnalysis;
+
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.ResolveResult;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.PsiSearchHelper;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.jetbrains.python.PythonFileType;
+import com.jetbrains.python.psi.PyClass;
+import com.jetbrains.python.psi.PyFile;
+import com.jetbrains.python.psi.PyFunction;
+import com.jetbrains.python.psi.PyImportElement;
+import com.jetbrains.python.psi.PyImportStatementBase;
+import com.jetbrains.python.pyi.PyiFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Hashes a module together with the project modules its inferred types are read from.
+ * <p>
+ * Those are the modules it imports, which declare the classes and functions it calls, and the modules
+ * mentioning one of its functions or classes by name, which hold the call sites its parameter types come from.
+ * Results stored for a module, like snapshot entries and generated stubs, stay valid while this hash
+ * matches, so an edit only invalidates the modules around it instead of the whole project.
+ * Installed packages are not hashed.
+ */
+public final class FileDependencies {
+    private static final Key<CachedValue<String>> DEPENDENCY_HASH_KEY = Key.create("flask.types.dependency.hash");
+
+    private FileDependencies() {
+    }
+
+    /**
+     * Gets the hash of a module and its project dependencies, cached until the PSI changes.
+     * Must be called inside a read action.
+     *
+     * @param file Python module
+     * @return lowercase hex digest, or null while indexes are not ready
+     */
+    public static @Nullable String getDependencyHash(@NotNull PsiFile file) {
+        if (DumbService.isDumb(file.getProject())) return null;
+        return CachedValuesManager.getCachedValue(file, DEPENDENCY_HASH_KEY, () ->
+                CachedValueProvider.Result.create(computeDependencyHash(file), PsiModificationTracker.MODIFICATION_COUNT));
+    }
+
+    private static String computeDependencyHash(@NotNull PsiFile file) {
+        // content hashes are sorted, so the hash does not depend on index or import order
+        Set<String> hashes = new TreeSet<>();
+        for (PsiFile dependency : findDependencies(file)) {
+            hashes.add(TypeAnalysisCache.getContentHash(dependency));
+        }
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        digest.update(TypeAnalysisCache.getContentHash(file).getBytes(StandardCharsets.UTF_8));
+        for (String hash : hashes) {
+            digest.update((byte) '\n');
+            digest.update(hash.getBytes(StandardCharsets.UTF_8));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Gets project modules imported by a module or mentioning one of its functions or classes
+     *
+     * @param file Python module
+     * @return dependencies without the module itself
+     */
+    static @NotNull Set<PsiFile> findDependencies(@NotNull PsiFile file) {
+        Set<PsiFile> dependencies = new HashSet<>();
+        if (!(file instanceof PyFile)) return dependencies;
+        Project project = file.getProject();
+        ProjectFileIndex fileIndex = ProjectFileIndex.getInstance(project);
+
+        for (PyImportStatementBase statement : PsiTreeUtil.findChildrenOfType(file, PyImportStatementBase.class)) {
+            for (PyImportElement element : statement.getImportElements()) {
+                ProgressManager.checkCanceled();
+                for (ResolveResult result : element.multiResolve()) {
+                    addProjectModule(dependencies, result.getElement(), fileIndex);
+                }
+            }
+        }
+
+        Set<String> names = new HashSet<>();
+        PsiTreeUtil.findChildrenOfType(file, PyFunction.class).forEach(function -> names.add(function.getName()));
+        PsiTreeUtil.findChildrenOfType(file, PyClass.class).forEach(pyClass -> names.add(pyClass.getName()));
+        names.remove(null);
+        GlobalSearchScope scope = GlobalSearchScope.getScopeRestrictedByFileTypes(
+                GlobalSearchScope.projectScope(project), PythonFileType.INSTANCE);
+        PsiSearchHelper searchHelper = PsiSearchHelper.getInstance(project);
+        for (String name : names) {
+            searchHelper.processAllFilesWithWord(name, scope, candidate -> {
+                addProjectModule(dependencies, candidate, fileIndex);
+                return true;
+            }, true);
+        }
+        dependencies.remove(file);
+        return dependencies;
+    }
+
+    private static void addProjectModule(Set<PsiFile> dependencies, @Nullable PsiElement element, ProjectFileIndex fileIndex) {
+        PsiFile module = element == null ? null : element.getContainingFile();
+        VirtualFile virtualFile = module == null ? null : module.getVirtualFile();
+        // generated stubs are derived from their modules, a stub change says nothing new
+        if (!(module instanceof PyFile) || module instanceof PyiFile || virtualFile == null) return;
+        if (fileIndex.isInContent(virtualFile)) dependencies.add(module);
+    }
+}
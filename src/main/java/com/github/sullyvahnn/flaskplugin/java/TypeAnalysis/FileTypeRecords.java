@@ -0,0 +1,27 @@
+package com.github.sullyvahnn.flaskplugin.java.TypeAnalysis;
+
+import com.github.sullyvahnn.flaskplugin.java.NormalTypeWidget.ReturnTypeSummaries;
+import com.intellij.openapi.vfs.VirtualFile;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Analysis results of a single file together with the hash of the content they were computed from.
+ * Variable records double as the symbol table of the file, return summaries are keyed by function offset.
+ */
+public final class FileTypeRecords {
+    public final VirtualFile file;
+    public final String contentHash;
+    public final List<VariableTypeRecord> records;
+    /** Non-empty return summaries of the functions in the file, by text offset of the function */
+    public final Map<Integer, ReturnTypeSummaries.Summary> functions;
+
+    public FileTypeRecords(VirtualFile file, String contentHash, List<VariableTypeRecord> records,
+                           Map<Integer, ReturnTypeSummaries.Summary> functions) {
+        this.file = file;
+        this.contentHash = contentHash;
+        this.records = List.copyOf(records);
+        this.functions = Map.copyOf(functions);
+    }
+}
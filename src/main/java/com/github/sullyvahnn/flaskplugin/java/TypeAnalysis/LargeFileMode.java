@@ -0,0 +1,64 @@
+package com.github.sullyvahnn.flaskplugin.java.TypeAnalysis;
+
+import com.github.sullyvahnn.flaskplugin.java.Settings.FlaskTypesSettings;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiRecursiveElementWalkingVisitor;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Detects files too large for whole-file analysis on every caret move, like migrations,
+ * fixtures or generated modules.
+ * <p>
+ * Such files are analysed in a degraded mode: assignments are searched only in the scope of the
+ * variable, fewer call sites are sampled and the tree widget is not updated. Results are marked
+ * as partial in the status bar. Thresholds come from {@link FlaskTypesSettings}.
+ */
+public final class LargeFileMode {
+    private static final Key<CachedValue<Boolean>> LARGE_FILE_KEY = Key.create("flask.types.large.file");
+    /** Shown next to results of a large file */
+    public static final String NOTE = "large file, only the enclosing scope was searched";
+
+    private LargeFileMode() {
+    }
+
+    /**
+     * Checks if a file exceeds the line or PSI node threshold.
+     * The answer is cached until the file changes.
+     *
+     * @param file file to check
+     * @return true if the file should be analysed in large-file mode
+     */
+    public static boolean isLargeFile(@NotNull PsiFile file) {
+        FlaskTypesSettings settings = FlaskTypesSettings.getInstance(file.getProject());
+        return CachedValuesManager.getCachedValue(file, LARGE_FILE_KEY, () -> {
+            FlaskTypesSettings.State state = settings.getState();
+            boolean large = StringUtil.countNewLines(file.getViewProvider().getContents()) >= state.largeFileLines
+                    || countNodes(file, state.largeFilePsiNodes) >= state.largeFilePsiNodes;
+            return CachedValueProvider.Result.create(large, file, settings.getModificationTracker());
+        });
+    }
+
+    /**
+     * Counts PSI nodes of a file, stopping at the limit so huge files are not walked completely
+     */
+    private static int countNodes(@NotNull PsiFile file, int limit) {
+        int[] count = {0};
+        file.accept(new PsiRecursiveElementWalkingVisitor() {
+            @Override
+            public void visitElement(@NotNull PsiElement element) {
+                if (++count[0] >= limit) {
+                    stopWalking();
+                    return;
+                }
+                super.visitElement(element);
+            }
+        });
+        return count[0];
+    }
+}
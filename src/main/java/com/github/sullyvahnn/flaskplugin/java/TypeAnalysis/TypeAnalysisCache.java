@@ -0,0 +1,176 @@
+package com.github.sullyvahnn.flaskplugin.java.TypeAnalysis;
+
+import com.github.sullyvahnn.flaskplugin.java.ExpressionData.ExpressionData;
+import com.github.sullyvahnn.flaskplugin.java.NormalTypeWidget.SourceTypeResolver;
+import com.github.sullyvahnn.flaskplugin.java.NormalTypeWidget.VariableTypeResolver;
+import com.github.sullyvahnn.flaskplugin.java.Settings.FlaskTypesSettings;
+import com.github.sullyvahnn.flaskplugin.java.Snapshot.SnapshotStore;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.psi.util.PsiUtilCore;
+import com.jetbrains.python.psi.PyNamedParameter;
+import com.jetbrains.python.psi.PyTargetExpression;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Cache of resolver results.
+ * <p>
+ * Every consumer that analyses identifiers outside the caret (inspections, project scans)
+ * goes through this cache, so a declaration is analysed once per PSI modification no matter
+ * how many of them ask for it. Type names are kept in the memory-bounded {@link AnalysisMemoryCache}.
+ */
+public final class TypeAnalysisCache {
+    private static final Key<CachedValue<String>> CONTENT_HASH_KEY =
+            Key.create("flask.types.analysis.content.hash");
+    private static final Key<CachedValue<Map<String, PyTargetExpression>>> FIRST_TARGETS_KEY =
+            Key.create("flask.types.analysis.first.targets");
+
+    private TypeAnalysisCache() {
+    }
+
+    /**
+     * Key of the type names of one declaration, free of PSI
+     *
+     * @param project location hash of the project
+     * @param fileUrl URL of the file
+     * @param offset text offset of the declaration
+     * @param stamp analysis stamp the names were computed at
+     * @param source true for names computed by the {@link SourceTypeResolver}
+     */
+    private record TypeNamesKey(String project, String fileUrl, int offset, long stamp, boolean source) {
+    }
+
+    /**
+     * Gets distinct type names of a declaration.
+     * Uses the imported snapshot while the file and its dependencies are unchanged, otherwise the resolver,
+     * computing them only on the first request after the last PSI modification.
+     *
+     * @param identifier reference, target expression or named parameter
+     * @return ordered distinct type names
+     */
+    public static @NotNull List<String> getTypeNames(@NotNull PsiElement identifier) {
+        Project project = identifier.getProject();
+        List<String> snapshotTypes = SnapshotStore.getInstance(project).getTypes(identifier);
+        if (snapshotTypes != null) return snapshotTypes;
+        VirtualFile file = PsiUtilCore.getVirtualFile(identifier);
+        if (file == null) return computeTypeNames(identifier, new VariableTypeResolver());
+
+        TypeNamesKey key = new TypeNamesKey(project.getLocationHash(), file.getUrl(),
+                identifier.getTextOffset(), getAnalysisStamp(project), false);
+        @SuppressWarnings("unchecked")
+        List<String> names = AnalysisMemoryCache.getInstance().computeIfAbsent(key, List.class,
+                () -> computeTypeNames(identifier, new VariableTypeResolver()), AnalysisMemoryCache::estimateWeight);
+        return names;
+    }
+
+    /**
+     * Gets distinct type names of a declaration for writing them into a file, like a stub or an annotation.
+     * Computed by the exhaustive {@link SourceTypeResolver} from the code alone, never from the snapshot,
+     * generated stubs or runtime traces.
+     *
+     * @param identifier reference, target expression or named parameter
+     * @return ordered distinct type names
+     */
+    public static @NotNull List<String> getSourceTypeNames(@NotNull PsiElement identifier) {
+        VirtualFile file = PsiUtilCore.getVirtualFile(identifier);
+        if (file == null) return computeTypeNames(identifier, new SourceTypeResolver());
+        Project project = identifier.getProject();
+        TypeNamesKey key = new TypeNamesKey(project.getLocationHash(), file.getUrl(),
+                identifier.getTextOffset(), getAnalysisStamp(project), true);
+        @SuppressWarnings("unchecked")
+        List<String> names = AnalysisMemoryCache.getInstance().computeIfAbsent(key, List.class,
+                () -> computeTypeNames(identifier, new SourceTypeResolver()), AnalysisMemoryCache::estimateWeight);
+        return names;
+    }
+
+    private static List<String> computeTypeNames(@NotNull PsiElement identifier, @NotNull VariableTypeResolver resolver) {
+        // resolver keeps state between calls, so every request gets its own instance
+        List<ExpressionData> types = resolver.getPossibleTypes(identifier);
+        return types == null ? List.of() : List.copyOf(ExpressionData.distinctTypes(types));
+    }
+
+    /**
+     * Gets a stamp that changes with every PSI change in the project and every settings reload.
+     * Results computed at an older stamp are stale.
+     *
+     * @param project project of the analysis
+     * @return current analysis stamp
+     */
+    public static long getAnalysisStamp(@NotNull Project project) {
+        return PsiModificationTracker.getInstance(project).getModificationCount()
+                + FlaskTypesSettings.getInstance(project).getModificationTracker().getModificationCount();
+    }
+
+    /**
+     * Gets SHA-256 hash of the current file text, cached until the file changes
+     *
+     * @param file file to hash
+     * @return lowercase hex digest
+     */
+    public static @NotNull String getContentHash(@NotNull PsiFile file) {
+        return CachedValuesManager.getCachedValue(file, CONTENT_HASH_KEY, () -> {
+            byte[] bytes = file.getViewProvider().getContents().toString().getBytes(StandardCharsets.UTF_8);
+            String hash;
+            try {
+                hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+            return CachedValueProvider.Result.create(hash, file);
+        });
+    }
+
+    /**
+     * Checks if identifier is a declaration reported by project-wide analysis:
+     * the first unqualified assignment target of a name in the file or a named parameter
+     * other than self and *args/**kwargs containers.
+     *
+     * @param identifier element to check
+     * @return true if the identifier should be analysed
+     */
+    public static boolean isAnalysedDeclaration(@NotNull PsiElement identifier) {
+        if (identifier instanceof PyTargetExpression target) {
+            return !target.isQualified() && isFirstTarget(target);
+        }
+        if (identifier instanceof PyNamedParameter parameter) {
+            return !parameter.isSelf() && !parameter.isPositionalContainer() && !parameter.isKeywordContainer();
+        }
+        return false;
+    }
+
+    /**
+     * Checks if target is the first assignment to its name in the file.
+     * The resolver collects assignments by name for the whole file, so every other
+     * target with the same name would produce exactly the same result.
+     *
+     * @param target assignment target
+     * @return true if no earlier target in the file has the same name
+     */
+    public static boolean isFirstTarget(@NotNull PyTargetExpression target) {
+        PsiFile file = target.getContainingFile();
+        String name = target.getName();
+        if (file == null || name == null) return false;
+        Map<String, PyTargetExpression> firstTargets = CachedValuesManager.getCachedValue(file, FIRST_TARGETS_KEY, () -> {
+            Map<String, PyTargetExpression> map = new HashMap<>();
+            for (PyTargetExpression t : PsiTreeUtil.findChildrenOfType(file, PyTargetExpression.class)) {
+                if (t.isQualified() || t.getName() == null) continue;
+                map.putIfAbsent(t.getName(), t);
+            }
+            return CachedValueProvider.Result.create(map, file);
+        });
+        return firstTargets.get(name) == target;
+    }
+}
@@ -0,0 +1,89 @@
+package com.github.sullyvahnn.flaskplugin.java.TypeAnalysis;
+
+import com.github.sullyvahnn.flaskplugin.java.ExpressionData.ExpressionData;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiNamedElement;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.jetbrains.python.psi.PyClass;
+import com.jetbrains.python.psi.PyFunction;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * Result of analysing one declaration, detached from PSI.
+ * <p>
+ * Unlike {@link ExpressionData} it holds no PSI elements, so it can be kept in large
+ * tables, passed between threads and written to reports after the read action ended.
+ */
+public final class VariableTypeRecord {
+    public final VirtualFile file;
+    /** Name of enclosing function or class, empty for module level */
+    public final String scope;
+    public final String name;
+    public final int offset;
+    public final int lineNumber;
+    public final List<String> types;
+
+    public VariableTypeRecord(VirtualFile file, String scope, String name, int offset, int lineNumber, List<String> types) {
+        this.file = file;
+        this.scope = scope;
+        this.name = name;
+        this.offset = offset;
+        this.lineNumber = lineNumber;
+        this.types = List.copyOf(types);
+    }
+
+    /**
+     * Creates a record from analysed declaration.
+     * Must be called inside a read action.
+     *
+     * @param identifier analysed declaration
+     * @param types distinct type names found for it
+     * @return record or null if identifier has no name or file
+     */
+    public static @Nullable VariableTypeRecord create(@NotNull PsiElement identifier, @NotNull List<String> types) {
+        PsiFile psiFile = identifier.getContainingFile();
+        VirtualFile virtualFile = psiFile == null ? null : psiFile.getVirtualFile();
+        String name = identifier instanceof PsiNamedElement named ? named.getName() : null;
+        if (virtualFile == null || name == null) return null;
+
+        int offset = identifier.getTextOffset();
+        Document document = PsiDocumentManager.getInstance(psiFile.getProject()).getDocument(psiFile);
+        int line = document != null ? document.getLineNumber(offset) : -1;
+        return new VariableTypeRecord(virtualFile, getScopeName(identifier), name, offset, line, types);
+    }
+
+    /**
+     * Gets dotted name of the nearest enclosing function or class
+     *
+     * @param identifier element to get the scope of
+     * @return scope name or empty string for module level
+     */
+    private static String getScopeName(PsiElement identifier) {
+        StringBuilder sb = new StringBuilder();
+        PsiElement owner = PsiTreeUtil.getParentOfType(identifier, PyFunction.class, PyClass.class);
+        while (owner != null) {
+            String ownerName = owner instanceof PyFunction function ? function.getName() : ((PyClass) owner).getName();
+            if (ownerName != null) {
+                sb.insert(0, sb.isEmpty() ? ownerName : ownerName + ".");
+            }
+            owner = PsiTreeUtil.getParentOfType(owner, PyFunction.class, PyClass.class);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Gets name qualified by its scope, like "create_user.email"
+     *
+     * @return qualified name
+     */
+    public String getQualifiedName() {
+        return scope.isEmpty() ? name : scope + "." + name;
+    }
+}
@@ -0,0 +1,18 @@
+package com.github.sullyvahnn.flaskplugin.startup
+
+import com.github.sullyvahnn.flaskplugin.java.RuntimeTraces.RuntimeTraceStore
+import com.github.sullyvahnn.flaskplugin.java.Snapshot.SnapshotStore
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.startup.ProjectActivity
+
+/**
+ * Imports the shared type analysis snapshot configured for the project, if there is one,
+ * and starts reading the configured runtime type traces.
+ */
+class SnapshotImportActivity : ProjectActivity {
+
+    override suspend fun execute(project: Project) {
+        SnapshotStore.getInstance(project).importConfiguredSnapshot()
+        RuntimeTraceStore.getInstance(project).importConfiguredTraces()
+    }
+}
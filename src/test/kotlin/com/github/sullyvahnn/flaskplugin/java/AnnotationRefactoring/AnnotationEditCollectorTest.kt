@@ -0,0 +1,28 @@
+package com.github.sullyvahnn.flaskplugin.java.AnnotationRefactoring
+
+import com.intellij.testFramework.TestDataPath
+import com.intellij.testFramework.fixtures.BasePlatformTestCase
+
+@TestDataPath("\$CONTENT_ROOT/src/test/testData")
+class AnnotationEditCollectorTest : BasePlatformTestCase() {
+
+    fun testClassesNotDefinedYetAreQuoted() {
+        val edits = collect("forward_references.py")
+        assertEquals(" -> \"User\"", edits["return of User.copy()"])
+        assertEquals(" -> \"Post\"", edits["return of first_post()"])
+        assertEquals(" -> User", edits["return of make_user()"])
+    }
+
+    fun testPostponedAnnotationsAreNotQuoted() {
+        val edits = collect("forward_references_postponed.py")
+        assertEquals(" -> User", edits["return of User.copy()"])
+        assertEquals(" -> Post", edits["return of first_post()"])
+    }
+
+    private fun collect(file: String): Map<String, String> {
+        val virtualFile = myFixture.configureByFile("annotations/$file").virtualFile
+        return AnnotationEditCollector.collect(project, virtualFile)!!.associate { it.declaration to it.replacement }
+    }
+
+    override fun getTestDataPath() = "src/test/testData"
+}
@@ -0,0 +1,68 @@
+package com.github.sullyvahnn.flaskplugin.java.CaretListener
+
+import com.intellij.openapi.command.WriteCommandAction
+import com.intellij.openapi.editor.event.CaretEvent
+import com.intellij.psi.PsiDocumentManager
+import com.intellij.testFramework.TestDataPath
+import com.intellij.testFramework.fixtures.BasePlatformTestCase
+
+@TestDataPath("\$CONTENT_ROOT/src/test/testData")
+class CaretAnalysisSchedulerTest : BasePlatformTestCase() {
+
+    private lateinit var scheduler: CaretAnalysisScheduler
+
+    override fun setUp() {
+        super.setUp()
+        myFixture.configureByFile("caret/symbols.py")
+        scheduler = CaretAnalysisScheduler(project)
+    }
+
+    fun testReferencesOfOneSymbolShareResult() {
+        val printed = caretAt("print(user)", "user")
+        val copied = caretAt("copy = user", "user")
+        assertEquals(scheduler.identify(printed), scheduler.identify(copied))
+
+        val result = analyse(printed)
+        assertTrue(result.types().any { it.type.trim() == "User" })
+        assertSame(result, analyse(copied))
+    }
+
+    fun testQualifiedReferenceHasOwnResult() {
+        val plain = caretAt("print(user)", "user")
+        val qualified = caretAt("user.name", "name")
+        assertFalse(scheduler.identify(plain) == scheduler.identify(qualified))
+    }
+
+    fun testEditExpiresResult() {
+        val result = analyse(caretAt("print(user)", "user"))
+        WriteCommandAction.runWriteCommandAction(project) {
+            val document = myFixture.editor.document
+            document.insertString(document.textLength, "\nother = 1\n")
+            PsiDocumentManager.getInstance(project).commitDocument(document)
+        }
+        assertNotSame(result, analyse(caretAt("print(user)", "user")))
+    }
+
+    fun testTreeResultIsKeptWithResult() {
+        val event = caretAt("print(user)", "user")
+        val identity = scheduler.identify(event)
+        val result = analyse(event)
+        val tree = scheduler.analyseTree(event, identity, result)
+        val stored = analyse(caretAt("copy = user", "user"))
+        assertSame(tree, stored.tree())
+        assertSame(tree, scheduler.analyseTree(event, identity, stored))
+    }
+
+    private fun analyse(event: CaretEvent) = scheduler.analyse(event, scheduler.identify(event))
+
+    private fun caretAt(line: String, word: String): CaretEvent {
+        val text = myFixture.editor.document.text
+        val offset = text.indexOf(line) + line.indexOf(word) + 1
+        val caretModel = myFixture.editor.caretModel
+        val oldPosition = caretModel.logicalPosition
+        caretModel.moveToOffset(offset)
+        return CaretEvent(caretModel.currentCaret, oldPosition, caretModel.logicalPosition)
+    }
+
+    override fun getTestDataPath() = "src/test/testData"
+}
@@ -0,0 +1,56 @@
+package com.github.sullyvahnn.flaskplugin.java.Flask
+
+import com.github.sullyvahnn.flaskplugin.java.Settings.FlaskTypesSettings
+import com.intellij.psi.util.PsiTreeUtil
+import com.intellij.testFramework.TestDataPath
+import com.intellij.testFramework.fixtures.BasePlatformTestCase
+import com.jetbrains.python.psi.PyAssignmentStatement
+
+@TestDataPath("\$CONTENT_ROOT/src/test/testData")
+class FlaskApiTypeTableTest : BasePlatformTestCase() {
+
+    override fun setUp() {
+        super.setUp()
+        myFixture.configureByFile("api/aliases.py")
+    }
+
+    override fun tearDown() {
+        try {
+            FlaskTypesSettings.getInstance(project).state.apiTypes.clear()
+        } finally {
+            super.tearDown()
+        }
+    }
+
+    fun testBuiltinEntries() {
+        assertEquals("str | None", type("plain"))
+        assertEquals("Any", type("subscription"))
+    }
+
+    fun testImportAliasesMapToFlaskNames() {
+        assertEquals("str", type("aliased"))
+        assertEquals("bool", type("module_alias"))
+    }
+
+    fun testNamesNotFromFlaskAreNotInTable() {
+        assertNull(type("not_flask"))
+        assertNull(type("module_only"))
+        assertNull(type("project_entry"))
+    }
+
+    fun testProjectEntriesOverrideBuiltinOnes() {
+        val apiTypes = FlaskTypesSettings.getInstance(project).state.apiTypes
+        apiTypes["g.user"] = "User"
+        apiTypes["request.is_json"] = "Literal[True]"
+        assertEquals("User", type("project_entry"))
+        assertEquals("Literal[True]", type("module_alias"))
+        assertEquals("bool", FlaskApiTypeTable.getBuiltinType(value("module_alias")))
+    }
+
+    private fun type(name: String) = FlaskApiTypeTable.getType(value(name))
+
+    private fun value(name: String) = PsiTreeUtil.findChildrenOfType(myFixture.file, PyAssignmentStatement::class.java)
+        .single { it.targets.single().name == name }.assignedValue!!
+
+    override fun getTestDataPath() = "src/test/testData"
+}
@@ -0,0 +1,46 @@
+package com.github.sullyvahnn.flaskplugin.java.Flask
+
+import com.intellij.psi.util.PsiTreeUtil
+import com.intellij.testFramework.TestDataPath
+import com.intellij.testFramework.fixtures.BasePlatformTestCase
+import com.jetbrains.python.psi.PyTargetExpression
+
+@TestDataPath("\$CONTENT_ROOT/src/test/testData")
+class FlaskConfigIndexTest : BasePlatformTestCase() {
+
+    override fun setUp() {
+        super.setUp()
+        myFixture.copyDirectoryToProject("config", "")
+        myFixture.configureFromTempProjectFile("app.py")
+    }
+
+    fun testConfigModuleAndConfigClasses() {
+        assertEquals(setOf("str", "None"), FlaskConfigIndex.getKeyTypes(project, "SECRET_KEY"))
+        assertEquals(setOf("bool", "str"), FlaskConfigIndex.getKeyTypes(project, "DEBUG"))
+        assertEquals(setOf("int"), FlaskConfigIndex.getKeyTypes(project, "TIMEOUT"))
+    }
+
+    fun testLowercaseNamesAreNoKeys() {
+        assertEmpty(FlaskConfigIndex.getKeyTypes(project, "lowercase"))
+    }
+
+    fun testWrittenKeys() {
+        assertEquals(setOf("int"), FlaskConfigIndex.getKeyTypes(project, "UPLOAD_LIMIT"))
+        assertEquals(setOf("dict"), FlaskConfigIndex.getKeyTypes(project, "FEATURE_FLAGS"))
+        assertEquals(setOf("float"), FlaskConfigIndex.getKeyTypes(project, "RATIO"))
+        assertEquals(setOf("int"), FlaskConfigIndex.getKeyTypes(project, "RETRIES"))
+    }
+
+    fun testReads() {
+        assertEquals("int | None", FlaskConfigIndex.getConfigType(findAssignedValue("timeout")))
+        assertEquals("int", FlaskConfigIndex.getConfigType(findAssignedValue("limit")))
+        assertEquals("float", FlaskConfigIndex.getConfigType(findAssignedValue("ratio")))
+    }
+
+    private fun findAssignedValue(name: String) =
+        PsiTreeUtil.findChildrenOfType(myFixture.file, PyTargetExpression::class.java)
+            .single { it.name == name }
+            .findAssignedValue()!!
+
+    override fun getTestDataPath() = "src/test/testData"
+}
@@ -0,0 +1,48 @@
+package com.github.sullyvahnn.flaskplugin.java.Flask
+
+import com.intellij.psi.util.PsiTreeUtil
+import com.intellij.testFramework.TestDataPath
+import com.intellij.testFramework.fixtures.BasePlatformTestCase
+import com.jetbrains.python.psi.PyTargetExpression
+
+@TestDataPath("\$CONTENT_ROOT/src/test/testData")
+class FlaskModelIndexTest : BasePlatformTestCase() {
+
+    override fun setUp() {
+        super.setUp()
+        myFixture.configureByFile("models/models.py")
+    }
+
+    fun testColumnAndRelationshipTypes() {
+        assertEquals(
+            mapOf(
+                "id" to "int",
+                "email" to "str",
+                "name" to "str | None",
+                "posts" to "list[Post]",
+                "profile" to "Profile | None",
+            ),
+            FlaskModelIndex.getModelAttributes(project, "User"),
+        )
+        assertEquals(mapOf("title" to "str"), FlaskModelIndex.getModelAttributes(project, "Post"))
+    }
+
+    fun testClassesNotExtendingModelAreSkipped() {
+        assertNull(FlaskModelIndex.getModelAttributes(project, "Helper"))
+        assertFalse(FlaskModelIndex.isModelAttribute(project, "label"))
+        assertTrue(FlaskModelIndex.isModelAttribute(project, "email"))
+    }
+
+    fun testQueryTypes() {
+        assertEquals("User | None", FlaskModelIndex.getQueryType(findAssignedValue("first")))
+        assertEquals("list[User]", FlaskModelIndex.getQueryType(findAssignedValue("everyone")))
+        assertEquals("Query[User]", FlaskModelIndex.getQueryType(findAssignedValue("query")))
+    }
+
+    private fun findAssignedValue(name: String) =
+        PsiTreeUtil.findChildrenOfType(myFixture.file, PyTargetExpression::class.java)
+            .single { it.name == name }
+            .findAssignedValue()!!
+
+    override fun getTestDataPath() = "src/test/testData"
+}
@@ -0,0 +1,40 @@
+package com.github.sullyvahnn.flaskplugin.java.Flask
+
+import com.intellij.psi.util.PsiTreeUtil
+import com.intellij.testFramework.TestDataPath
+import com.intellij.testFramework.fixtures.BasePlatformTestCase
+import com.jetbrains.python.psi.PyFunction
+
+@TestDataPath("\$CONTENT_ROOT/src/test/testData")
+class FlaskRouteIndexTest : BasePlatformTestCase() {
+
+    override fun setUp() {
+        super.setUp()
+        myFixture.copyDirectoryToProject("packages", "")
+        myFixture.configureByFile("routes/views.py")
+    }
+
+    fun testConverterTypes() {
+        assertEquals(mapOf("user_id" to "int"), FlaskRouteIndex.getRouteParameterTypes(findFunction("show_user")))
+    }
+
+    fun testRoutesOfOneHandlerAreMerged() {
+        assertEquals(mapOf("name" to "str | int"), FlaskRouteIndex.getRouteParameterTypes(findFunction("show_file")))
+    }
+
+    fun testDecoratorOfOtherObjectIsNoRoute() {
+        assertNull(FlaskRouteIndex.getRouteParameterTypes(findFunction("not_a_route")))
+    }
+
+    fun testSameNamedHandlersKeepTheirOwnRoutes() {
+        assertEquals(mapOf("page" to "int"), FlaskRouteIndex.getRouteParameterTypes(findFunction("index", "register_pages")))
+        assertEquals(mapOf("slug" to "str"), FlaskRouteIndex.getRouteParameterTypes(findFunction("index", "register_posts")))
+    }
+
+    private fun findFunction(name: String, enclosing: String? = null): PyFunction =
+        PsiTreeUtil.findChildrenOfType(myFixture.file, PyFunction::class.java).single {
+            it.name == name && PsiTreeUtil.getParentOfType(it, PyFunction::class.java)?.name == enclosing
+        }
+
+    override fun getTestDataPath() = "src/test/testData"
+}
@@ -0,0 +1,33 @@
+package com.github.sullyvahnn.flaskplugin.java.Flask
+
+import com.github.sullyvahnn.flaskplugin.java.ExpressionData.ExpressionData
+import com.intellij.testFramework.TestDataPath
+import com.intellij.testFramework.fixtures.BasePlatformTestCase
+
+@TestDataPath("\$CONTENT_ROOT/src/test/testData")
+class RenderTemplateIndexTest : BasePlatformTestCase() {
+
+    override fun setUp() {
+        super.setUp()
+        myFixture.copyDirectoryToProject("packages", "")
+        myFixture.copyDirectoryToProject("templates", "")
+    }
+
+    fun testTemplateNameIsRelativeToTemplatesDirectory() {
+        val template = myFixture.findFileInTempDir("app/templates/users/show.html")
+        assertEquals("users/show.html", RenderTemplateIndex.getTemplateName(template))
+        assertNull(RenderTemplateIndex.getTemplateName(myFixture.findFileInTempDir("app/views.py")))
+    }
+
+    fun testContextTypesOfAllViews() {
+        val context = RenderTemplateIndex.getContextTypes(project, "users/show.html")
+        assertEquals(setOf("user", "title"), context.keys)
+        assertEquals(setOf("User", "Admin"), ExpressionData.distinctTypes(context.getValue("user")))
+    }
+
+    fun testUnknownTemplateHasNoContext() {
+        assertEmpty(RenderTemplateIndex.getContextTypes(project, "users/missing.html").keys)
+    }
+
+    override fun getTestDataPath() = "src/test/testData"
+}
@@ -0,0 +1,54 @@
+package com.github.sullyvahnn.flaskplugin.java.Headless
+
+import com.intellij.testFramework.fixtures.BasePlatformTestCase
+import java.nio.file.Path
+
+class TypeAnalysisStarterOptionsTest : BasePlatformTestCase() {
+
+    fun testProjectPathAndPaths() {
+        val options = TypeAnalysisStarter.Options.parse(listOf("project", "app/views.py", "app/models.py", "--output=out.json"))
+        assertEquals(Path.of("project").toAbsolutePath().normalize(), options.projectPath)
+        assertEquals(listOf(Path.of("app/views.py"), Path.of("app/models.py")), options.paths)
+        assertFalse(options.ndjson)
+        assertEquals(Path.of("out.json").toAbsolutePath(), options.output)
+        assertNull(options.snapshot)
+        assertEquals(0, options.maxPolymorphic)
+    }
+
+    fun testOptions() {
+        val options = TypeAnalysisStarter.Options.parse(listOf(
+            "--format=ndjson", "--output=out.json", "--snapshot=types.json",
+            "--threshold=3", "--max-polymorphic=10", "project",
+        ))
+        assertTrue(options.ndjson)
+        assertEquals(Path.of("out.json").toAbsolutePath(), options.output)
+        assertEquals(Path.of("types.json").toAbsolutePath(), options.snapshot)
+        assertEquals(3, options.threshold)
+        assertEquals(10, options.maxPolymorphic)
+    }
+
+    fun testInvalidArguments() {
+        assertInvalid(listOf("--format=xml", "project"), "Unknown format: xml")
+        assertInvalid(listOf("--threshold=many", "project"), "Not a number: --threshold=many")
+        assertInvalid(listOf("--verbose", "project"), "Unknown option: --verbose")
+        assertInvalid(listOf("--format=json"), "Project path is missing")
+        assertInvalid(listOf("project"), "Report file is missing, pass --output=<file>")
+    }
+
+    fun testThresholdBelowOneIsRejected() {
+        assertInvalid(listOf("--threshold=0", "--output=out.json", "project"), "Threshold must be at least 1: --threshold=0")
+        assertInvalid(listOf("--threshold=-2", "--output=out.json", "project"), "Threshold must be at least 1: --threshold=-2")
+        assertInvalid(listOf("--max-polymorphic=-1", "--output=out.json", "project"),
+            "Count must not be negative: --max-polymorphic=-1")
+        assertEquals(1, TypeAnalysisStarter.Options.parse(listOf("--threshold=1", "--output=out.json", "project")).threshold)
+    }
+
+    private fun assertInvalid(args: List<String>, message: String) {
+        try {
+            TypeAnalysisStarter.Options.parse(args)
+            fail("Expected $args to be rejected")
+        } catch (e: IllegalArgumentException) {
+            assertEquals(message, e.message)
+        }
+    }
+}
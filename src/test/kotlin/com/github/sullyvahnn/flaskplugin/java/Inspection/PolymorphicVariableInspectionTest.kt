@@ -0,0 +1,35 @@
+package com.github.sullyvahnn.flaskplugin.java.Inspection
+
+import com.intellij.lang.annotation.HighlightSeverity
+import com.intellij.testFramework.TestDataPath
+import com.intellij.testFramework.fixtures.BasePlatformTestCase
+
+@TestDataPath("\$CONTENT_ROOT/src/test/testData")
+class PolymorphicVariableInspectionTest : BasePlatformTestCase() {
+
+    fun testVariableReachingThresholdIsReported() {
+        assertEquals(listOf("'value' can hold 3 types: A, B, C"), problems(3))
+    }
+
+    fun testLowerThresholdReportsSmallerTypeSets() {
+        val problems = problems(2)
+        assertEquals(2, problems.size)
+        assertTrue(problems.any { it.startsWith("'mixed' can hold 2 types") })
+        assertTrue(problems.any { it.startsWith("'value' can hold 3 types") })
+    }
+
+    fun testNothingIsReportedBelowThreshold() {
+        assertEmpty(problems(4))
+    }
+
+    private fun problems(threshold: Int): List<String> {
+        myFixture.enableInspections(PolymorphicVariableInspection().apply { typesCountWarning = threshold })
+        myFixture.configureByFile("inspection/polymorphic.py")
+        return myFixture.doHighlighting(HighlightSeverity.WEAK_WARNING)
+            .mapNotNull { it.description }
+            .filter { it.contains(" can hold ") }
+            .sorted()
+    }
+
+    override fun getTestDataPath() = "src/test/testData"
+}
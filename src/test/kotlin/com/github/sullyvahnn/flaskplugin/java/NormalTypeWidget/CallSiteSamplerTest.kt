@@ -0,0 +1,35 @@
+package com.github.sullyvahnn.flaskplugin.java.NormalTypeWidget
+
+import com.intellij.psi.util.PsiTreeUtil
+import com.intellij.testFramework.TestDataPath
+import com.intellij.testFramework.fixtures.BasePlatformTestCase
+import com.jetbrains.python.psi.PyFunction
+
+@TestDataPath("\$CONTENT_ROOT/src/test/testData")
+class CallSiteSamplerTest : BasePlatformTestCase() {
+
+    fun testSpreadKeepsShortLists() {
+        assertEquals(listOf(1, 2, 3), CallSiteSampler.spread(listOf(1, 2, 3), 5))
+    }
+
+    fun testSpreadTakesEvenlySpacedItems() {
+        assertEquals(listOf(0, 2, 4, 6, 8), CallSiteSampler.spread((0 until 10).toList(), 5))
+        assertEquals(listOf(0, 33, 66), CallSiteSampler.spread((0 until 100).toList(), 3))
+    }
+
+    fun testArgumentsAreBoundLikePython() {
+        myFixture.configureByFile("sampler/calls.py")
+        val greet = PsiTreeUtil.findChildrenOfType(myFixture.file, PyFunction::class.java)
+            .single { it.name == "greet" && it.containingClass == null }
+        assertEquals(
+            listOf("\"first\"", "\"second\""),
+            CallSiteSampler.findArguments(myFixture.file, greet, "name").map { it.text },
+        )
+        assertEquals(
+            listOf("\"hello\""),
+            CallSiteSampler.findArguments(myFixture.file, greet, "greeting").map { it.text },
+        )
+    }
+
+    override fun getTestDataPath() = "src/test/testData"
+}
@@ -0,0 +1,66 @@
+package com.github.sullyvahnn.flaskplugin.java.NormalTypeWidget
+
+import com.intellij.testFramework.TestDataPath
+import com.intellij.testFramework.fixtures.BasePlatformTestCase
+import com.jetbrains.python.psi.PyAssignmentStatement
+import com.jetbrains.python.psi.PyCallExpression
+import com.jetbrains.python.psi.PyExpression
+import com.jetbrains.python.psi.PyRecursiveElementVisitor
+import java.util.function.Function
+
+@TestDataPath("\$CONTENT_ROOT/src/test/testData")
+class ContainerElementsTest : BasePlatformTestCase() {
+
+    /** Types of the names used in containers.py, standing in for the resolver */
+    private val names = mapOf(
+        "user" to "User", "first" to "A", "second" to "B", "third" to "C", "others" to "list[D]",
+        "name" to "str", "key" to "str", "amount" to "int", "value" to "float", "more" to "bool",
+        "fallback" to "None",
+    )
+    private val evaluator = Function<PyExpression, Collection<String>> { listOfNotNull(names[it.text]) }
+
+    override fun setUp() {
+        super.setUp()
+        myFixture.configureByFile("containers/containers.py")
+    }
+
+    fun testListElements() {
+        val items = collect("items")
+        assertFalse(items.isEmpty)
+        assertEquals("list[User | A | B | C | D]", items.apply("list", evaluator))
+        assertEquals("list[User | A | B | C | D]", items.apply("list[Any]", evaluator))
+        assertEquals("list[int | User | A | B | C | D]", items.apply("list[int]", evaluator))
+    }
+
+    fun testDictKeysAndValues() {
+        assertEquals("dict[str, int | float | bool | None]", collect("totals").apply("dict", evaluator))
+    }
+
+    fun testOtherTypesAreKept() {
+        assertEquals("str", collect("items").apply("str", evaluator))
+    }
+
+    fun testUnusedContainerIsEmpty() {
+        assertTrue(collect("missing").isEmpty)
+    }
+
+    private fun collect(name: String): ContainerElements {
+        val elements = ContainerElements(name)
+        // in file order, the way the resolver walks the scope
+        myFixture.file.accept(object : PyRecursiveElementVisitor() {
+            override fun visitPyCallExpression(node: PyCallExpression) {
+                super.visitPyCallExpression(node)
+                elements.addCall(node)
+            }
+
+            override fun visitPyAssignmentStatement(node: PyAssignmentStatement) {
+                super.visitPyAssignmentStatement(node)
+                val value = node.assignedValue ?: return
+                node.rawTargets.forEach { elements.addItemAssignment(it, value) }
+            }
+        })
+        return elements
+    }
+
+    override fun getTestDataPath() = "src/test/testData"
+}
@@ -0,0 +1,56 @@
+package com.github.sullyvahnn.flaskplugin.java.NormalTypeWidget
+
+import com.github.sullyvahnn.flaskplugin.java.TypeAnalysis.AnalysisMemoryCache
+import com.intellij.psi.util.PsiTreeUtil
+import com.intellij.testFramework.TestDataPath
+import com.intellij.testFramework.fixtures.BasePlatformTestCase
+import com.jetbrains.python.psi.PyFunction
+
+@TestDataPath("\$CONTENT_ROOT/src/test/testData")
+class ReturnTypeSummariesTest : BasePlatformTestCase() {
+
+    override fun setUp() {
+        super.setUp()
+        myFixture.configureByFile("summaries/recursion.py")
+    }
+
+    fun testMutuallyRecursiveFunctionsShareComponent() {
+        assertEquals(setOf("is_even", "is_odd"), componentNames("is_even"))
+        assertEquals(setOf("is_even", "is_odd"), componentNames("is_odd"))
+    }
+
+    fun testOtherFunctionsAreTheirOwnComponent() {
+        assertEquals(setOf("walk"), componentNames("walk"))
+        assertEquals(setOf("build"), componentNames("build"))
+    }
+
+    fun testSelfRecursionReachesFixpoint() {
+        assertEquals(setOf("Leaf"), returnTypes("walk"))
+    }
+
+    fun testMutualRecursionReachesFixpoint() {
+        assertEquals(setOf("Leaf", "Node"), returnTypes("is_even"))
+        assertEquals(setOf("Leaf", "Node"), returnTypes("is_odd"))
+    }
+
+    fun testCallerOfComponentGetsItsSummary() {
+        assertEquals(setOf("Leaf", "Node"), returnTypes("build"))
+    }
+
+    fun testWholeComponentIsCachedOnce() {
+        returnTypes("is_even")
+        val misses = AnalysisMemoryCache.getInstance().statistics.misses
+        assertEquals(setOf("Leaf", "Node"), returnTypes("is_odd"))
+        assertEquals(misses, AnalysisMemoryCache.getInstance().statistics.misses)
+    }
+
+    private fun componentNames(name: String) =
+        ReturnTypeSummaries.findComponent(findFunction(name)).map { it.name }.toSet()
+
+    private fun returnTypes(name: String) = ReturnTypeSummaries.getSummary(findFunction(name)).typeNames() - "None"
+
+    private fun findFunction(name: String): PyFunction =
+        PsiTreeUtil.findChildrenOfType(myFixture.file, PyFunction::class.java).single { it.name == name }
+
+    override fun getTestDataPath() = "src/test/testData"
+}
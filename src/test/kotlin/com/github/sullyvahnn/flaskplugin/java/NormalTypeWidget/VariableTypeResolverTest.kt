@@ -0,0 +1,76 @@
+package com.github.sullyvahnn.flaskplugin.java.NormalTypeWidget
+
+import com.github.sullyvahnn.flaskplugin.java.ExpressionData.ExpressionData
+import com.intellij.psi.util.PsiTreeUtil
+import com.intellij.testFramework.TestDataPath
+import com.intellij.testFramework.fixtures.BasePlatformTestCase
+import com.jetbrains.python.psi.PyFunction
+
+@TestDataPath("\$CONTENT_ROOT/src/test/testData")
+class VariableTypeResolverTest : BasePlatformTestCase() {
+
+    override fun setUp() {
+        super.setUp()
+        myFixture.copyDirectoryToProject("packages", "")
+    }
+
+    fun testRouteParameter() {
+        assertEquals(setOf("int"), typesAtCaret("route_parameter.py"))
+    }
+
+    fun testModelQuery() {
+        assertEquals(setOf("User", "None"), typesAtCaret("model_query.py"))
+    }
+
+    fun testConfigRead() {
+        assertEquals(setOf("str", "None"), typesAtCaret("config_read.py"))
+    }
+
+    fun testCoercedFormField() {
+        assertEquals(setOf("int", "None"), typesAtCaret("form_field.py"))
+    }
+
+    fun testIncompleteCoerceKeepsFieldType() {
+        assertEquals(setOf("str", "None"), typesAtCaret("form_field_incomplete.py"))
+    }
+
+    fun testAttributeAssignedInOtherMethods() {
+        assertEquals(setOf("Leaf", "Node"), typesAtCaret("class_attribute.py"))
+    }
+
+    fun testRecursiveFunctionReturn() {
+        assertEquals(setOf("Leaf"), typesAtCaret("recursive_return.py"))
+    }
+
+    fun testParameterFromCallSites() {
+        assertEquals(setOf("Leaf", "Node"), typesAtCaret("call_site_parameter.py"))
+    }
+
+    fun testSourceResolverMatchesSampledResolver() {
+        myFixture.configureByFile("resolver/call_site_parameter.py")
+        val identifier = myFixture.file.findElementAt(myFixture.caretOffset)!!.parent
+        assertEquals(
+            ExpressionData.distinctTypes(VariableTypeResolver().getPossibleTypes(identifier)!!),
+            ExpressionData.distinctTypes(SourceTypeResolver().getPossibleTypes(identifier)!!),
+        )
+    }
+
+    fun testStubAnnotationsSplitOutsideBrackets() {
+        myFixture.configureByFile("resolver/stub_annotations.py")
+        val functions = PsiTreeUtil.findChildrenOfType(myFixture.file, PyFunction::class.java).associateBy { it.name }
+        assertEquals(
+            listOf("list[User | None]", "dict[str, int | None]"),
+            VariableTypeResolver.getStubTypes(functions.getValue("containers").annotation),
+        )
+        assertEquals(listOf("Node", "None"), VariableTypeResolver.getStubTypes(functions.getValue("forward").annotation))
+        assertEmpty(VariableTypeResolver.getStubTypes(functions.getValue("unknown").annotation))
+    }
+
+    private fun typesAtCaret(file: String): Set<String> {
+        myFixture.configureByFile("resolver/$file")
+        val identifier = myFixture.file.findElementAt(myFixture.caretOffset)!!.parent
+        return ExpressionData.distinctTypes(VariableTypeResolver().getPossibleTypes(identifier)!!)
+    }
+
+    override fun getTestDataPath() = "src/test/testData"
+}
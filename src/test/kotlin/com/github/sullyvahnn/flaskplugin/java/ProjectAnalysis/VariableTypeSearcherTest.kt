@@ -0,0 +1,69 @@
+package com.github.sullyvahnn.flaskplugin.java.ProjectAnalysis
+
+import com.github.sullyvahnn.flaskplugin.java.Snapshot.SnapshotStore
+import com.github.sullyvahnn.flaskplugin.java.TypeAnalysis.AnalysisMemoryCache
+import com.intellij.openapi.command.WriteCommandAction
+import com.intellij.psi.PsiDocumentManager
+import com.intellij.testFramework.TestDataPath
+import com.intellij.testFramework.fixtures.BasePlatformTestCase
+import com.intellij.usages.UsageInfo2UsageAdapter
+
+@TestDataPath("\$CONTENT_ROOT/src/test/testData")
+class VariableTypeSearcherTest : BasePlatformTestCase() {
+
+    override fun setUp() {
+        super.setUp()
+        myFixture.copyDirectoryToProject("search", "")
+    }
+
+    fun testShortAndGenericNamesMatch() {
+        assertTrue(VariableTypeSearcher(project, "models.User").matches(listOf("User", "None")))
+        assertTrue(VariableTypeSearcher(project, "list").matches(listOf("list[Post]")))
+        assertTrue(VariableTypeSearcher(project, "list[Post]").matches(listOf("list[Post]")))
+        assertFalse(VariableTypeSearcher(project, "Post").matches(listOf("list[Post]")))
+        assertFalse(VariableTypeSearcher(project, "User").matches(listOf("Username")))
+    }
+
+    fun testDeclarationsHoldingTypeAreFound() {
+        assertEquals(listOf("current"), findNames("User", "views.py"))
+        assertEquals(listOf("posts"), findNames("list", "views.py"))
+        assertEquals(listOf<String>(), findNames("User", "counter.py"))
+    }
+
+    fun testOnlyChangedFilesAreAnalysedAgain() {
+        findNames("User", "views.py")
+        var misses = misses()
+        findNames("User", "views.py")
+        assertEquals(misses, misses())
+
+        edit("counter.py")
+        findNames("User", "views.py")
+        assertEquals(misses, misses())
+
+        misses = misses()
+        edit("models.py")
+        findNames("User", "views.py")
+        assertTrue(misses() > misses)
+    }
+
+    private fun findNames(type: String, file: String): List<String> {
+        val searcher = VariableTypeSearcher(project, type)
+        val settingsHash = SnapshotStore.getInstance(project).settingsHash
+        val usages = searcher.findMatches(ProjectTypeScanner(project), myFixture.findFileInTempDir(file), settingsHash)
+        return usages.orEmpty().map { (it as UsageInfo2UsageAdapter).element!!.text }
+    }
+
+    private fun edit(file: String) {
+        val psiFile = psiManager.findFile(myFixture.findFileInTempDir(file))!!
+        val documentManager = PsiDocumentManager.getInstance(project)
+        WriteCommandAction.runWriteCommandAction(project) {
+            val document = documentManager.getDocument(psiFile)!!
+            document.insertString(document.textLength, "\n\nedited = 1\n")
+            documentManager.commitDocument(document)
+        }
+    }
+
+    private fun misses() = AnalysisMemoryCache.getInstance().statistics.misses
+
+    override fun getTestDataPath() = "src/test/testData"
+}
@@ -0,0 +1,48 @@
+package com.github.sullyvahnn.flaskplugin.java.RuntimeTraces
+
+import com.intellij.openapi.progress.EmptyProgressIndicator
+import com.intellij.testFramework.TestDataPath
+import com.intellij.testFramework.fixtures.BasePlatformTestCase
+import java.nio.file.Path
+
+@TestDataPath("\$CONTENT_ROOT/src/test/testData")
+class RuntimeTraceReaderTest : BasePlatformTestCase() {
+
+    fun testJsonLines() {
+        val index = read("calls.jsonl")
+        assertEquals(2, index.functionCount)
+        assertEquals(3L, index.traceCount)
+
+        val view = index.getFunction("app.views.index")!!
+        assertEquals(mapOf("user_id" to listOf("int", "str")), view.argumentTypes)
+        assertEquals(listOf("Response"), view.returnTypes)
+        assertEquals(2L, view.calls)
+
+        val find = index.getFunction("app.models.User.find")!!
+        assertEquals(mapOf("email" to listOf("str | None")), find.argumentTypes)
+        assertEquals(listOf("list[User]"), find.returnTypes)
+    }
+
+    fun testJsonArray() {
+        val index = read("calls.json")
+        assertEquals(listOf("None"), index.getFunction("app.views.logout")!!.returnTypes)
+    }
+
+    fun testClosestSuffixMatchWins() {
+        val builder = RuntimeTraceIndex.Builder()
+        builder.add("src.app.views.index", mapOf(), "Response")
+        builder.add("app.views.index", mapOf(), "str")
+        val index = builder.build()
+        assertEquals(listOf("str"), index.getFunction("views.index")!!.returnTypes)
+        assertEquals(listOf("Response"), index.getFunction("project.src.app.views.index")!!.returnTypes)
+        assertNull(index.getFunction("app.models.index"))
+    }
+
+    private fun read(file: String): RuntimeTraceIndex {
+        val builder = RuntimeTraceIndex.Builder()
+        RuntimeTraceReader(builder, EmptyProgressIndicator()).read(Path.of(testDataPath, "traces", file))
+        return builder.build()
+    }
+
+    override fun getTestDataPath() = "src/test/testData"
+}
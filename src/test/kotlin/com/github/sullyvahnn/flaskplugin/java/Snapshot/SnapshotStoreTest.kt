@@ -0,0 +1,86 @@
+package com.github.sullyvahnn.flaskplugin.java.Snapshot
+
+import com.github.sullyvahnn.flaskplugin.java.TypeAnalysis.FileDependencies
+import com.github.sullyvahnn.flaskplugin.java.TypeAnalysis.FileTypeRecords
+import com.github.sullyvahnn.flaskplugin.java.TypeAnalysis.TypeAnalysisCache
+import com.github.sullyvahnn.flaskplugin.java.TypeAnalysis.VariableTypeRecord
+import com.intellij.openapi.command.WriteCommandAction
+import com.intellij.openapi.editor.Document
+import com.intellij.openapi.project.ProjectUtil
+import com.intellij.openapi.util.io.FileUtil
+import com.intellij.psi.PsiDocumentManager
+import com.intellij.psi.PsiFile
+import com.intellij.psi.PsiManager
+import com.intellij.psi.util.PsiTreeUtil
+import com.intellij.testFramework.TestDataPath
+import com.intellij.testFramework.fixtures.BasePlatformTestCase
+import com.jetbrains.python.psi.PyTargetExpression
+import java.nio.file.Files
+
+@TestDataPath("\$CONTENT_ROOT/src/test/testData")
+class SnapshotStoreTest : BasePlatformTestCase() {
+
+    override fun setUp() {
+        super.setUp()
+        myFixture.copyDirectoryToProject("snapshot", "")
+        importSnapshot()
+    }
+
+    fun testUnchangedFilesAreAnswered() {
+        assertEquals(listOf(SNAPSHOT_TYPE), snapshotTypes("views.py", "user"))
+        assertEquals(listOf(SNAPSHOT_TYPE), snapshotTypes("standalone.py", "total"))
+    }
+
+    fun testEditInvalidatesDependentFilesOnly() {
+        edit("models.py") { it.insertString(it.textLength, "\n\nclass Admin(User):\n    pass\n") }
+        assertNull(snapshotTypes("views.py", "user"))
+        assertEquals(listOf(SNAPSHOT_TYPE), snapshotTypes("standalone.py", "total"))
+    }
+
+    fun testStaleEntryIsDropped() {
+        val appended = "\n\nclass Admin(User):\n    pass\n"
+        edit("models.py") { it.insertString(it.textLength, appended) }
+        assertNull(snapshotTypes("views.py", "user"))
+        edit("models.py") { it.deleteString(it.textLength - appended.length, it.textLength) }
+        assertNull(snapshotTypes("views.py", "user"))
+    }
+
+    private fun importSnapshot() {
+        val path = FileUtil.createTempFile("snapshot", ".json", true).toPath()
+        val store = SnapshotStore.getInstance(project)
+        SnapshotWriter(Files.newBufferedWriter(path), ProjectUtil.guessProjectDir(project)!!, store.settingsHash).use { writer ->
+            for (name in listOf("models.py", "views.py", "standalone.py")) {
+                val file = psiFile(name)
+                val records = PsiTreeUtil.findChildrenOfType(file, PyTargetExpression::class.java)
+                    .filter { TypeAnalysisCache.isAnalysedDeclaration(it) }
+                    .mapNotNull { VariableTypeRecord.create(it, listOf(SNAPSHOT_TYPE)) }
+                writer.write(FileTypeRecords(file.virtualFile, TypeAnalysisCache.getContentHash(file), records, mapOf()),
+                    FileDependencies.getDependencyHash(file)!!)
+            }
+        }
+        assertEquals(3, store.importSnapshot(path))
+    }
+
+    private fun edit(name: String, change: (Document) -> Unit) {
+        val documentManager = PsiDocumentManager.getInstance(project)
+        WriteCommandAction.runWriteCommandAction(project) {
+            val document = documentManager.getDocument(psiFile(name))!!
+            change(document)
+            documentManager.commitDocument(document)
+        }
+    }
+
+    private fun snapshotTypes(name: String, variable: String): List<String>? {
+        val target = PsiTreeUtil.findChildrenOfType(psiFile(name), PyTargetExpression::class.java).single { it.name == variable }
+        return SnapshotStore.getInstance(project).getTypes(target)
+    }
+
+    private fun psiFile(name: String): PsiFile =
+        PsiManager.getInstance(project).findFile(myFixture.findFileInTempDir(name))!!
+
+    override fun getTestDataPath() = "src/test/testData"
+
+    companion object {
+        private const val SNAPSHOT_TYPE = "FromSnapshot"
+    }
+}
@@ -0,0 +1,58 @@
+package com.github.sullyvahnn.flaskplugin.java.StubGeneration
+
+import com.github.sullyvahnn.flaskplugin.java.Snapshot.SnapshotStore
+import com.github.sullyvahnn.flaskplugin.java.TypeAnalysis.TypeAnalysisCache
+import com.intellij.openapi.command.WriteCommandAction
+import com.intellij.psi.PsiDocumentManager
+import com.intellij.testFramework.TestDataPath
+import com.intellij.testFramework.fixtures.BasePlatformTestCase
+import com.jetbrains.python.psi.PyFile
+
+@TestDataPath("\$CONTENT_ROOT/src/test/testData")
+class StubGeneratorTest : BasePlatformTestCase() {
+
+    fun testInferredTypesAreWritten() {
+        val stub = StubGenerator(configure("inferred.py")).generate()!!
+        assertTrue(stub.contains("class Leaf:\n    ...\n"))
+        assertTrue(stub.contains("def make() -> Leaf: ...\n"))
+        assertTrue(stub.contains("DEFAULT: Leaf\n"))
+        assertFalse(stub.contains("from typing import Any"))
+    }
+
+    fun testFullyAnnotatedModuleNeedsNoStub() {
+        assertNull(StubGenerator(configure("annotated.py")).generate())
+    }
+
+    fun testNamesDefinedConditionallyCannotBeDescribed() {
+        assertFalse(StubGenerator.canDescribe(configure("conditional_import.py")))
+        assertFalse(StubGenerator.canDescribe(configure("conditional_method.py")))
+    }
+
+    fun testMainGuardAndStatementsWithoutDefinitionsAreIgnored() {
+        assertTrue(StubGenerator.canDescribe(configure("main_guard.py")))
+    }
+
+    fun testHeaderIsCurrentUntilModuleChanges() {
+        val module = configure("inferred.py")
+        val header = GeneratedStubs.readHeader(StubGenerator(module).generate()!!)!!
+        assertNotNull(header.dependencyHash)
+        assertTrue(header.isCurrent(module))
+
+        WriteCommandAction.runWriteCommandAction(project) {
+            myFixture.editor.document.insertString(0, "# edited\n")
+            PsiDocumentManager.getInstance(project).commitDocument(myFixture.editor.document)
+        }
+        assertFalse(header.isCurrent(module))
+    }
+
+    fun testHeaderWithoutDependencyHashIsNeverCurrent() {
+        val module = configure("inferred.py")
+        val header = GeneratedStubs.Header(TypeAnalysisCache.getContentHash(module), null, SnapshotStore.VERSION)
+        assertEquals(header, GeneratedStubs.readHeader(header.format()))
+        assertFalse(header.isCurrent(module))
+    }
+
+    private fun configure(file: String) = myFixture.configureByFile("stubs/$file") as PyFile
+
+    override fun getTestDataPath() = "src/test/testData"
+}
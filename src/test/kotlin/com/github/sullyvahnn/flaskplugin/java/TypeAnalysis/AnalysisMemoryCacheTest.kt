@@ -0,0 +1,66 @@
+package com.github.sullyvahnn.flaskplugin.java.TypeAnalysis
+
+import com.intellij.openapi.util.Disposer
+import com.intellij.testFramework.fixtures.BasePlatformTestCase
+
+class AnalysisMemoryCacheTest : BasePlatformTestCase() {
+
+    private lateinit var cache: AnalysisMemoryCache
+
+    override fun setUp() {
+        super.setUp()
+        // room for exactly three entries
+        cache = AnalysisMemoryCache(3 * (AnalysisMemoryCache.ENTRY_OVERHEAD + PAYLOAD_WEIGHT))
+        Disposer.register(testRootDisposable, cache)
+    }
+
+    fun testLeastRecentlyUsedEntryIsEvicted() {
+        cache.put("a", "A", PAYLOAD_WEIGHT)
+        cache.put("b", "B", PAYLOAD_WEIGHT)
+        cache.put("c", "C", PAYLOAD_WEIGHT)
+        assertEquals("A", cache.get("a", String::class.java))
+
+        cache.put("d", "D", PAYLOAD_WEIGHT)
+        assertNull(cache.get("b", String::class.java))
+        assertEquals("A", cache.get("a", String::class.java))
+        assertEquals("C", cache.get("c", String::class.java))
+        assertEquals("D", cache.get("d", String::class.java))
+        assertEquals(1L, cache.statistics.evictions)
+        assertEquals(3, cache.statistics.entries)
+    }
+
+    fun testPayloadLargerThanBudgetIsNotCached() {
+        cache.put("a", "A", PAYLOAD_WEIGHT)
+        cache.put("large", "L", cache.statistics.budget)
+        assertNull(cache.get("large", String::class.java))
+        assertEquals("A", cache.get("a", String::class.java))
+        assertEquals(0L, cache.statistics.evictions)
+    }
+
+    fun testReplacedEntryIsWeighedOnce() {
+        cache.put("a", "A", PAYLOAD_WEIGHT)
+        cache.put("a", "A2", PAYLOAD_WEIGHT)
+        assertEquals(AnalysisMemoryCache.ENTRY_OVERHEAD + PAYLOAD_WEIGHT, cache.statistics.weight)
+        assertEquals("A2", cache.get("a", String::class.java))
+    }
+
+    fun testComputeIfAbsentComputesOnce() {
+        var computed = 0
+        repeat(2) {
+            assertEquals("value", cache.computeIfAbsent("key", String::class.java, { computed++; "value" }, { PAYLOAD_WEIGHT }))
+        }
+        assertEquals(1, computed)
+        assertEquals(1L, cache.statistics.hits)
+        assertEquals(1L, cache.statistics.misses)
+    }
+
+    fun testPayloadOfOtherTypeIsMiss() {
+        cache.put("a", "A", PAYLOAD_WEIGHT)
+        assertNull(cache.get("a", Int::class.javaObjectType))
+        assertEquals(1L, cache.statistics.misses)
+    }
+
+    private companion object {
+        const val PAYLOAD_WEIGHT = 872L
+    }
+}
@@ -0,0 +1,49 @@
+package com.github.sullyvahnn.flaskplugin.java.TypeAnalysis
+
+import com.intellij.psi.util.PsiTreeUtil
+import com.intellij.testFramework.TestDataPath
+import com.intellij.testFramework.fixtures.BasePlatformTestCase
+import com.jetbrains.python.psi.PyFile
+import com.jetbrains.python.psi.PyFunction
+
+@TestDataPath("\$CONTENT_ROOT/src/test/testData")
+class AnnotationTextTest : BasePlatformTestCase() {
+
+    private lateinit var text: AnnotationText
+
+    override fun setUp() {
+        super.setUp()
+        text = AnnotationText(myFixture.configureByFile("stubs/visible_names.py") as PyFile)
+    }
+
+    fun testBuiltinsAndModuleNames() {
+        assertEquals("int | None", text.render(listOf("int", "None")))
+        assertEquals("Leaf | list[Member]", text.render(listOf("Leaf", " list[Member] ", "Leaf")))
+        assertEquals("dict[str, Leaf]", text.render(listOf("dict[str, Leaf]")))
+        assertEquals("os.path.Entry", text.render(listOf("os.path.Entry")))
+    }
+
+    fun testNamesNotVisibleInModule() {
+        assertNull(text.render(listOf("int", "User")))
+        assertNull(text.render(listOf("path.Entry")))
+    }
+
+    fun testAnyAndLargeUnionsAreNotWritten() {
+        assertNull(text.render(listOf("Any")))
+        assertNull(text.render(listOf("list[Any]")))
+        assertNull(text.render(listOf("int", "float", "complex", "bool", "str", "bytes", "list", "dict", "set")))
+        assertNull(text.render(listOf()))
+    }
+
+    fun testClassesNotDefinedYetAreForwardReferences() {
+        val file = myFixture.configureByFile("annotations/forward_references.py") as PyFile
+        val forward = AnnotationText(file)
+        fun function(name: String) = PsiTreeUtil.findChildrenOfType(file, PyFunction::class.java).single { it.name == name }
+        assertTrue(forward.hasForwardReference("User", function("copy")))
+        assertTrue(forward.hasForwardReference("Post | None", function("first_post")))
+        assertFalse(forward.hasForwardReference("User | list[Post]", function("make_user")))
+        assertFalse(forward.hasForwardReference("os.User", function("first_post")))
+    }
+
+    override fun getTestDataPath() = "src/test/testData"
+}
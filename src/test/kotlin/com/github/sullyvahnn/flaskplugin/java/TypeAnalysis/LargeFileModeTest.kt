@@ -0,0 +1,65 @@
+package com.github.sullyvahnn.flaskplugin.java.TypeAnalysis
+
+import com.github.sullyvahnn.flaskplugin.java.NormalTypeWidget.VariableTypeResolver
+import com.github.sullyvahnn.flaskplugin.java.Settings.FlaskTypesSettings
+import com.intellij.psi.util.PsiTreeUtil
+import com.intellij.testFramework.TestDataPath
+import com.intellij.testFramework.fixtures.BasePlatformTestCase
+import com.jetbrains.python.psi.PyTargetExpression
+
+@TestDataPath("\$CONTENT_ROOT/src/test/testData")
+class LargeFileModeTest : BasePlatformTestCase() {
+
+    override fun setUp() {
+        super.setUp()
+        myFixture.configureByFile("largefile/scopes.py")
+    }
+
+    override fun tearDown() {
+        try {
+            FlaskTypesSettings.getInstance(project).loadState(FlaskTypesSettings.State())
+        } finally {
+            super.tearDown()
+        }
+    }
+
+    fun testSmallFileSearchesWholeFile() {
+        assertFalse(LargeFileMode.isLargeFile(myFixture.file))
+        val resolver = VariableTypeResolver()
+        assertEquals(setOf("A", "B"), types(resolver))
+        assertFalse(resolver.isLargeFile)
+    }
+
+    fun testLargeFileSearchesEnclosingScopeOnly() {
+        setLargeFileLines(5)
+        assertTrue(LargeFileMode.isLargeFile(myFixture.file))
+        val resolver = VariableTypeResolver()
+        assertEquals(setOf("A"), types(resolver))
+        assertTrue(resolver.isLargeFile)
+        assertTrue(resolver.approximationNote!!.startsWith(LargeFileMode.NOTE))
+    }
+
+    fun testSettingsChangeSwitchesMode() {
+        assertFalse(LargeFileMode.isLargeFile(myFixture.file))
+        setLargeFileLines(5)
+        assertTrue(LargeFileMode.isLargeFile(myFixture.file))
+        setLargeFileLines(5000)
+        assertFalse(LargeFileMode.isLargeFile(myFixture.file))
+    }
+
+    fun testNodeThresholdAloneSwitchesMode() {
+        FlaskTypesSettings.getInstance(project).loadState(FlaskTypesSettings.State().apply { largeFilePsiNodes = 10 })
+        assertTrue(LargeFileMode.isLargeFile(myFixture.file))
+    }
+
+    private fun setLargeFileLines(lines: Int) {
+        FlaskTypesSettings.getInstance(project).loadState(FlaskTypesSettings.State().apply { largeFileLines = lines })
+    }
+
+    private fun types(resolver: VariableTypeResolver): Set<String> {
+        val target = PsiTreeUtil.findChildrenOfType(myFixture.file, PyTargetExpression::class.java).first { it.name == "value" }
+        return resolver.getPossibleTypes(target)!!.map { it.type.trim() }.toSet()
+    }
+
+    override fun getTestDataPath() = "src/test/testData"
+}
@@ -0,0 +1,15 @@
+class User:
+    def copy(self):
+        return User()
+
+
+def first_post():
+    return Post()
+
+
+class Post:
+    pass
+
+
+def make_user():
+    return User()
@@ -0,0 +1,18 @@
+from __future__ import annotations
+
+
+class User:
+    def copy(self):
+        return User()
+
+
+def first_post():
+    return Post()
+
+
+class Post:
+    pass
+
+
+def make_user():
+    return User()
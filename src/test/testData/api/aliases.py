@@ -0,0 +1,11 @@
+import flask as f
+from flask import g, request, session
+from flask import request as req
+
+plain = request.args.get("page")
+aliased = req.form["name"]
+module_alias = f.request.is_json
+subscription = session["user_id"]
+project_entry = g.user
+not_flask = other.args.get("page")
+module_only = f
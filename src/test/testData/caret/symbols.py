@@ -0,0 +1,8 @@
+class User:
+    name = "admin"
+
+
+user = User()
+print(user)
+label = user.name
+copy = user
@@ -0,0 +1,10 @@
+from flask import Flask
+
+app = Flask(__name__)
+app.config["UPLOAD_LIMIT"] = 1024
+app.config.update(FEATURE_FLAGS={}, RATIO=0.5)
+app.config.setdefault("RETRIES", 3)
+
+timeout = app.config.get("TIMEOUT")
+limit = app.config.get("UPLOAD_LIMIT", 0)
+ratio = app.config["RATIO"]
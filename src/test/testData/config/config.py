@@ -0,0 +1,10 @@
+import os
+
+SECRET_KEY = os.environ.get("SECRET_KEY")
+DEBUG = False
+lowercase = 1
+
+
+class ProductionConfig:
+    DEBUG = "no"
+    TIMEOUT = 30
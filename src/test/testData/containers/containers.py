@@ -0,0 +1,11 @@
+items = []
+items.append(user)
+items.extend([first, second])
+items.insert(0, third)
+items.extend(others)
+other.append(ignored)
+
+totals = {}
+totals[name] = amount
+totals.update({key: value}, extra=more)
+totals.setdefault(key, fallback)
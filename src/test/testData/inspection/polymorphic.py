@@ -0,0 +1,25 @@
+class A:
+    pass
+
+
+class B:
+    pass
+
+
+class C:
+    pass
+
+
+def pick(flag):
+    if flag == 1:
+        value = A()
+    elif flag == 2:
+        value = B()
+    else:
+        value = C()
+    return value
+
+
+mixed = 1
+mixed = "text"
+single = 0
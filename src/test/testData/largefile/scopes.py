@@ -0,0 +1,16 @@
+class A:
+    pass
+
+
+class B:
+    pass
+
+
+def first():
+    value = A()
+    return value
+
+
+def second():
+    value = B()
+    return value
@@ -0,0 +1,21 @@
+class User(db.Model):
+    id = db.Column(db.Integer, primary_key=True)
+    email = db.Column(db.String(120), nullable=False)
+    name = db.Column(db.String(80))
+    posts = db.relationship("Post", backref="author")
+    profile = db.relationship("Profile", uselist=False)
+
+
+class Post(Model):
+    title: Mapped[str] = mapped_column()
+
+
+class Helper:
+    label = db.Column(db.String(80))
+
+
+def find(email):
+    first = User.query.filter_by(email=email).first()
+    everyone = User.query.all()
+    query = User.query
+    return first, everyone, query
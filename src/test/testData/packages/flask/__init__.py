@@ -0,0 +1,6 @@
+from .app import Flask
+from .blueprints import Blueprint
+
+
+def render_template(template_name, **context):
+    return ""
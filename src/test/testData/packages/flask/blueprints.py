@@ -0,0 +1,9 @@
+class Blueprint:
+    def __init__(self, name, import_name):
+        self.name = name
+
+    def route(self, rule, **options):
+        return lambda f: f
+
+    def get(self, rule, **options):
+        return lambda f: f
@@ -0,0 +1,12 @@
+class FlaskForm:
+    pass
+
+
+class IntegerField:
+    def __init__(self, label=None, validators=None):
+        self.data = None
+
+
+class SelectField:
+    def __init__(self, label=None, coerce=None, choices=None):
+        self.data = None
@@ -0,0 +1,15 @@
+class Leaf:
+    pass
+
+
+class Node:
+    pass
+
+
+def greet(per<caret>son, greeting="hi"):
+    return greeting
+
+
+greet(Leaf())
+greet(person=Node(), greeting="hello")
+greet(*[Leaf()])
@@ -0,0 +1,17 @@
+class Leaf:
+    pass
+
+
+class Node:
+    pass
+
+
+class Service:
+    def __init__(self):
+        self.current = Leaf()
+
+    def reset(self):
+        self.current = Node()
+
+    def use(self):
+        return self.curr<caret>ent
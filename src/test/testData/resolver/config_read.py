@@ -0,0 +1,7 @@
+from flask import Flask
+
+app = Flask(__name__)
+app.config["SECRET_KEY"] = "secret"
+app.config["SECRET_KEY"] = None
+
+sec<caret>ret = app.config["SECRET_KEY"]
@@ -0,0 +1,10 @@
+from flask_wtf import FlaskForm, IntegerField, SelectField
+
+
+class ProfileForm(FlaskForm):
+    age = IntegerField("Age")
+    team = SelectField("Team", coerce=int)
+
+
+def save(form: ProfileForm):
+    return form.team.da<caret>ta
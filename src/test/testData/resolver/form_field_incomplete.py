@@ -0,0 +1,9 @@
+from flask_wtf import FlaskForm, SelectField
+
+
+class ProfileForm(FlaskForm):
+    team = SelectField("Team", coerce=types.)
+
+
+def save(form: ProfileForm):
+    return form.team.da<caret>ta
@@ -0,0 +1,8 @@
+class User(db.Model):
+    id = db.Column(db.Integer, primary_key=True)
+    email = db.Column(db.String(120), nullable=False)
+
+
+def find(email):
+    us<caret>er = User.query.filter_by(email=email).first()
+    return user
@@ -0,0 +1,11 @@
+class Leaf:
+    pass
+
+
+def walk(node):
+    if node:
+        return walk(node.parent)
+    return Leaf()
+
+
+res<caret>ult = walk(None)
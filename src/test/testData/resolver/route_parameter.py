@@ -0,0 +1,8 @@
+from flask import Flask
+
+app = Flask(__name__)
+
+
+@app.route("/users/<int:user_id>")
+def show_user(user_<caret>id):
+    return user_id
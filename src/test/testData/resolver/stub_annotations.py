@@ -0,0 +1,7 @@
+def containers() -> list[User | None] | dict[str, int | None]: ...
+
+
+def forward() -> "Node | None": ...
+
+
+def unknown() -> Any: ...
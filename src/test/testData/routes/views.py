@@ -0,0 +1,40 @@
+from flask import Flask, Blueprint
+
+app = Flask(__name__)
+bp = Blueprint("files", __name__)
+
+
+class Cache:
+    def get(self, key):
+        return None
+
+
+cache = Cache()
+
+
+@app.route("/users/<int:user_id>")
+def show_user(user_id):
+    return user_id
+
+
+@bp.get("/files/<path:name>")
+@bp.get("/files/<int:name>")
+def show_file(name):
+    return name
+
+
+@cache.get("/items/<int:item_id>")
+def not_a_route(item_id):
+    return item_id
+
+
+def register_pages():
+    @app.route("/pages/<int:page>")
+    def index(page):
+        return page
+
+
+def register_posts():
+    @app.route("/posts/<slug>")
+    def index(slug):
+        return slug
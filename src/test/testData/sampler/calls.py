@@ -0,0 +1,14 @@
+def greet(name, greeting="hi"):
+    return greeting
+
+
+class Greeter:
+    def greet(self, name):
+        return name
+
+
+greet("first")
+greet(name="second", greeting="hello")
+greet(*names)
+Greeter().greet("method")
+other("unrelated")
@@ -0,0 +1,10 @@
+class User:
+    pass
+
+
+class Post:
+    pass
+
+
+def load_user():
+    return User()
@@ -0,0 +1,4 @@
+from models import load_user, Post
+
+current = load_user()
+posts = [Post()]
@@ -0,0 +1,6 @@
+class User:
+    pass
+
+
+def load_user():
+    return User()
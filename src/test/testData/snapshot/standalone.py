@@ -0,0 +1 @@
+total = 0
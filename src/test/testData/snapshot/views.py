@@ -0,0 +1,3 @@
+from models import load_user
+
+user = load_user()
@@ -0,0 +1,6 @@
+class Leaf:
+    pass
+
+
+def make(count: int) -> Leaf:
+    return Leaf()
@@ -0,0 +1,4 @@
+class Service:
+    if DEBUG:
+        def run(self):
+            return 1
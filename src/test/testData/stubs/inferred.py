@@ -0,0 +1,9 @@
+class Leaf:
+    pass
+
+
+def make():
+    return Leaf()
+
+
+DEFAULT = make()
@@ -0,0 +1,12 @@
+import sys
+
+if DEBUG:
+    print([line for line in sys.argv])
+
+
+def main():
+    return 0
+
+
+if __name__ == "__main__":
+    code = main()
@@ -0,0 +1,6 @@
+import os.path
+from models import User as Member
+
+
+class Leaf:
+    pass
@@ -0,0 +1,28 @@
+class Leaf:
+    pass
+
+
+class Node:
+    pass
+
+
+def walk(node):
+    if node:
+        return walk(node.parent)
+    return Leaf()
+
+
+def is_even(n):
+    if n:
+        return is_odd(n)
+    return Node()
+
+
+def is_odd(n):
+    if n:
+        return is_even(n)
+    return Leaf()
+
+
+def build():
+    return is_even(1)
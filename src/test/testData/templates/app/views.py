@@ -0,0 +1,17 @@
+from flask import render_template
+
+
+class User:
+    pass
+
+
+class Admin:
+    pass
+
+
+def show_user():
+    return render_template("users/show.html", user=User(), title="User")
+
+
+def show_admin():
+    return render_template("users/show.html", user=Admin())